@@ -54,6 +54,38 @@ public class Config {
     public static final String UPDATABLE_KJAR = "UPDATABLEKJAR";
     public static final String KJAR_GAV = "KJARGAV";
     public static final String DEFAULT_MAX_SNAPSHOT_REQUEST_ATTEMPTS = "10";
+    public static final String FAST_HANDOVER = "FAST_HANDOVER";
+    public static final String LEADER_ELECTION_WATCH = "LEADER_ELECTION_WATCH";
+    public static final String LEADER_ELECTION = "LEADER_ELECTION";
+    public static final String KUBERNETES_LEADER_ELECTION = "kubernetes";
+    public static final String KAFKA_LEADER_ELECTION = "kafka";
+    public static final String LEADER_ELECTION_TOPIC = "LEADER_ELECTION_TOPIC";
+    public static final String DEFAULT_LEADER_ELECTION_TOPIC = "leader";
+    public static final String LEADER_ELECTION_SESSION_TIMEOUT = "LEADER_ELECTION_SESSION_TIMEOUT";
+    public static final String DEFAULT_LEADER_ELECTION_SESSION_TIMEOUT_MS = "10000";
+    public static final String WARM_PROMOTION = "WARM_PROMOTION";
+    public static final String CATCHUP_THRESHOLD = "CATCHUP_THRESHOLD";
+    public static final String DEFAULT_CATCHUP_THRESHOLD = "100";
+    public static final String SNAPSHOT_CACHE_DIR = "SNAPSHOT_CACHE_DIR";
+    public static final String OFFSET_STORE_DIR = "OFFSET_STORE_DIR";
+    public static final String OFFSET_STORE_SYNC_RECORDS = "OFFSET_STORE_SYNC_RECORDS";
+    public static final String DEFAULT_OFFSET_STORE_SYNC_RECORDS = "100";
+    public static final String MAX_REPLICA_LAG_READINESS = "MAX_REPLICA_LAG_READINESS";
+    public static final String DEFAULT_MAX_REPLICA_LAG_READINESS = "-1";
+    public static final String LEADER_ELECTION_LAG_BACKOFF = "LEADER_ELECTION_LAG_BACKOFF";
+    public static final String DEFAULT_LEADER_ELECTION_LAG_BACKOFF = "10";
+    public static final String MAX_PENDING_ASYNC_SIDE_EFFECTS = "MAX_PENDING_ASYNC_SIDE_EFFECTS";
+    public static final String DEFAULT_MAX_PENDING_ASYNC_SIDE_EFFECTS = "100";
+    public static final String STAGED_KJAR_UPDATE = "STAGEDKJARUPDATE";
+    public static final String DEFAULT_EVENT_EXPIRES = "DEFAULT_EVENT_EXPIRES";
+    public static final String HEARTBEAT_INTERVAL_MS = "HEARTBEAT_INTERVAL_MS";
+    public static final String DEFAULT_HEARTBEAT_INTERVAL_MS = "0";
+    public static final String EVENT_ALLOWED_LATENESS_MS = "EVENT_ALLOWED_LATENESS_MS";
+    public static final String DEFAULT_EVENT_ALLOWED_LATENESS_MS = "-1";
+    public static final String LATE_EVENTS_ENTRY_POINT = "LATE_EVENTS_ENTRY_POINT";
+    public static final String DEFAULT_LATE_EVENTS_ENTRY_POINT = "late";
+    public static final String RULE_STATS_SAMPLING = "RULE_STATS_SAMPLING";
+    public static final String DEFAULT_RULE_STATS_SAMPLING = "0";
     private static final Logger logger = LoggerFactory.getLogger(Config.class);
     private static Properties consumerConf, producerConf, snapshotConsumerConf, snapshotProducerConf;
     private static final String CONSUMER_CONF = "consumer.properties";
@@ -43,6 +43,25 @@ public final class EnvConfig {
     private final static String millisec ="millisec";
     private boolean updatableKJar;
     private String kjarGAV;//groupid:artifactid:version
+    private boolean fastHandover;
+    private boolean leaderElectionWatch = true;
+    private String leaderElection = Config.KUBERNETES_LEADER_ELECTION;
+    private String leaderElectionTopicName = Config.DEFAULT_LEADER_ELECTION_TOPIC;
+    private long leaderElectionSessionTimeout = Long.parseLong(Config.DEFAULT_LEADER_ELECTION_SESSION_TIMEOUT_MS);
+    private boolean warmPromotion = true;
+    private long catchUpThreshold = Long.parseLong(Config.DEFAULT_CATCHUP_THRESHOLD);
+    private String snapshotCacheDir;
+    private String offsetStoreDir;
+    private int offsetStoreSyncRecords = Integer.parseInt(Config.DEFAULT_OFFSET_STORE_SYNC_RECORDS);
+    private long maxReplicaLagReadiness = Long.parseLong(Config.DEFAULT_MAX_REPLICA_LAG_READINESS);
+    private long leaderElectionLagBackoff = Long.parseLong(Config.DEFAULT_LEADER_ELECTION_LAG_BACKOFF);
+    private int maxPendingAsyncSideEffects = Integer.parseInt(Config.DEFAULT_MAX_PENDING_ASYNC_SIDE_EFFECTS);
+    private boolean stagedKJarUpdate;
+    private String defaultEventExpires;
+    private long heartbeatIntervalMs = Long.parseLong(Config.DEFAULT_HEARTBEAT_INTERVAL_MS);
+    private long eventAllowedLatenessMs = Long.parseLong(Config.DEFAULT_EVENT_ALLOWED_LATENESS_MS);
+    private String lateEventsEntryPoint = Config.DEFAULT_LATE_EVENTS_ENTRY_POINT;
+    private int ruleStatsSampling = Integer.parseInt(Config.DEFAULT_RULE_STATS_SAMPLING);
 
 
     private EnvConfig() { }
@@ -65,6 +84,25 @@ public final class EnvConfig {
                 withMaxSnapshotRequestAttempts(Optional.ofNullable(System.getenv(Config.MAX_SNAPSHOT_REQUEST_ATTEMPTS)).orElse(Config.DEFAULT_MAX_SNAPSHOT_REQUEST_ATTEMPTS)).
                 withUpdatableKJar(Optional.ofNullable(System.getenv(Config.UPDATABLE_KJAR)).orElse(Boolean.FALSE.toString())).
                 withKJarGAV(Optional.ofNullable(System.getenv(Config.KJAR_GAV)).orElse(null)).
+                withFastHandover(Optional.ofNullable(System.getenv(Config.FAST_HANDOVER)).orElse(Boolean.FALSE.toString())).
+                withLeaderElectionWatch(Optional.ofNullable(System.getenv(Config.LEADER_ELECTION_WATCH)).orElse(Boolean.TRUE.toString())).
+                withLeaderElection(Optional.ofNullable(System.getenv(Config.LEADER_ELECTION)).orElse(Config.KUBERNETES_LEADER_ELECTION)).
+                withLeaderElectionTopicName(Optional.ofNullable(System.getenv(Config.LEADER_ELECTION_TOPIC)).orElse(Config.DEFAULT_LEADER_ELECTION_TOPIC)).
+                withLeaderElectionSessionTimeout(Optional.ofNullable(System.getenv(Config.LEADER_ELECTION_SESSION_TIMEOUT)).orElse(Config.DEFAULT_LEADER_ELECTION_SESSION_TIMEOUT_MS)).
+                withWarmPromotion(Optional.ofNullable(System.getenv(Config.WARM_PROMOTION)).orElse(Boolean.TRUE.toString())).
+                withCatchUpThreshold(Optional.ofNullable(System.getenv(Config.CATCHUP_THRESHOLD)).orElse(Config.DEFAULT_CATCHUP_THRESHOLD)).
+                withSnapshotCacheDir(Optional.ofNullable(System.getenv(Config.SNAPSHOT_CACHE_DIR)).orElse(null)).
+                withOffsetStoreDir(Optional.ofNullable(System.getenv(Config.OFFSET_STORE_DIR)).orElse(null)).
+                withOffsetStoreSyncRecords(Optional.ofNullable(System.getenv(Config.OFFSET_STORE_SYNC_RECORDS)).orElse(Config.DEFAULT_OFFSET_STORE_SYNC_RECORDS)).
+                withMaxReplicaLagReadiness(Optional.ofNullable(System.getenv(Config.MAX_REPLICA_LAG_READINESS)).orElse(Config.DEFAULT_MAX_REPLICA_LAG_READINESS)).
+                withLeaderElectionLagBackoff(Optional.ofNullable(System.getenv(Config.LEADER_ELECTION_LAG_BACKOFF)).orElse(Config.DEFAULT_LEADER_ELECTION_LAG_BACKOFF)).
+                withMaxPendingAsyncSideEffects(Optional.ofNullable(System.getenv(Config.MAX_PENDING_ASYNC_SIDE_EFFECTS)).orElse(Config.DEFAULT_MAX_PENDING_ASYNC_SIDE_EFFECTS)).
+                withStagedKJarUpdate(Optional.ofNullable(System.getenv(Config.STAGED_KJAR_UPDATE)).orElse(Boolean.FALSE.toString())).
+                withDefaultEventExpires(Optional.ofNullable(System.getenv(Config.DEFAULT_EVENT_EXPIRES)).orElse("")).
+                withHeartbeatIntervalMs(Optional.ofNullable(System.getenv(Config.HEARTBEAT_INTERVAL_MS)).orElse(Config.DEFAULT_HEARTBEAT_INTERVAL_MS)).
+                withEventAllowedLatenessMs(Optional.ofNullable(System.getenv(Config.EVENT_ALLOWED_LATENESS_MS)).orElse(Config.DEFAULT_EVENT_ALLOWED_LATENESS_MS)).
+                withLateEventsEntryPoint(Optional.ofNullable(System.getenv(Config.LATE_EVENTS_ENTRY_POINT)).orElse(Config.DEFAULT_LATE_EVENTS_ENTRY_POINT)).
+                withRuleStatsSampling(Optional.ofNullable(System.getenv(Config.RULE_STATS_SAMPLING)).orElse(Config.DEFAULT_RULE_STATS_SAMPLING)).
                 underTest(Optional.ofNullable(System.getenv(Config.UNDER_TEST)).orElse(Config.TEST));
     }
 
@@ -188,6 +226,101 @@ public final class EnvConfig {
         return this;
     }
 
+    public EnvConfig withFastHandover(String fastHandover) {
+        this.fastHandover = Boolean.valueOf(fastHandover);
+        return this;
+    }
+
+    public EnvConfig withLeaderElectionWatch(String leaderElectionWatch) {
+        this.leaderElectionWatch = Boolean.valueOf(leaderElectionWatch);
+        return this;
+    }
+
+    public EnvConfig withLeaderElection(String leaderElection) {
+        this.leaderElection = leaderElection;
+        return this;
+    }
+
+    public EnvConfig withLeaderElectionTopicName(String leaderElectionTopicName) {
+        this.leaderElectionTopicName = leaderElectionTopicName;
+        return this;
+    }
+
+    public EnvConfig withLeaderElectionSessionTimeout(String leaderElectionSessionTimeout) {
+        this.leaderElectionSessionTimeout = Long.parseLong(leaderElectionSessionTimeout);
+        return this;
+    }
+
+    public EnvConfig withWarmPromotion(String warmPromotion) {
+        this.warmPromotion = Boolean.valueOf(warmPromotion);
+        return this;
+    }
+
+    public EnvConfig withCatchUpThreshold(String catchUpThreshold) {
+        this.catchUpThreshold = Long.parseLong(catchUpThreshold);
+        return this;
+    }
+
+    public EnvConfig withSnapshotCacheDir(String snapshotCacheDir) {
+        this.snapshotCacheDir = snapshotCacheDir;
+        return this;
+    }
+
+    public EnvConfig withOffsetStoreDir(String offsetStoreDir) {
+        this.offsetStoreDir = offsetStoreDir;
+        return this;
+    }
+
+    public EnvConfig withOffsetStoreSyncRecords(String offsetStoreSyncRecords) {
+        this.offsetStoreSyncRecords = Integer.parseInt(offsetStoreSyncRecords);
+        return this;
+    }
+
+    public EnvConfig withMaxReplicaLagReadiness(String maxReplicaLagReadiness) {
+        this.maxReplicaLagReadiness = Long.parseLong(maxReplicaLagReadiness);
+        return this;
+    }
+
+    public EnvConfig withLeaderElectionLagBackoff(String leaderElectionLagBackoff) {
+        this.leaderElectionLagBackoff = Long.parseLong(leaderElectionLagBackoff);
+        return this;
+    }
+
+    public EnvConfig withMaxPendingAsyncSideEffects(String maxPendingAsyncSideEffects) {
+        this.maxPendingAsyncSideEffects = Integer.parseInt(maxPendingAsyncSideEffects);
+        return this;
+    }
+
+    public EnvConfig withStagedKJarUpdate(String stagedKJarUpdate) {
+        this.stagedKJarUpdate = Boolean.valueOf(stagedKJarUpdate);
+        return this;
+    }
+
+    public EnvConfig withDefaultEventExpires(String defaultEventExpires) {
+        this.defaultEventExpires = defaultEventExpires;
+        return this;
+    }
+
+    public EnvConfig withHeartbeatIntervalMs(String heartbeatIntervalMs) {
+        this.heartbeatIntervalMs = Long.parseLong(heartbeatIntervalMs);
+        return this;
+    }
+
+    public EnvConfig withEventAllowedLatenessMs(String eventAllowedLatenessMs) {
+        this.eventAllowedLatenessMs = Long.parseLong(eventAllowedLatenessMs);
+        return this;
+    }
+
+    public EnvConfig withLateEventsEntryPoint(String lateEventsEntryPoint) {
+        this.lateEventsEntryPoint = lateEventsEntryPoint;
+        return this;
+    }
+
+    public EnvConfig withRuleStatsSampling(String ruleStatsSampling) {
+        this.ruleStatsSampling = Integer.parseInt(ruleStatsSampling);
+        return this;
+    }
+
     public EnvConfig clone() {
         EnvConfig envConfig = new EnvConfig();
         envConfig.eventsTopicName = this.eventsTopicName;
@@ -208,6 +341,25 @@ public final class EnvConfig {
         envConfig.pollUnitSnapshot = this.pollUnitSnapshot;
         envConfig.updatableKJar = this.updatableKJar;
         envConfig.kjarGAV = this.kjarGAV;
+        envConfig.fastHandover = this.fastHandover;
+        envConfig.leaderElectionWatch = this.leaderElectionWatch;
+        envConfig.leaderElection = this.leaderElection;
+        envConfig.leaderElectionTopicName = this.leaderElectionTopicName;
+        envConfig.leaderElectionSessionTimeout = this.leaderElectionSessionTimeout;
+        envConfig.warmPromotion = this.warmPromotion;
+        envConfig.catchUpThreshold = this.catchUpThreshold;
+        envConfig.snapshotCacheDir = this.snapshotCacheDir;
+        envConfig.offsetStoreDir = this.offsetStoreDir;
+        envConfig.offsetStoreSyncRecords = this.offsetStoreSyncRecords;
+        envConfig.maxReplicaLagReadiness = this.maxReplicaLagReadiness;
+        envConfig.leaderElectionLagBackoff = this.leaderElectionLagBackoff;
+        envConfig.maxPendingAsyncSideEffects = this.maxPendingAsyncSideEffects;
+        envConfig.stagedKJarUpdate = this.stagedKJarUpdate;
+        envConfig.defaultEventExpires = this.defaultEventExpires;
+        envConfig.heartbeatIntervalMs = this.heartbeatIntervalMs;
+        envConfig.eventAllowedLatenessMs = this.eventAllowedLatenessMs;
+        envConfig.lateEventsEntryPoint = this.lateEventsEntryPoint;
+        envConfig.ruleStatsSampling = this.ruleStatsSampling;
         return envConfig;
     }
 
@@ -279,6 +431,44 @@ public final class EnvConfig {
 
     public String getKJarGAV(){ return kjarGAV;}
 
+    public boolean isFastHandover() { return fastHandover; }
+
+    public boolean isLeaderElectionWatch() { return leaderElectionWatch; }
+
+    public String getLeaderElection() { return leaderElection; }
+
+    public String getLeaderElectionTopicName() { return leaderElectionTopicName; }
+
+    public long getLeaderElectionSessionTimeout() { return leaderElectionSessionTimeout; }
+
+    public boolean isWarmPromotion() { return warmPromotion; }
+
+    public long getCatchUpThreshold() { return catchUpThreshold; }
+
+    public String getSnapshotCacheDir() { return snapshotCacheDir; }
+
+    public String getOffsetStoreDir() { return offsetStoreDir; }
+
+    public int getOffsetStoreSyncRecords() { return offsetStoreSyncRecords; }
+
+    public long getMaxReplicaLagReadiness() { return maxReplicaLagReadiness; }
+
+    public long getLeaderElectionLagBackoff() { return leaderElectionLagBackoff; }
+
+    public int getMaxPendingAsyncSideEffects() { return maxPendingAsyncSideEffects; }
+
+    public boolean isStagedKJarUpdate() { return stagedKJarUpdate; }
+
+    public String getDefaultEventExpires() { return defaultEventExpires; }
+
+    public long getHeartbeatIntervalMs() { return heartbeatIntervalMs; }
+
+    public long getEventAllowedLatenessMs() { return eventAllowedLatenessMs; }
+
+    public String getLateEventsEntryPoint() { return lateEventsEntryPoint; }
+
+    public int getRuleStatsSampling() { return ruleStatsSampling; }
+
 
     @Override
     public String toString() {
@@ -301,6 +491,25 @@ public final class EnvConfig {
         sb.append(", maxSnapshotRequestAttempts='").append(maxSnapshotRequestAttempts).append('\'');
         sb.append(", updatableKJar='").append(updatableKJar).append('\'');
         sb.append(", kjarGAV='").append(kjarGAV).append('\'');
+        sb.append(", fastHandover='").append(fastHandover).append('\'');
+        sb.append(", leaderElectionWatch='").append(leaderElectionWatch).append('\'');
+        sb.append(", leaderElection='").append(leaderElection).append('\'');
+        sb.append(", leaderElectionTopicName='").append(leaderElectionTopicName).append('\'');
+        sb.append(", leaderElectionSessionTimeout='").append(leaderElectionSessionTimeout).append('\'');
+        sb.append(", warmPromotion='").append(warmPromotion).append('\'');
+        sb.append(", catchUpThreshold='").append(catchUpThreshold).append('\'');
+        sb.append(", snapshotCacheDir='").append(snapshotCacheDir).append('\'');
+        sb.append(", offsetStoreDir='").append(offsetStoreDir).append('\'');
+        sb.append(", offsetStoreSyncRecords='").append(offsetStoreSyncRecords).append('\'');
+        sb.append(", maxReplicaLagReadiness='").append(maxReplicaLagReadiness).append('\'');
+        sb.append(", leaderElectionLagBackoff='").append(leaderElectionLagBackoff).append('\'');
+        sb.append(", maxPendingAsyncSideEffects='").append(maxPendingAsyncSideEffects).append('\'');
+        sb.append(", stagedKJarUpdate='").append(stagedKJarUpdate).append('\'');
+        sb.append(", defaultEventExpires='").append(defaultEventExpires).append('\'');
+        sb.append(", heartbeatIntervalMs='").append(heartbeatIntervalMs).append('\'');
+        sb.append(", eventAllowedLatenessMs='").append(eventAllowedLatenessMs).append('\'');
+        sb.append(", lateEventsEntryPoint='").append(lateEventsEntryPoint).append('\'');
+        sb.append(", ruleStatsSampling='").append(ruleStatsSampling).append('\'');
         sb.append(", underTest='").append(test).append('\'');
         sb.append('}');
         return sb.toString();
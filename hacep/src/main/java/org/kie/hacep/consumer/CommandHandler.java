@@ -18,16 +18,22 @@ package org.kie.hacep.consumer;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.drools.core.common.EventFactHandle;
+import org.drools.core.common.InternalWorkingMemory;
 import org.kie.api.KieServices;
 import org.kie.api.builder.ReleaseId;
 import org.kie.api.definition.type.Role;
 import org.kie.api.definition.type.Timestamp;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.EntryPoint;
 import org.kie.api.runtime.rule.FactHandle;
 import org.kie.hacep.EnvConfig;
+import org.kie.hacep.core.HacepMetrics;
 import org.kie.hacep.core.KieSessionContext;
 import org.kie.hacep.core.infra.SessionSnapshooter;
 import org.kie.hacep.core.infra.utils.ConsumerUtils;
@@ -37,6 +43,8 @@ import org.kie.remote.message.FireAllRuleMessage;
 import org.kie.remote.message.GetObjectMessage;
 import org.kie.remote.message.GetKJarGAVMessage;
 import org.kie.remote.message.ListKieSessionObjectMessage;
+import org.kie.remote.message.LiveQueryMessage;
+import org.kie.remote.message.RuleStatsMessage;
 import org.kie.remote.message.UpdateKjarMessage;
 import org.kie.remote.DroolsExecutor;
 import org.kie.remote.RemoteFactHandle;
@@ -47,11 +55,16 @@ import org.kie.remote.command.FireAllRulesCommand;
 import org.kie.remote.command.FireUntilHaltCommand;
 import org.kie.remote.command.GetKJarGAVCommand;
 import org.kie.remote.command.GetObjectCommand;
+import org.kie.remote.command.GetRuleStatsCommand;
 import org.kie.remote.command.HaltCommand;
+import org.kie.remote.command.HeartbeatCommand;
 import org.kie.remote.command.InsertCommand;
 import org.kie.remote.command.ListObjectsCommand;
 import org.kie.remote.command.ListObjectsCommandClassType;
 import org.kie.remote.command.ListObjectsCommandNamedQuery;
+import org.kie.remote.command.LiveQueryCloseCommand;
+import org.kie.remote.command.LiveQueryResumeCommand;
+import org.kie.remote.command.LiveQuerySubscribeCommand;
 import org.kie.remote.command.SnapshotOnDemandCommand;
 import org.kie.remote.command.UpdateCommand;
 import org.kie.remote.command.UpdateKJarCommand;
@@ -64,12 +77,16 @@ import org.slf4j.LoggerFactory;
 public class CommandHandler implements VisitorCommand {
 
     private static final Logger logger = LoggerFactory.getLogger(CommandHandler.class);
+    static final long RETAINED_EVENTS_REFRESH_MILLIS = 10_000;
 
     private KieSessionContext kieSessionContext;
     private EnvConfig envConfig;
     private Producer producer;
     private SessionSnapshooter sessionSnapshooter;
     private volatile boolean firingUntilHalt;
+    private final StagedKJarUpdate stagedKJarUpdate = new StagedKJarUpdate();
+    private final EventExpirationPolicy expirationPolicy;
+    private long lastRetainedEventsCount;
 
     public CommandHandler(KieSessionContext kieSessionContext,
                           EnvConfig envConfig,
@@ -79,11 +96,13 @@ public class CommandHandler implements VisitorCommand {
         this.envConfig = envConfig;
         this.producer = producer;
         this.sessionSnapshooter = sessionSnapshooter;
+        this.expirationPolicy = EventExpirationPolicy.parse(envConfig.getDefaultEventExpires());
     }
 
     @Override
     public void visit(FireAllRulesCommand command) {
         int fires = kieSessionContext.getKieSession().fireAllRules();
+        HacepMetrics.recordFires(fires);
         FireAllRuleMessage msg = new FireAllRuleMessage(command.getId(), fires);
 
         // command.isPermittedForReplicas() is true but only Leader should produce a message
@@ -113,13 +132,49 @@ public class CommandHandler implements VisitorCommand {
 
     @Override
     public void visit(EventInsertCommand command) {
-        internalInsert(command, command.getObject());
+        Object obj = command.getObject();
+        if (envConfig.getEventAllowedLatenessMs() < 0 || !isEvent(obj)) {
+            internalInsert(command, obj);
+            return;
+        }
+        EventWatermark watermark = kieSessionContext.getWatermark();
+        long timestamp = EventWatermark.timestampOf(obj, command.getTimestamp());
+        if (watermark.isLate(timestamp)) {
+            insertLateEvent(obj);
+        } else {
+            watermark.add(command, timestamp);
+        }
+        releaseEvents(watermark.advance(timestamp, envConfig.getEventAllowedLatenessMs()));
+    }
+
+    /* the clock isn't moved back for a late event, it's left to the rules on the late entry point */
+    private void insertLateEvent(Object obj) {
+        EntryPoint lateEntryPoint = kieSessionContext.getKieSession().getEntryPoint(envConfig.getLateEventsEntryPoint());
+        HacepMetrics.recordLateEvent(lateEntryPoint == null);
+        if (lateEntryPoint != null) {
+            lateEntryPoint.insert(obj);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Dropped the late event:{}, the entry point {} isn't used by the rules", obj, envConfig.getLateEventsEntryPoint());
+        }
+    }
+
+    private void releaseEvents(List<EventWatermark.Pending> released) {
+        if (released.isEmpty()) {
+            return;
+        }
+        for (EventWatermark.Pending pending : released) {
+            kieSessionContext.advanceClockTo(pending.getTimestamp());
+            insertFact(pending.getCommand(), pending.getCommand().getObject());
+        }
+        if (firingUntilHalt) {
+            HacepMetrics.recordFires(kieSessionContext.getKieSession().fireAllRules());
+        }
     }
 
     private FactHandle internalInsert(WorkingMemoryActionCommand command, Object obj) {
         FactHandle fh = isEvent(obj) ? insertEvent(command, obj) : insertFact(command, obj);
         if (firingUntilHalt) {
-            kieSessionContext.getKieSession().fireAllRules();
+            HacepMetrics.recordFires(kieSessionContext.getKieSession().fireAllRules());
         }
         if(logger.isDebugEnabled()){
             logger.debug("firingUntilHalt:{}", firingUntilHalt);
@@ -153,7 +208,7 @@ public class CommandHandler implements VisitorCommand {
         FactHandle factHandle = kieSessionContext.getFhManager().mapRemoteFactHandle(command.getFactHandle());
         kieSessionContext.getKieSession().getEntryPoint(command.getEntryPoint()).delete(factHandle);
         if (firingUntilHalt) {
-            kieSessionContext.getKieSession().fireAllRules();
+            HacepMetrics.recordFires(kieSessionContext.getKieSession().fireAllRules());
         }
     }
 
@@ -163,7 +218,7 @@ public class CommandHandler implements VisitorCommand {
         kieSessionContext.getKieSession().getEntryPoint(command.getEntryPoint()).update(factHandle,
                                                                                         command.getObject());
         if (firingUntilHalt) {
-            kieSessionContext.getKieSession().fireAllRules();
+            HacepMetrics.recordFires(kieSessionContext.getKieSession().fireAllRules());
         }
     }
 
@@ -201,8 +256,11 @@ public class CommandHandler implements VisitorCommand {
     }
 
     private List getSerializableItemsByClassType(ListObjectsCommandClassType command) {
+        FactCountsTracker factCounts = kieSessionContext.getFactCounts();
         Collection<? extends Object> objects = ObjectFilterHelper.getObjectsFilterByClassType(command.getClazzType(),
-                                                                                              kieSessionContext.getKieSession());
+                                                                                              kieSessionContext.getKieSession().getEntryPoint(command.getEntryPoint()),
+                                                                                              factCounts.getFactCount(command.getEntryPoint(), command.getClazzType()),
+                                                                                              factCounts.isTracked(command.getEntryPoint(), command.getClazzType()));
         return getListFromSerializableCollection(objects);
     }
 
@@ -236,7 +294,7 @@ public class CommandHandler implements VisitorCommand {
 
     @Override
     public void visit(FactCountCommand command) {
-        FactCountMessage msg = new FactCountMessage(command.getId(), kieSessionContext.getKieSession().getFactCount());
+        FactCountMessage msg = new FactCountMessage(command.getId(), kieSessionContext.getFactCounts().getFactCount(command.getEntryPoint()));
         producer.produceSync(envConfig.getKieSessionInfosTopicName(), command.getId(), msg);
     }
 
@@ -264,7 +322,11 @@ public class CommandHandler implements VisitorCommand {
         UpdateKjarMessage msg = new UpdateKjarMessage(command.getId(), Boolean.FALSE);
         if (ks != null) {
             ReleaseId releaseId = ks.newReleaseId(command.getGroupID(), command.getArtifactID(), command.getVersion());
-            if(envConfig.isUpdatableKJar()) {
+            if(envConfig.isUpdatableKJar() && envConfig.isStagedKJarUpdate()) {
+                // the result is sent by the leader when the container is swapped
+                stagedKJarUpdate.stage(command.getId(), releaseId);
+                return;
+            } else if(envConfig.isUpdatableKJar()) {
                 try {
                     kieSessionContext.getKieContainer().updateToVersion(releaseId);
                     msg = new UpdateKjarMessage(command.getId(), Boolean.TRUE);
@@ -281,12 +343,78 @@ public class CommandHandler implements VisitorCommand {
         producer.produceSync(envConfig.getKieSessionInfosTopicName(), command.getId(), msg);
     }
 
+    public StagedKJarUpdate getStagedKJarUpdate() {
+        return stagedKJarUpdate;
+    }
+
     @Override
     public void visit(GetKJarGAVCommand command) {
         GetKJarGAVMessage msg = new GetKJarGAVMessage(command.getId(), kieSessionContext.getKjarGAVUsed().orElse("KJar GAV NotDefined"));
         producer.produceSync(envConfig.getKieSessionInfosTopicName(), command.getId(), msg);
     }
 
+    @Override
+    public void visit(GetRuleStatsCommand command) {
+        RuleStatsMessage msg = new RuleStatsMessage(command.getId(), kieSessionContext.getRuleStats()
+                .map(RuleStatsListener::getStats)
+                .orElse(Collections.emptyList()));
+        producer.produceSync(envConfig.getKieSessionInfosTopicName(), command.getId(), msg);
+    }
+
+    @Override
+    public void visit(LiveQuerySubscribeCommand command) {
+        kieSessionContext.getLiveQueries().subscribe(new LiveQueryDefinition(command.getId(),
+                                                                             command.getEntryPoint(),
+                                                                             command.getNamedQuery(),
+                                                                             command.getObjectName(),
+                                                                             command.getParams(),
+                                                                             0L));
+    }
+
+    @Override
+    public void visit(LiveQueryResumeCommand command) {
+        for (LiveQueryMessage msg : kieSessionContext.getLiveQueries().resume(command.getSubscriptionId(), command.getLastSequence())) {
+            producer.produceSync(envConfig.getKieSessionInfosTopicName(), msg.getId(), msg);
+        }
+    }
+
+    @Override
+    public void visit(LiveQueryCloseCommand command) {
+        kieSessionContext.getLiveQueries().close(command.getSubscriptionId());
+    }
+
+    @Override
+    public void visit(HeartbeatCommand command) {
+        long before = kieSessionContext.getKieSession().getSessionClock().getCurrentTime();
+        long time = command.getTimestamp();
+        if (envConfig.getEventAllowedLatenessMs() >= 0) {
+            // with the events ordered by timestamp the clock follows the event time, not the clock of the leader
+            EventWatermark watermark = kieSessionContext.getWatermark();
+            releaseEvents(watermark.advanceOnHeartbeat(command.getTimestamp(), envConfig.getEventAllowedLatenessMs()));
+            time = watermark.getWatermark();
+        }
+        long now = kieSessionContext.advanceClockTo(time);
+        if (now == before) {
+            // queued behind commands that already moved the clock, e.g. while a replica catches up
+            return;
+        }
+        KieSession kieSession = kieSessionContext.getKieSession();
+        // the expirations scheduled by the clock are applied without waiting for the next insert
+        (( InternalWorkingMemory ) kieSession).flushPropagations();
+        // the retained events gauge costs a walk of all the facts, it's refreshed at most once per RETAINED_EVENTS_REFRESH_MILLIS
+        long wallClock = System.currentTimeMillis();
+        boolean countRetained = wallClock - lastRetainedEventsCount >= RETAINED_EVENTS_REFRESH_MILLIS;
+        Map<String, Long> retained = expirationPolicy.sweep(kieSession, now, countRetained);
+        if (countRetained) {
+            lastRetainedEventsCount = wallClock;
+            HacepMetrics.updateRetainedEvents(retained);
+        }
+        // the timers and the time windows fire also when no event arrives, unless the client fires the rules itself
+        if (firingUntilHalt) {
+            HacepMetrics.recordFires(kieSession.fireAllRules());
+        }
+    }
+
     public static boolean isEvent(Object obj) {
         Role role = obj.getClass().getAnnotation(Role.class);
         return role != null && role.value() == Role.Type.EVENT;
@@ -15,12 +15,15 @@
  */
 package org.kie.hacep.consumer;
 
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 
 import org.kie.api.KieServices;
 import org.kie.api.runtime.KieContainer;
 import org.kie.hacep.EnvConfig;
 import org.kie.hacep.core.GlobalStatus;
+import org.kie.hacep.core.HacepMetrics;
 import org.kie.hacep.core.KieSessionContext;
 import org.kie.hacep.core.infra.DefaultSessionSnapShooter;
 import org.kie.hacep.core.infra.SnapshotInfos;
@@ -29,20 +32,29 @@ import org.kie.hacep.core.infra.consumer.ItemToProcess;
 import org.kie.hacep.core.infra.election.State;
 import org.kie.hacep.core.infra.utils.SnapshotOnDemandUtils;
 import org.kie.remote.message.ControlMessage;
+import org.kie.remote.message.LiveQueryMessage;
+import org.kie.remote.message.UpdateKjarMessage;
 import org.kie.hacep.util.PrinterUtil;
 import org.kie.remote.DroolsExecutor;
+import org.kie.remote.DroolsExecutorContext;
+import org.kie.remote.command.CommandKind;
 import org.kie.remote.command.RemoteCommand;
 import org.kie.remote.command.VisitableCommand;
 import org.kie.remote.impl.producer.Producer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static org.kie.remote.util.SerializationUtil.deserialize;
 
 public class DroolsConsumerHandler implements ConsumerHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(DroolsConsumerHandler.class);
     private Logger loggerForTest;
+    /* kept across the KieSessionContexts created by the snapshots, the role is owned by the consumer */
+    private final DroolsExecutorContext executorContext;
+    /* kept across the sessions too, null when the rule stats aren't enabled */
+    private final RuleStatsListener ruleStats;
+    /* the ControlMessages are published in the order of the commands, also when their async side effects complete out of order */
+    private volatile CompletableFuture<Void> lastControlPublish = CompletableFuture.completedFuture(null);
     private Producer producer;
     private DefaultSessionSnapShooter sessionSnapShooter;
     private EnvConfig envConfig;
@@ -53,6 +65,9 @@ public class DroolsConsumerHandler implements ConsumerHandler {
 
     public DroolsConsumerHandler(Producer producer, EnvConfig envConfig) {
         this.envConfig = envConfig;
+        this.executorContext = new DroolsExecutorContext(envConfig.getMaxPendingAsyncSideEffects());
+        this.ruleStats = envConfig.getRuleStatsSampling() > 0 ? new RuleStatsListener(envConfig.getRuleStatsSampling()) : null;
+        HacepMetrics.bindRuleStats(this.ruleStats);
         this.sessionSnapShooter = new DefaultSessionSnapShooter(this.envConfig);
         initializeKieSessionContext();
         this.producer = producer;
@@ -85,8 +100,9 @@ public class DroolsConsumerHandler implements ConsumerHandler {
         KieServices srv = KieServices.get();
         if (srv != null) {
             KieContainer kieContainer = KieContainerUtils.getKieContainer(envConfig, srv);
-            this.kieSessionContext = new KieSessionContext();
+            this.kieSessionContext = new KieSessionContext(executorContext, ruleStats);
             this.kieSessionContext.init(kieContainer, kieContainer.newKieSession());
+            HacepMetrics.bindFactCounts(this.kieSessionContext.getFactCounts());
         } else {
             throw new RuntimeException("KieService is null");
         }
@@ -95,8 +111,9 @@ public class DroolsConsumerHandler implements ConsumerHandler {
     private void initializeSessionContextFromSnapshot() {
         if (this.snapshotInfos.getKieSession() != null) {
             if(logger.isInfoEnabled()){ logger.info("Applying snapshot Session");}
-            this.kieSessionContext = new KieSessionContext();
+            this.kieSessionContext = new KieSessionContext(executorContext, ruleStats);
             this.kieSessionContext.initFromSnapshot(this.snapshotInfos);
+            HacepMetrics.bindFactCounts(this.kieSessionContext.getFactCounts());
         } else {
             throw new RuntimeException("The Serialized Session isn't present");
         }
@@ -113,34 +130,145 @@ public class DroolsConsumerHandler implements ConsumerHandler {
         return false;
     }
 
+    public SnapshotInfos getSnapshotInfos() {
+        return snapshotInfos;
+    }
+
     public DefaultSessionSnapShooter getSessionSnapShooter(){
         return sessionSnapShooter;
     }
 
+    KieSessionContext getKieSessionContext() {
+        return kieSessionContext;
+    }
+
+    CommandHandler getCommandHandler() {
+        return commandHandler;
+    }
+
+    @Override
+    public DroolsExecutorContext getExecutorContext() {
+        return executorContext;
+    }
+
     @Override
     public void process( ItemToProcess item, State state) {
-        RemoteCommand command  = deserialize((byte[])item.getObject());
-        process( command, state );
+        applyStagedKJarUpdate( state );
+        if (!state.equals(State.LEADER) && !item.isPermittedForReplicas()) {
+            // nothing to execute on a replica, the payload isn't deserialized at all
+            if (envConfig.isUnderTest()) { loggerForTest.warn("DroolsConsumerHandler.process skipped on replica command:{} id:{}", item.getCommandKind(), item.getCommandId()); }
+            return;
+        }
+        processRemoteCommand( item.getCommand(), state );
     }
 
     @Override
     public void process( RemoteCommand command, State state ) {
+        applyStagedKJarUpdate( state );
+        processRemoteCommand( command, state );
+    }
+
+    private void processRemoteCommand( RemoteCommand command, State state ) {
         if(envConfig.isUnderTest()) {  loggerForTest.warn("DroolsConsumerHandler.process Remote command on process:{} state:{}", command, state); }
+        DroolsExecutorContext previousContext = executorContext.bind();
+        try {
+            processBound( command, state );
+        } finally {
+            DroolsExecutor.restoreContext(previousContext);
+        }
+    }
+
+    private void processBound( RemoteCommand command, State state ) {
         if (state.equals(State.LEADER)) {
             processCommand( command, state );
-            Queue<Object> sideEffectsResults = DroolsExecutor.getInstance().getAndReset();
-            if (envConfig.isUnderTest()) { loggerForTest.warn("DroolsConsumerHandler.process sideEffects:{}", sideEffectsResults); }
-            ControlMessage newControlMessage = new ControlMessage(command.getId(), sideEffectsResults);
-            if (envConfig.isUnderTest()) { loggerForTest.warn("DroolsConsumerHandler.process new ControlMessage sent to control topic:{}", newControlMessage); }
-            producer.produceSync(envConfig.getControlTopicName(), command.getId(), newControlMessage);
-            if (envConfig.isUnderTest()) { loggerForTest.warn("sideEffectOnLeader:{}", sideEffectsResults); }
+            publishLiveQueriesChanges( state );
+            CompletableFuture<Queue<Object>> sideEffectsResults = executorContext.getExecutor().getAndResetAsync().toCompletableFuture();
+            long epoch = GlobalStatus.leaderEpoch;
+            if (sideEffectsResults.isDone() && lastControlPublish.isDone()) {
+                publishControlMessage(command.getId(), sideEffectsResults.join(), epoch);
+            } else {
+                // the rule evaluation goes on, the replicas wait the ControlMessage before processing the event
+                lastControlPublish = lastControlPublish.thenCombine(sideEffectsResults, (previous, results) -> results)
+                        .thenAccept(results -> publishControlMessage(command.getId(), results, epoch))
+                        .exceptionally(t -> {
+                            logger.error("Failed to publish the ControlMessage of the command:{}", command.getId(), t);
+                            return null;
+                        });
+            }
         } else {
             processCommand( command, state );
+            publishLiveQueriesChanges( state );
+        }
+    }
+
+    private void publishControlMessage(String commandId, Queue<Object> sideEffectsResults, long epoch) {
+        if (envConfig.isUnderTest()) { loggerForTest.warn("DroolsConsumerHandler.process sideEffects:{}", sideEffectsResults); }
+        ControlMessage newControlMessage = new ControlMessage(commandId, sideEffectsResults);
+        newControlMessage.setEpoch(epoch);
+        newControlMessage.setTimestamp(System.currentTimeMillis());
+        if (envConfig.isUnderTest()) { loggerForTest.warn("DroolsConsumerHandler.process new ControlMessage sent to control topic:{}", newControlMessage); }
+        long publishStart = System.nanoTime();
+        producer.produceSync(envConfig.getControlTopicName(), commandId, newControlMessage);
+        HacepMetrics.recordControlPublish(System.nanoTime() - publishStart);
+        if (envConfig.isUnderTest()) { loggerForTest.warn("sideEffectOnLeader:{}", sideEffectsResults); }
+    }
+
+    /**
+     * Waits the ControlMessages of the commands with async side effects still running
+     */
+    public void awaitControlMessages() {
+        lastControlPublish.join();
+    }
+
+    /* the swap happens before the command, also when it's skipped on the replicas, to consume the Swap recorded by the leader */
+    private void applyStagedKJarUpdate( State state ) {
+        if (!envConfig.isStagedKJarUpdate()) {
+            return;
+        }
+        StagedKJarUpdate stagedKJarUpdate = commandHandler.getStagedKJarUpdate();
+        DroolsExecutor executor = executorContext.getExecutor();
+        if (state.equals(State.LEADER)) {
+            if (stagedKJarUpdate.isCompleted()) {
+                StagedKJarUpdate.Staged staged = stagedKJarUpdate.take();
+                KieContainer kieContainer = staged.getContainer();
+                if (kieContainer != null) {
+                    swapKieContainer(kieContainer);
+                    StagedKJarUpdate.Swap swap = new StagedKJarUpdate.Swap(staged.getCommandId(), staged.getGav());
+                    executor.execute(() -> swap);
+                }
+                producer.produceSync(envConfig.getKieSessionInfosTopicName(), staged.getCommandId(), new UpdateKjarMessage(staged.getCommandId(), kieContainer != null));
+            }
+        } else if (executor instanceof DroolsExecutor.Slave) {
+            StagedKJarUpdate.Swap swap = (( DroolsExecutor.Slave ) executor).pollIf(StagedKJarUpdate.Swap.class);
+            if (swap != null) {
+                swapKieContainer(stagedKJarUpdate.await(swap));
+            }
+        }
+    }
+
+    private void swapKieContainer(KieContainer kieContainer) {
+        long start = System.nanoTime();
+        kieSessionContext.swapKieContainer(kieContainer);
+        HacepMetrics.bindFactCounts(kieSessionContext.getFactCounts());
+        long elapsed = System.nanoTime() - start;
+        HacepMetrics.recordKJarSwap(elapsed);
+        if (logger.isInfoEnabled()) {
+            logger.info("Swapped to the KJar:{} with a pause of {} ms", kieSessionContext.getKjarGAVUsed().orElse(""), elapsed / 1_000_000);
+        }
+    }
+
+    /* the changes are collected also on the replicas, to keep the sequences aligned with the leader */
+    private void publishLiveQueriesChanges( State state ) {
+        List<LiveQueryMessage> changes = kieSessionContext.getLiveQueries().flush();
+        if (state.equals(State.LEADER)) {
+            for (LiveQueryMessage msg : changes) {
+                producer.produceSync(envConfig.getKieSessionInfosTopicName(), msg.getId(), msg);
+            }
         }
     }
 
     public void processSideEffectsOnReplica(Queue<Object> newSideEffects) {
-        DroolsExecutor.getInstance().appendSideEffects(newSideEffects);
+        executorContext.getExecutor().appendSideEffects(newSideEffects);
         if(envConfig.isUnderTest()){ loggerForTest.warn("sideEffectOnReplica:{}", newSideEffects);}
     }
 
@@ -148,6 +276,7 @@ public class DroolsConsumerHandler implements ConsumerHandler {
     public void processWithSnapshot(ItemToProcess item, State currentState) {
         if (logger.isInfoEnabled()){ logger.info("SNAPSHOT"); }
         process(item, currentState);
+        awaitControlMessages();
         if(!shutdown) {
             sessionSnapShooter.serialize(this.kieSessionContext, item.getKey(), item.getOffset());
         }
@@ -156,7 +285,10 @@ public class DroolsConsumerHandler implements ConsumerHandler {
     @Override
     public void stop() {
         shutdown = true;
+        awaitControlMessages();
+        commandHandler.getStagedKJarUpdate().shutdown();
         if(this.kieSessionContext != null) {
+            this.kieSessionContext.getLiveQueries().dispose();
             this.kieSessionContext.getKieSession().dispose();
         }
     }
@@ -165,12 +297,14 @@ public class DroolsConsumerHandler implements ConsumerHandler {
         boolean execute = state.equals(State.LEADER) || command.isPermittedForReplicas();
         if (execute) {
             VisitableCommand visitable = (VisitableCommand) command;
+            long start = System.nanoTime();
             try {
                 visitable.accept(commandHandler);
             } catch (Throwable e) {
                 GlobalStatus.nodeLive = false;
                 throw e;
             }
+            HacepMetrics.recordCommand(CommandKind.of(command), System.nanoTime() - start);
         }
     }
 
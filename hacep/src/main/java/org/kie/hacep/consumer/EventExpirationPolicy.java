@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.common.EventFactHandle;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+
+/**
+ * The longest time an event is retained after its end, by class or by entry point, applied on top of
+ * the expiration computed by Drools from the rule windows and the @Expires declarations.
+ * The configuration is a comma separated list of <code>className=millis</code> and <code>ep:entryPoint=millis</code>,
+ * a class matches also its subclasses and takes precedence over the entry point.
+ */
+public class EventExpirationPolicy {
+
+    private static final String ENTRY_POINT_PREFIX = "ep:";
+    private static final long NEVER = -1L;
+
+    private final Map<String, Long> byClassName = new HashMap<>();
+    private final Map<String, Long> byEntryPoint = new HashMap<>();
+    private final Map<String, Map<Class<?>, Long>> resolved = new HashMap<>();
+
+    public static EventExpirationPolicy parse(String config) {
+        EventExpirationPolicy policy = new EventExpirationPolicy();
+        if (config == null || config.trim().isEmpty()) {
+            return policy;
+        }
+        for (String entry : config.split(",")) {
+            String[] keyValue = entry.trim().split("=");
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Invalid event expiration:" + entry + ", expected className=millis or ep:entryPoint=millis");
+            }
+            String key = keyValue[0].trim();
+            long millis = Long.parseLong(keyValue[1].trim());
+            if (key.startsWith(ENTRY_POINT_PREFIX)) {
+                policy.byEntryPoint.put(key.substring(ENTRY_POINT_PREFIX.length()), millis);
+            } else {
+                policy.byClassName.put(key, millis);
+            }
+        }
+        return policy;
+    }
+
+    public boolean isEmpty() {
+        return byClassName.isEmpty() && byEntryPoint.isEmpty();
+    }
+
+    /**
+     * @return the retention in milliseconds of the events of the given class in the given entry point, -1 if unbounded
+     */
+    public long getExpires(String entryPoint, Class<?> type) {
+        return resolved.computeIfAbsent(entryPoint, ep -> new HashMap<>())
+                .computeIfAbsent(type, t -> resolve(entryPoint, t));
+    }
+
+    private long resolve(String entryPoint, Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            Long millis = byClassName.get(c.getName());
+            if (millis != null) {
+                return millis;
+            }
+        }
+        return byEntryPoint.getOrDefault(entryPoint, NEVER);
+    }
+
+    /**
+     * Deletes the events retained longer than their retention and counts the remaining ones by class.
+     * The facts are visited only when a retention is configured or the events have to be counted
+     * @param countRetained true to count the events still in the session
+     * @return the events still in the session by class name, null when they aren't counted
+     */
+    public Map<String, Long> sweep(KieSession kieSession, long now, boolean countRetained) {
+        if (isEmpty() && !countRetained) {
+            return null;
+        }
+        Map<String, Long> retained = countRetained ? new HashMap<>() : null;
+        for (EntryPoint entryPoint : kieSession.getEntryPoints()) {
+            List<FactHandle> expired = isEmpty() ? Collections.emptyList() : new ArrayList<>();
+            for (FactHandle fh : entryPoint.getFactHandles()) {
+                if (!(fh instanceof EventFactHandle)) {
+                    continue;
+                }
+                EventFactHandle efh = (EventFactHandle) fh;
+                Class<?> type = efh.getObject().getClass();
+                long expires = isEmpty() ? NEVER : getExpires(entryPoint.getEntryPointId(), type);
+                if (expires >= 0 && efh.getEndTimestamp() + expires < now) {
+                    expired.add(fh);
+                } else if (countRetained) {
+                    retained.merge(type.getName(), 1L, Long::sum);
+                }
+            }
+            for (FactHandle fh : expired) {
+                entryPoint.delete(fh);
+            }
+        }
+        return retained;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.kie.api.definition.type.Timestamp;
+import org.kie.remote.command.EventInsertCommand;
+
+/**
+ * Orders the inserted events by timestamp tolerating a bounded lateness: an event is buffered until the watermark,
+ * the highest timestamp seen minus the allowed lateness, passes it, then it's released in timestamp order
+ * so the pseudo clock only moves forward. An event older than the released watermark is late.
+ * The watermark is in event time: without new events the heartbeats move it by the time elapsed since the first
+ * heartbeat after the last event, so the clock of the leader never races ahead of the clock of the clients.
+ * The buffer is part of the state of the session and it's stored with the snapshots.
+ */
+public class EventWatermark implements Serializable {
+
+    private static final Map<Class<?>, Optional<Method>> timestampReaders = new ConcurrentHashMap<>();
+
+    private final PriorityQueue<Pending> pending = new PriorityQueue<>();
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long watermark = Long.MIN_VALUE;
+    /* the timestamp of the first heartbeat after the last event */
+    private long idleSince = Long.MIN_VALUE;
+    private long sequence;
+
+    public boolean isLate(long timestamp) {
+        return timestamp < watermark;
+    }
+
+    public void add(EventInsertCommand command, long timestamp) {
+        pending.add(new Pending(command, timestamp, sequence++));
+    }
+
+    /**
+     * Moves the watermark with the timestamp of an event
+     * @return the buffered events passed by the watermark, in timestamp order
+     */
+    public List<Pending> advance(long timestamp, long allowedLateness) {
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        idleSince = Long.MIN_VALUE;
+        return release(maxTimestamp - allowedLateness);
+    }
+
+    /**
+     * Moves the watermark with a heartbeat: the event time is estimated as the highest timestamp seen
+     * plus the time elapsed on the leader since the first heartbeat after the last event
+     * @return the buffered events passed by the watermark, in timestamp order
+     */
+    public List<Pending> advanceOnHeartbeat(long heartbeatTimestamp, long allowedLateness) {
+        if (maxTimestamp == Long.MIN_VALUE) {
+            return Collections.emptyList();
+        }
+        if (idleSince == Long.MIN_VALUE) {
+            idleSince = heartbeatTimestamp;
+        }
+        long elapsed = Math.max(0, heartbeatTimestamp - idleSince);
+        return release(maxTimestamp + elapsed - allowedLateness);
+    }
+
+    private List<Pending> release(long candidate) {
+        if (candidate > watermark) {
+            watermark = candidate;
+        }
+        if (pending.isEmpty() || pending.peek().timestamp > watermark) {
+            return Collections.emptyList();
+        }
+        List<Pending> released = new ArrayList<>();
+        while (!pending.isEmpty() && pending.peek().timestamp <= watermark) {
+            released.add(pending.poll());
+        }
+        return released;
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * The value of the property declared by the {@link Timestamp} annotation of the event class,
+     * or the given default when the class doesn't declare it
+     */
+    public static long timestampOf(Object event, long defaultTimestamp) {
+        Optional<Method> reader = timestampReaders.computeIfAbsent(event.getClass(), EventWatermark::timestampReader);
+        if (!reader.isPresent()) {
+            return defaultTimestamp;
+        }
+        try {
+            Object value = reader.get().invoke(event);
+            if (value instanceof Date) {
+                return ((Date) value).getTime();
+            }
+            return value instanceof Number ? ((Number) value).longValue() : defaultTimestamp;
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Unable to read the timestamp of " + event.getClass().getName(), e);
+        }
+    }
+
+    private static Optional<Method> timestampReader(Class<?> type) {
+        Timestamp timestamp = type.getAnnotation(Timestamp.class);
+        if (timestamp == null) {
+            return Optional.empty();
+        }
+        try {
+            for (PropertyDescriptor property : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+                if (property.getName().equals(timestamp.value()) && property.getReadMethod() != null) {
+                    return Optional.of(property.getReadMethod());
+                }
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalStateException("Unable to read the properties of " + type.getName(), e);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "EventWatermark{" +
+                "pending=" + pending.size() +
+                ", maxTimestamp=" + maxTimestamp +
+                ", watermark=" + watermark +
+                ", idleSince=" + idleSince +
+                '}';
+    }
+
+    public static class Pending implements Comparable<Pending>, Serializable {
+
+        private final EventInsertCommand command;
+        private final long timestamp;
+        private final long sequence;
+
+        private Pending(EventInsertCommand command, long timestamp, long sequence) {
+            this.command = command;
+            this.timestamp = timestamp;
+            this.sequence = sequence;
+        }
+
+        public EventInsertCommand getCommand() {
+            return command;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            int byTimestamp = Long.compare(timestamp, other.timestamp);
+            return byTimestamp != 0 ? byTimestamp : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.drools.core.common.InternalFactHandle;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+
+/**
+ * Keeps the number of facts of each entry point, grouped by their concrete class, updated by the
+ * rule runtime events, so the counts don't require to walk the working memory.
+ * It is written only by the thread processing the commands, the counters can be read from any thread.
+ */
+public class FactCountsTracker implements RuleRuntimeEventListener {
+
+    private static final String DEFAULT_ENTRY_POINT = "DEFAULT";
+
+    private final Map<String, Map<Class<?>, AtomicLong>> counters = new ConcurrentHashMap<>();
+
+    public FactCountsTracker initFromKieSession(KieSession kieSession) {
+        counters.clear();
+        for (EntryPoint entryPoint : kieSession.getEntryPoints()) {
+            for (FactHandle fh : entryPoint.getFactHandles()) {
+                increment(entryPoint.getEntryPointId(), ((InternalFactHandle) fh).getObject().getClass());
+            }
+        }
+        kieSession.addEventListener(this);
+        return this;
+    }
+
+    @Override
+    public void objectInserted(ObjectInsertedEvent event) {
+        increment(entryPointOf(event.getFactHandle()), event.getObject().getClass());
+    }
+
+    @Override
+    public void objectUpdated(ObjectUpdatedEvent event) {
+        Class<?> oldClass = event.getOldObject().getClass();
+        Class<?> newClass = event.getObject().getClass();
+        if (oldClass != newClass) {
+            String entryPoint = entryPointOf(event.getFactHandle());
+            decrement(entryPoint, oldClass);
+            increment(entryPoint, newClass);
+        }
+    }
+
+    @Override
+    public void objectDeleted(ObjectDeletedEvent event) {
+        decrement(entryPointOf(event.getFactHandle()), event.getOldObject().getClass());
+    }
+
+    public long getFactCount(String entryPoint) {
+        Map<Class<?>, AtomicLong> byClass = counters.get(entryPoint);
+        if (byClass == null) {
+            return 0;
+        }
+        long count = 0;
+        for (AtomicLong counter : byClass.values()) {
+            count += counter.get();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of facts in the entry point that are instances of the given type, subclasses included
+     */
+    public long getFactCount(String entryPoint, Class<?> type) {
+        Map<Class<?>, AtomicLong> byClass = counters.get(entryPoint);
+        if (byClass == null) {
+            return 0;
+        }
+        long count = 0;
+        for (Map.Entry<Class<?>, AtomicLong> entry : byClass.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey())) {
+                count += entry.getValue().get();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return true when facts of exactly the given class have been inserted in the entry point,
+     * the object store of the entry point then already keeps a store for the class
+     */
+    public boolean isTracked(String entryPoint, Class<?> type) {
+        Map<Class<?>, AtomicLong> byClass = counters.get(entryPoint);
+        return byClass != null && byClass.containsKey(type);
+    }
+
+    public long getTotalFactCount() {
+        long count = 0;
+        for (String entryPoint : counters.keySet()) {
+            count += getFactCount(entryPoint);
+        }
+        return count;
+    }
+
+    private void increment(String entryPoint, Class<?> clazz) {
+        counters.computeIfAbsent(entryPoint, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(clazz, k -> new AtomicLong())
+                .incrementAndGet();
+    }
+
+    private void decrement(String entryPoint, Class<?> clazz) {
+        Map<Class<?>, AtomicLong> byClass = counters.get(entryPoint);
+        AtomicLong counter = byClass != null ? byClass.get(clazz) : null;
+        if (counter != null) {
+            counter.decrementAndGet();
+        }
+    }
+
+    private static String entryPointOf(FactHandle fh) {
+        InternalFactHandle ifh = (InternalFactHandle) fh;
+        return ifh.getEntryPointId() != null ? ifh.getEntryPointId().getEntryPointId() : DEFAULT_ENTRY_POINT;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieContainer;
+import org.kie.hacep.util.GAVUtils;
+
+/**
+ * The KieContainers of the KJars used by the engine, with their KieBase already built, keyed by GAV:
+ * a restore from a snapshot taken with one of these KJars only pays for the unmarshalling of the session.
+ * The containers deployed with the app are under the {@link #CLASSPATH} key.
+ */
+public class KieBaseRegistry {
+
+    public static final String CLASSPATH = "classpath";
+    /* the current KJar, the staged one and a couple of older ones still referenced by the snapshots */
+    private static final int MAX_ENTRIES = 4;
+
+    private static final Map<String, KieContainer> containers = new LinkedHashMap<String, KieContainer>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, KieContainer> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private KieBaseRegistry() { }
+
+    public static synchronized KieContainer get(String gav) {
+        KieContainer kieContainer = containers.get(gav);
+        if (kieContainer != null && !isAt(kieContainer, gav)) {
+            containers.remove(gav);
+            return null;
+        }
+        return kieContainer;
+    }
+
+    /**
+     * @param builder invoked with the GAV when the registry doesn't hold a container for it,
+     * the KieBase of the returned container is built before registering it
+     */
+    public static synchronized KieContainer computeIfAbsent(String gav, Function<String, KieContainer> builder) {
+        KieContainer kieContainer = get(gav);
+        if (kieContainer == null) {
+            kieContainer = builder.apply(gav);
+            kieContainer.getKieBase();
+            containers.put(gav, kieContainer);
+        }
+        return kieContainer;
+    }
+
+    /**
+     * Registers a container built elsewhere, e.g. by a staged KJar update, under the GAV of its release
+     */
+    public static synchronized void register(KieContainer kieContainer) {
+        ReleaseId releaseId = kieContainer.getReleaseId();
+        if (releaseId != null) {
+            containers.put(GAVUtils.getGAV(releaseId), kieContainer);
+        }
+    }
+
+    public static synchronized int size() {
+        return containers.size();
+    }
+
+    public static synchronized void clear() {
+        containers.clear();
+    }
+
+    /* a container updated in place to another version by an UpdateKJarCommand doesn't match its old GAV anymore */
+    private static boolean isAt(KieContainer kieContainer, String gav) {
+        return CLASSPATH.equals(gav) || (kieContainer.getReleaseId() != null && GAVUtils.getGAV(kieContainer.getReleaseId()).equals(gav));
+    }
+}
@@ -23,19 +23,51 @@ import org.kie.hacep.util.GAVUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * The KJars built with the executable model are loaded without compiling the DRL, the model compiler is on the classpath.
+ * The containers are kept in the {@link KieBaseRegistry} and reused by the restores from the snapshots.
+ */
 public class KieContainerUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(KieContainerUtils.class);
 
     public static KieContainer getKieContainer(EnvConfig envConfig, KieServices srv){
+        return getKieContainer(envConfig, srv, null);
+    }
+
+    /**
+     * @param kjarGAV the KJar used by the session to restore, e.g. the one stored in a snapshot,
+     * when null the one configured
+     */
+    public static KieContainer getKieContainer(EnvConfig envConfig, KieServices srv, String kjarGAV){
+        if (srv == null) {
+            throw new RuntimeException("KieServices is null");
+        }
+        String key = envConfig.isUpdatableKJar() ? (kjarGAV != null ? kjarGAV : envConfig.getKJarGAV()) : KieBaseRegistry.CLASSPATH;
+        KieContainer kieContainer = KieBaseRegistry.get(key);
+        if (kieContainer != null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Reusing the KieContainer with KJar:{}", key);
+            }
+            return kieContainer;
+        }
+        long start = System.nanoTime();
+        kieContainer = KieBaseRegistry.computeIfAbsent(key, gav -> newKieContainer(envConfig, srv, gav));
+        if (logger.isInfoEnabled()) {
+            logger.info("KieContainer with KJar:{} ready in {} ms", key, (System.nanoTime() - start) / 1_000_000);
+        }
+        return kieContainer;
+    }
+
+    private static KieContainer newKieContainer(EnvConfig envConfig, KieServices srv, String kjarGAV){
         KieContainer kieContainer;
         if(srv != null) {
             if (envConfig.isUpdatableKJar()) {
-                kieContainer = srv.newKieContainer(GAVUtils.getReleaseID(envConfig.getKJarGAV(), srv));
+                kieContainer = srv.newKieContainer(GAVUtils.getReleaseID(kjarGAV, srv));
                 KieScanner scanner = srv.newKieScanner(kieContainer);
                 scanner.scanNow();
                 if (logger.isInfoEnabled()) {
-                    logger.info("Created new KieContainer with KJar:{} from maven repo", envConfig.getKJarGAV());
+                    logger.info("Created new KieContainer with KJar:{} from maven repo", kjarGAV);
                 }
             } else {
                 if (logger.isInfoEnabled()) {
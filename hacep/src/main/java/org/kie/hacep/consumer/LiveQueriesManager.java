@@ -0,0 +1,256 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.rule.EntryPointId;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.api.runtime.rule.LiveQuery;
+import org.kie.api.runtime.rule.Row;
+import org.kie.api.runtime.rule.ViewChangedEventListener;
+import org.kie.remote.message.LiveQueryDelta;
+import org.kie.remote.message.LiveQueryMessage;
+
+/**
+ * Keeps the live queries opened by the clients. The queries are opened on every node, so the rows
+ * and the sequence of each subscription are the same on the leader and on the replicas, but only
+ * the leader publishes the changes. The last batches of each subscription are retained to be
+ * sent again to a client resuming the subscription.
+ */
+public class LiveQueriesManager {
+
+    public static final int DEFAULT_HISTORY_SIZE = 64;
+    private static final String DEFAULT_ENTRY_POINT = "DEFAULT";
+
+    private final Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+    private final int historySize;
+    private KieSession kieSession;
+
+    public LiveQueriesManager() {
+        this(DEFAULT_HISTORY_SIZE);
+    }
+
+    public LiveQueriesManager(int historySize) {
+        this.historySize = historySize;
+    }
+
+    /**
+     * Reopens the live queries stored with a snapshot, without producing any change for the rows already matching
+     */
+    public LiveQueriesManager initFromKieSession(KieSession kieSession, Collection<LiveQueryDefinition> definitions) {
+        this.kieSession = kieSession;
+        if (definitions != null) {
+            for (LiveQueryDefinition definition : definitions) {
+                Subscription subscription = new Subscription(definition);
+                subscription.open(kieSession, true);
+                subscriptions.put(definition.getId(), subscription);
+            }
+        }
+        return this;
+    }
+
+    public void subscribe(LiveQueryDefinition definition) {
+        if (!subscriptions.containsKey(definition.getId())) {
+            Subscription subscription = new Subscription(definition);
+            subscriptions.put(definition.getId(), subscription);
+            subscription.open(kieSession, false);
+        }
+    }
+
+    public void close(String subscriptionId) {
+        Subscription subscription = subscriptions.remove(subscriptionId);
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+
+    public void dispose() {
+        subscriptions.values().forEach(Subscription::close);
+        subscriptions.clear();
+    }
+
+    /**
+     * @return a batch for each subscription changed since the previous call
+     */
+    public List<LiveQueryMessage> flush() {
+        if (subscriptions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<LiveQueryMessage> messages = null;
+        for (Subscription subscription : subscriptions.values()) {
+            LiveQueryMessage message = subscription.flush();
+            if (message != null) {
+                if (messages == null) {
+                    messages = new ArrayList<>();
+                }
+                messages.add(message);
+            }
+        }
+        return messages != null ? messages : Collections.emptyList();
+    }
+
+    /**
+     * @return the batches after the given sequence if all of them are still retained,
+     * otherwise a single batch resetting the client with the whole content of the query
+     */
+    public List<LiveQueryMessage> resume(String subscriptionId, long lastSequence) {
+        Subscription subscription = subscriptions.get(subscriptionId);
+        return subscription != null ? subscription.replayFrom(lastSequence) : Collections.emptyList();
+    }
+
+    public List<LiveQueryDefinition> getDefinitions() {
+        List<LiveQueryDefinition> definitions = new ArrayList<>(subscriptions.size());
+        for (Subscription subscription : subscriptions.values()) {
+            definitions.add(subscription.getDefinition());
+        }
+        return definitions;
+    }
+
+    private class Subscription implements ViewChangedEventListener {
+
+        private final LiveQueryDefinition definition;
+        private final Map<FactHandle, Object> rows = new HashMap<>();
+        private final Deque<LiveQueryMessage> history = new ArrayDeque<>();
+        private List<LiveQueryDelta> pending = new ArrayList<>();
+        private long sequence;
+        private boolean quiet;
+        private LiveQuery liveQuery;
+
+        Subscription(LiveQueryDefinition definition) {
+            this.definition = definition;
+            this.sequence = definition.getSequence();
+        }
+
+        void open(KieSession kieSession, boolean quietly) {
+            quiet = quietly;
+            Object[] params = definition.getParams() != null ? definition.getParams() : new Object[0];
+            liveQuery = kieSession.openLiveQuery(definition.getNamedQuery(), params, this);
+            quiet = false;
+        }
+
+        void close() {
+            if (liveQuery != null) {
+                liveQuery.close();
+                liveQuery = null;
+            }
+        }
+
+        LiveQueryDefinition getDefinition() {
+            return new LiveQueryDefinition(definition.getId(),
+                                           definition.getEntryPoint(),
+                                           definition.getNamedQuery(),
+                                           definition.getObjectName(),
+                                           definition.getParams(),
+                                           sequence);
+        }
+
+        /*
+         * a query subscribed from the session notifies every row, like the one shot named query,
+         * while one subscribed from another entry point notifies only the rows of the facts inserted there
+         */
+        private boolean accepts(FactHandle fh) {
+            if (definition.getEntryPoint() == null || DEFAULT_ENTRY_POINT.equals(definition.getEntryPoint())) {
+                return true;
+            }
+            EntryPointId entryPointId = ((InternalFactHandle) fh).getEntryPointId();
+            return definition.getEntryPoint().equals(entryPointId != null ? entryPointId.getEntryPointId() : DEFAULT_ENTRY_POINT);
+        }
+
+        @Override
+        public void rowInserted(Row row) {
+            if (!accepts(row.getFactHandle(definition.getObjectName()))) {
+                return;
+            }
+            Object object = row.get(definition.getObjectName());
+            rows.put(row.getFactHandle(definition.getObjectName()), object);
+            addDelta(LiveQueryDelta.Type.ADDED, object);
+        }
+
+        @Override
+        public void rowDeleted(Row row) {
+            if (!accepts(row.getFactHandle(definition.getObjectName()))) {
+                return;
+            }
+            Object object = rows.remove(row.getFactHandle(definition.getObjectName()));
+            addDelta(LiveQueryDelta.Type.REMOVED, object != null ? object : row.get(definition.getObjectName()));
+        }
+
+        @Override
+        public void rowUpdated(Row row) {
+            if (!accepts(row.getFactHandle(definition.getObjectName()))) {
+                return;
+            }
+            Object object = row.get(definition.getObjectName());
+            rows.put(row.getFactHandle(definition.getObjectName()), object);
+            addDelta(LiveQueryDelta.Type.UPDATED, object);
+        }
+
+        private void addDelta(LiveQueryDelta.Type type, Object object) {
+            if (!quiet) {
+                pending.add(new LiveQueryDelta(type, object));
+            }
+        }
+
+        LiveQueryMessage flush() {
+            if (pending.isEmpty()) {
+                return null;
+            }
+            LiveQueryMessage message = new LiveQueryMessage(definition.getId(), ++sequence, false, pending);
+            message.setTimestamp(System.currentTimeMillis());
+            pending = new ArrayList<>();
+            history.addLast(message);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            return message;
+        }
+
+        List<LiveQueryMessage> replayFrom(long lastSequence) {
+            LiveQueryMessage oldest = history.peekFirst();
+            if (lastSequence >= sequence) {
+                return Collections.emptyList();
+            }
+            if (oldest != null && oldest.getSequence() <= lastSequence + 1) {
+                List<LiveQueryMessage> replay = new ArrayList<>();
+                for (LiveQueryMessage message : history) {
+                    if (message.getSequence() > lastSequence) {
+                        replay.add(message);
+                    }
+                }
+                return replay;
+            }
+            List<LiveQueryDelta> content = new ArrayList<>(rows.size());
+            for (Object object : rows.values()) {
+                content.add(new LiveQueryDelta(LiveQueryDelta.Type.ADDED, object));
+            }
+            LiveQueryMessage reset = new LiveQueryMessage(definition.getId(), sequence, true, content);
+            reset.setTimestamp(System.currentTimeMillis());
+            return Collections.singletonList(reset);
+        }
+    }
+}
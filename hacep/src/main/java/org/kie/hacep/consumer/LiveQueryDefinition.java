@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+public class LiveQueryDefinition implements Serializable {
+
+    private String id;
+    private String entryPoint;
+    private String namedQuery;
+    private String objectName;
+    private Object[] params;
+    private long sequence;
+
+    //for serialization purpose
+    public LiveQueryDefinition() { }
+
+    public LiveQueryDefinition(String id, String entryPoint, String namedQuery, String objectName, Object[] params, long sequence) {
+        this.id = id;
+        this.entryPoint = entryPoint;
+        this.namedQuery = namedQuery;
+        this.objectName = objectName;
+        this.params = params;
+        this.sequence = sequence;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the entry point of the facts notified to the client, null for the definitions stored without it
+     */
+    public String getEntryPoint() {
+        return entryPoint;
+    }
+
+    public String getNamedQuery() {
+        return namedQuery;
+    }
+
+    public String getObjectName() {
+        return objectName;
+    }
+
+    public Object[] getParams() {
+        return params;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return "LiveQueryDefinition{" +
+                "id='" + id + '\'' +
+                ", entryPoint='" + entryPoint + '\'' +
+                ", namedQuery='" + namedQuery + '\'' +
+                ", objectName='" + objectName + '\'' +
+                ", params=" + Arrays.toString(params) +
+                ", sequence=" + sequence +
+                '}';
+    }
+}
@@ -18,11 +18,15 @@ package org.kie.hacep.consumer;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
-import org.drools.core.ClassObjectFilter;
+import org.drools.core.common.ClassAwareObjectStore;
+import org.drools.core.common.InternalWorkingMemoryEntryPoint;
+import org.drools.core.common.ObjectStore;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.EntryPoint;
 import org.kie.api.runtime.rule.QueryResults;
 import org.kie.api.runtime.rule.QueryResultsRow;
 
@@ -39,7 +43,26 @@ public class ObjectFilterHelper {
         return objects;
     }
 
-    public static Collection<? extends Object> getObjectsFilterByClassType(Class clazzType, KieSession kieSession){
-        return kieSession.getObjects(new ClassObjectFilter(clazzType));
+    /*
+     * the class aware store keeps the objects partitioned by type, so only the instances of the requested type are visited.
+     * Its lookup creates the store of a type never inserted, a read only query walks the objects instead
+     */
+    public static Collection<? extends Object> getObjectsFilterByClassType(Class clazzType, EntryPoint entryPoint, long expectedSize, boolean classStoreExists){
+        if (expectedSize == 0) {
+            return Collections.emptyList();
+        }
+        if (classStoreExists && entryPoint instanceof InternalWorkingMemoryEntryPoint) {
+            ObjectStore store = ((InternalWorkingMemoryEntryPoint) entryPoint).getObjectStore();
+            if (store instanceof ClassAwareObjectStore) {
+                List objects = new ArrayList((int) expectedSize);
+                Iterator<Object> iterator = ((ClassAwareObjectStore) store).iterateObjects(clazzType);
+                while (iterator.hasNext()) {
+                    objects.add(iterator.next());
+                }
+                return objects;
+            }
+        }
+        // the ClassObjectFilter would be resolved by the class aware store to the same lookup
+        return entryPoint.getObjects(clazzType::isInstance);
     }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.MatchCancelledEvent;
+import org.kie.api.event.rule.MatchCreatedEvent;
+import org.kie.api.runtime.KieSession;
+import org.kie.hacep.core.HacepMetrics;
+import org.kie.remote.RuleStats;
+
+/**
+ * Counts the matches and the firings of each rule and measures the time spent in the consequences.
+ * Only one consequence every sampling firings is timed, so the clock is read twice per sample and not per firing.
+ * The counters are kept across the sessions it is attached to, after a restore or a KJar update,
+ * and are written and read only by the thread processing the commands, apart from the pending activations.
+ */
+public class RuleStatsListener extends DefaultAgendaEventListener {
+
+    private final int sampling;
+
+    /* the rules of the current KieBase, falls back to the names after a KJar update */
+    private final Map<Rule, RuleCounters> byRule = new IdentityHashMap<>();
+    private final Map<String, RuleCounters> byName = new HashMap<>();
+
+    private int firesSinceSample;
+    private RuleCounters sampled;
+    private long sampleStart;
+
+    private volatile long pendingActivations;
+
+    public RuleStatsListener(int sampling) {
+        if (sampling < 1) {
+            throw new IllegalArgumentException("The sampling must be at least 1, was " + sampling);
+        }
+        this.sampling = sampling;
+    }
+
+    public RuleStatsListener initFromKieSession(KieSession kieSession) {
+        byRule.clear();
+        sampled = null;
+        pendingActivations = 0;
+        kieSession.addEventListener(this);
+        return this;
+    }
+
+    @Override
+    public void matchCreated(MatchCreatedEvent event) {
+        RuleCounters counters = countersOf(event.getMatch().getRule());
+        counters.matches++;
+        counters.meters.recordMatch();
+        pendingActivations++;
+    }
+
+    @Override
+    public void matchCancelled(MatchCancelledEvent event) {
+        countersOf(event.getMatch().getRule()).cancelled++;
+        pendingActivations--;
+    }
+
+    @Override
+    public void beforeMatchFired(BeforeMatchFiredEvent event) {
+        if (++firesSinceSample >= sampling) {
+            firesSinceSample = 0;
+            sampled = countersOf(event.getMatch().getRule());
+            sampleStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterMatchFired(AfterMatchFiredEvent event) {
+        RuleCounters counters;
+        if (sampled != null) {
+            long elapsed = System.nanoTime() - sampleStart;
+            counters = sampled;
+            sampled = null;
+            counters.sampledFires++;
+            counters.sampledNanos += elapsed;
+            counters.maxNanos = Math.max(counters.maxNanos, elapsed);
+            counters.meters.recordConsequence(elapsed);
+        } else {
+            counters = countersOf(event.getMatch().getRule());
+        }
+        counters.fires++;
+        counters.meters.recordFire();
+        pendingActivations--;
+    }
+
+    /**
+     * The activations created on the current session and not yet fired or cancelled
+     */
+    public long getPendingActivations() {
+        return Math.max(pendingActivations, 0);
+    }
+
+    public int getSampling() {
+        return sampling;
+    }
+
+    /**
+     * The stats of the rules matched at least once, the ones with the highest estimated consequence time first
+     */
+    public List<RuleStats> getStats() {
+        List<RuleStats> stats = new ArrayList<>(byName.size());
+        for (RuleCounters counters : byName.values()) {
+            stats.add(counters.toRuleStats());
+        }
+        stats.sort(Comparator.comparingDouble(RuleStats::getEstimatedConsequenceNanos).reversed()
+                           .thenComparing(Comparator.comparingLong(RuleStats::getFires).reversed()));
+        return stats;
+    }
+
+    private RuleCounters countersOf(Rule rule) {
+        RuleCounters counters = byRule.get(rule);
+        if (counters == null) {
+            counters = byName.computeIfAbsent(rule.getPackageName() + "." + rule.getName(), RuleCounters::new);
+            byRule.put(rule, counters);
+        }
+        return counters;
+    }
+
+    private static class RuleCounters {
+
+        private final String ruleName;
+        private final HacepMetrics.RuleMeters meters;
+        private long matches;
+        private long fires;
+        private long cancelled;
+        private long sampledFires;
+        private long sampledNanos;
+        private long maxNanos;
+
+        RuleCounters(String ruleName) {
+            this.ruleName = ruleName;
+            this.meters = HacepMetrics.ruleMeters(ruleName);
+        }
+
+        RuleStats toRuleStats() {
+            return new RuleStats(ruleName, matches, fires, cancelled, sampledFires, sampledNanos, maxNanos);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.kie.api.KieServices;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieContainer;
+import org.kie.hacep.core.HacepMetrics;
+import org.kie.hacep.util.GAVUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the KieContainer of a new KJar on a background thread, resolving the artifacts and building the KieBase,
+ * while the engine thread goes on processing the events with the current one.
+ * The engine thread swaps the container at a command boundary once it's ready: the leader decides the boundary
+ * and records a {@link Swap} as the first side effect of the command, the replicas swap at the same command.
+ */
+public class StagedKJarUpdate {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagedKJarUpdate.class);
+
+    private ExecutorService builder;
+    private volatile Staged current;
+
+    public void stage(String commandId, ReleaseId releaseId) {
+        stage(commandId, GAVUtils.getGAV(releaseId), () -> build(releaseId));
+    }
+
+    synchronized void stage(String commandId, String gav, Supplier<KieContainer> containerBuilder) {
+        if (builder == null) {
+            builder = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "hacep-kjar-builder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        current = new Staged(commandId, gav, CompletableFuture.supplyAsync(containerBuilder, builder));
+        if (logger.isInfoEnabled()) {
+            logger.info("Staged the update to the KJar:{}", gav);
+        }
+    }
+
+    /**
+     * @return true when the build of the staged KJar is completed, successfully or not
+     */
+    public boolean isCompleted() {
+        Staged staged = current;
+        return staged != null && staged.container.isDone();
+    }
+
+    /**
+     * Removes the staged update, used by the leader once {@link #isCompleted()}
+     */
+    public synchronized Staged take() {
+        Staged staged = current;
+        current = null;
+        return staged;
+    }
+
+    /**
+     * The container of the KJar swapped by the leader, waiting the staged build or building it
+     * when it wasn't staged on this node, e.g. restarted from a snapshot taken after the update command
+     */
+    public KieContainer await(Swap swap) {
+        Staged staged = take();
+        if (staged != null && staged.gav.equals(swap.getGav())) {
+            return staged.container.join();
+        }
+        if (logger.isWarnEnabled()) {
+            logger.warn("The KJar:{} wasn't staged, building it on the engine thread", swap.getGav());
+        }
+        return build(GAVUtils.getReleaseID(swap.getGav(), KieServices.get()));
+    }
+
+    public synchronized void shutdown() {
+        if (builder != null) {
+            builder.shutdownNow();
+            builder = null;
+        }
+        current = null;
+    }
+
+    private static KieContainer build(ReleaseId releaseId) {
+        long start = System.nanoTime();
+        KieContainer kieContainer = KieServices.get().newKieContainer(releaseId);
+        kieContainer.getKieBase();
+        KieBaseRegistry.register(kieContainer);
+        long elapsed = System.nanoTime() - start;
+        HacepMetrics.recordKJarBuild(elapsed);
+        if (logger.isInfoEnabled()) {
+            logger.info("Built the KJar:{} in {} ms", releaseId, elapsed / 1_000_000);
+        }
+        return kieContainer;
+    }
+
+    public static class Staged {
+
+        private final String commandId;
+        private final String gav;
+        private final CompletableFuture<KieContainer> container;
+
+        private Staged(String commandId, String gav, CompletableFuture<KieContainer> container) {
+            this.commandId = commandId;
+            this.gav = gav;
+            this.container = container;
+        }
+
+        public String getCommandId() {
+            return commandId;
+        }
+
+        public String getGav() {
+            return gav;
+        }
+
+        /**
+         * @return the built container or null when the build failed
+         */
+        public KieContainer getContainer() {
+            try {
+                return container.join();
+            } catch (RuntimeException e) {
+                logger.error("Failed to build the KJar:{}", gav, e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Recorded by the leader on the control topic at the command where the KJar is swapped
+     */
+    public static class Swap implements Serializable {
+
+        private final String commandId;
+        private final String gav;
+
+        public Swap(String commandId, String gav) {
+            this.commandId = commandId;
+            this.gav = gav;
+        }
+
+        public String getCommandId() {
+            return commandId;
+        }
+
+        public String getGav() {
+            return gav;
+        }
+
+        @Override
+        public String toString() {
+            return "Swap{" +
+                    "commandId='" + commandId + '\'' +
+                    ", gav='" + gav + '\'' +
+                    '}';
+        }
+    }
+}
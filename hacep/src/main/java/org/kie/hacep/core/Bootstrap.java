@@ -20,7 +20,9 @@ import java.util.Arrays;
 import org.kie.hacep.Config;
 import org.kie.hacep.EnvConfig;
 
+import org.kie.hacep.core.infra.KafkaClients;
 import org.kie.hacep.core.infra.consumer.ConsumerController;
+import org.kie.hacep.core.infra.election.KafkaLeaderElection;
 import org.kie.hacep.core.infra.election.LeaderElection;
 import org.kie.remote.impl.producer.Producer;
 import org.slf4j.Logger;
@@ -34,14 +36,14 @@ public class Bootstrap {
     private static final Logger logger = LoggerFactory.getLogger(Bootstrap.class);
     private static Producer eventProducer;
     private static ConsumerController consumerController;
-    private static CoreKube coreKube;
+    private static LeaderElection leaderElection;
 
     public static void startEngine(EnvConfig envConfig) {
         //order matter
         checkKJarVersion(envConfig);
+        GlobalStatus.maxReplicaLagReadiness = envConfig.getMaxReplicaLagReadiness();
         if(!envConfig.isUnderTest()) {
-            coreKube = new CoreKube(envConfig.getNamespace(),
-                                    null);
+            leaderElection = createLeaderElection(envConfig);
         }
         eventProducer = startProducer(envConfig);
         startConsumers(envConfig, eventProducer);
@@ -54,15 +56,15 @@ public class Bootstrap {
 
     public static void stopEngine() {
         logger.info("Stop engine");
-        if(coreKube != null && coreKube.getLeaderElection() != null) {
-            LeaderElection leadership = coreKube.getLeaderElection();
+        if(leaderElection != null) {
             try {
-                leadership.stop();
+                leaderElection.stop();
             } catch (Exception e) {
                 GlobalStatus.nodeLive = false;
                 throw new RuntimeException(e.getMessage(), e);
             }
             logger.info("Stop leaderElection");
+            leaderElection = null;
         }
         if (consumerController != null) {
             consumerController.stop();
@@ -72,6 +74,8 @@ public class Bootstrap {
             eventProducer.stop();
         }
         logger.info("Stop eventProducer");
+        KafkaClients.close();
+        logger.info("Stop shared Kafka clients");
         eventProducer = null;
         consumerController = null;
         GlobalStatus.nodeLive = false;
@@ -82,11 +86,17 @@ public class Bootstrap {
         return consumerController;
     }
 
+    private static LeaderElection createLeaderElection(EnvConfig envConfig) {
+        if (Config.KAFKA_LEADER_ELECTION.equalsIgnoreCase(envConfig.getLeaderElection())) {
+            return new KafkaLeaderElection(envConfig);
+        }
+        return new CoreKube(envConfig, null).getLeaderElection();
+    }
+
     private static void leaderElection() {
-        LeaderElection leadership = coreKube.getLeaderElection();
-        coreKube.getLeaderElection().addCallbacks(Arrays.asList( consumerController.getCallback()));
+        leaderElection.addCallbacks(Arrays.asList( consumerController.getCallback()));
         try {
-            leadership.start();
+            leaderElection.start();
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
         }
@@ -17,6 +17,7 @@ package org.kie.hacep.core;
 
 import io.fabric8.kubernetes.client.DefaultKubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import org.kie.hacep.EnvConfig;
 import org.kie.hacep.core.infra.election.KubernetesLockConfiguration;
 import org.kie.hacep.core.infra.election.LeaderElection;
 import org.kie.hacep.core.infra.election.LeaderElectionImpl;
@@ -31,13 +32,13 @@ public class CoreKube {
     private KubernetesLockConfiguration configuration;
     private LeaderElection leadership;
 
-    public CoreKube(String namespace, State initialState){
+    public CoreKube(EnvConfig envConfig, State initialState){
         kubernetesClient = new DefaultKubernetesClient();
-        configuration = createKubeConfiguration(namespace);
+        configuration = createKubeConfiguration(envConfig);
         leadership = new LeaderElectionImpl(kubernetesClient, configuration, initialState);
     }
 
-    private KubernetesLockConfiguration createKubeConfiguration(String namespace) {
+    private KubernetesLockConfiguration createKubeConfiguration(EnvConfig envConfig) {
         String podName = System.getenv("POD_NAME");
         if (podName == null) {
             podName = System.getenv("HOSTNAME");
@@ -45,8 +46,11 @@ public class CoreKube {
         if (logger.isInfoEnabled()) {
             logger.info("PodName: {}", podName);
         }
-        KubernetesLockConfiguration configuration = new KubernetesLockConfiguration(namespace);
+        KubernetesLockConfiguration configuration = new KubernetesLockConfiguration(envConfig.getNamespace());
         configuration.setPodName(podName);
+        configuration.setFastHandover(envConfig.isFastHandover());
+        configuration.setWatchEnabled(envConfig.isLeaderElectionWatch());
+        configuration.setLagBackoffMillis(envConfig.getLeaderElectionLagBackoff());
         return configuration;
     }
 
@@ -23,4 +23,16 @@ public class GlobalStatus {
     public static volatile boolean nodeReady = false;
     public static volatile boolean nodeLive = true;
     public static volatile boolean canBecomeLeader = true;
+    /* fencing epoch of the leadership held by this pod, written in the control messages */
+    public static volatile long leaderEpoch = 0L;
+    /* control messages published by the leader and not yet applied by this replica */
+    public static volatile long replicaLagOffsets = 0L;
+    /* delay between the publication of the last control message applied and its application on this replica */
+    public static volatile long replicaLagMillis = 0L;
+    /* over this lag the replica isn't ready, negative to disable the check */
+    public static volatile long maxReplicaLagReadiness = -1L;
+
+    public static boolean isReady() {
+        return nodeReady && (maxReplicaLagReadiness < 0 || replicaLagOffsets <= maxReplicaLagReadiness);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.kie.hacep.consumer.FactCountsTracker;
+import org.kie.hacep.consumer.RuleStatsListener;
+import org.kie.hacep.core.infra.KafkaClients;
+import org.kie.hacep.core.infra.election.State;
+import org.kie.remote.command.CommandKind;
+
+/**
+ * Metrics of the engine exported in the Prometheus format.
+ * The meters used on the processing path are created once, so recording a value doesn't look up the registry,
+ * while the gauges read their values only when the metrics are scraped.
+ */
+public class HacepMetrics {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    private static final Counter leaderEvents = eventsCounter(State.LEADER);
+    private static final Counter replicaEvents = eventsCounter(State.REPLICA);
+    private static final Map<CommandKind, Timer> commandTimers = new EnumMap<>(CommandKind.class);
+    private static final Timer controlPublish = Timer.builder("hacep.control.publish")
+            .description("Time to publish a control message")
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofNanos(100_000))
+            .maximumExpectedValue(Duration.ofSeconds(10))
+            .register(registry);
+    private static final DistributionSummary snapshotSize = DistributionSummary.builder("hacep.snapshot.size")
+            .description("Size of the snapshots")
+            .baseUnit("bytes")
+            .register(registry);
+    private static final Timer snapshotDuration = Timer.builder("hacep.snapshot.duration")
+            .description("Time to serialize and store a snapshot")
+            .register(registry);
+    private static final Timer kjarBuild = Timer.builder("hacep.kjar.build")
+            .description("Time to build the container of an updated KJar, off the engine thread when staged")
+            .register(registry);
+    private static final Timer kjarSwap = Timer.builder("hacep.kjar.swap")
+            .description("Pause of the engine thread to swap the container of an updated KJar")
+            .register(registry);
+    private static final Counter lateEventsInserted = lateEventsCounter("inserted");
+    private static final Counter lateEventsDropped = lateEventsCounter("dropped");
+    private static final Counter heartbeatsSent = heartbeatsCounter("sent");
+    private static final Counter heartbeatsCoalesced = heartbeatsCounter("coalesced");
+    private static final DistributionSummary agendaFires = DistributionSummary.builder("hacep.agenda.fires")
+            .description("Rules fired by each fireAllRules")
+            .register(registry);
+
+    /* a gauge is registered the first time a type is seen, then kept reporting 0 when its events are gone */
+    private static final Map<String, AtomicLong> retainedEvents = new ConcurrentHashMap<>();
+    private static final Map<String, RuleMeters> ruleMeters = new ConcurrentHashMap<>();
+
+    private static volatile Consumer<?, ?> eventsConsumer;
+    private static volatile FactCountsTracker factCounts;
+    private static volatile RuleStatsListener ruleStats;
+
+    static {
+        for (CommandKind kind : CommandKind.values()) {
+            commandTimers.put(kind, Timer.builder("hacep.command.duration")
+                    .description("Time to process a command")
+                    .tag("command", kind.name())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(10_000))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry));
+        }
+        Gauge.builder("hacep.replica.lag.offsets", () -> GlobalStatus.replicaLagOffsets)
+                .description("Control messages still to apply on the replica")
+                .register(registry);
+        Gauge.builder("hacep.replica.lag", () -> GlobalStatus.replicaLagMillis)
+                .description("Age of the last control message applied on the replica")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("hacep.requests.pending", () -> consumerLag(eventsConsumer))
+                .description("Client commands on the events topic not yet consumed")
+                .register(registry);
+        Gauge.builder("hacep.facts", () -> factCounts != null ? factCounts.getTotalFactCount() : Double.NaN)
+                .description("Facts in the session")
+                .register(registry);
+        Gauge.builder("hacep.agenda.activations", () -> ruleStats != null ? ruleStats.getPendingActivations() : Double.NaN)
+                .description("Activations waiting on the agenda, tracked when the rule stats are enabled")
+                .register(registry);
+        Gauge.builder("hacep.kafka.clients.created", KafkaClients::getCreatedClients)
+                .description("Shared Kafka clients created")
+                .register(registry);
+        Gauge.builder("hacep.kafka.clients.reused", KafkaClients::getReusedClients)
+                .description("Uses of an already connected shared Kafka client")
+                .register(registry);
+    }
+
+    private HacepMetrics() { }
+
+    private static Counter eventsCounter(State role) {
+        return Counter.builder("hacep.events.processed")
+                .description("Events processed")
+                .tag("role", role.name())
+                .register(registry);
+    }
+
+    public static void recordEventProcessed(State role) {
+        (role.equals(State.LEADER) ? leaderEvents : replicaEvents).increment();
+    }
+
+    public static void recordCommand(CommandKind kind, long nanos) {
+        commandTimers.get(kind).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static void recordControlPublish(long nanos) {
+        controlPublish.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static void recordSnapshot(long bytes, long nanos) {
+        snapshotSize.record(bytes);
+        snapshotDuration.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static void recordKJarBuild(long nanos) {
+        kjarBuild.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static void recordKJarSwap(long nanos) {
+        kjarSwap.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static void recordLateEvent(boolean dropped) {
+        (dropped ? lateEventsDropped : lateEventsInserted).increment();
+    }
+
+    public static void recordHeartbeat(boolean sent) {
+        (sent ? heartbeatsSent : heartbeatsCoalesced).increment();
+    }
+
+    public static void recordFires(int fires) {
+        agendaFires.record(fires);
+    }
+
+    public static void updateRetainedEvents(Map<String, Long> retainedByType) {
+        for (Map.Entry<String, AtomicLong> entry : retainedEvents.entrySet()) {
+            entry.getValue().set(retainedByType.getOrDefault(entry.getKey(), 0L));
+        }
+        for (Map.Entry<String, Long> entry : retainedByType.entrySet()) {
+            retainedEvents.computeIfAbsent(entry.getKey(), HacepMetrics::retainedEventsGauge).set(entry.getValue());
+        }
+    }
+
+    public static void bindEventsConsumer(Consumer<?, ?> events) {
+        eventsConsumer = events;
+    }
+
+    public static void bindFactCounts(FactCountsTracker tracker) {
+        factCounts = tracker;
+    }
+
+    public static void bindRuleStats(RuleStatsListener listener) {
+        ruleStats = listener;
+    }
+
+    /**
+     * The meters of a rule, registered the first time the rule is matched
+     */
+    public static RuleMeters ruleMeters(String rule) {
+        return ruleMeters.computeIfAbsent(rule, RuleMeters::new);
+    }
+
+    public static PrometheusMeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public static String scrape() {
+        return registry.scrape();
+    }
+
+    private static Counter heartbeatsCounter(String outcome) {
+        return Counter.builder("hacep.heartbeats")
+                .description("Heartbeats sent by the leader, or skipped because other commands moved the clock")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter lateEventsCounter(String outcome) {
+        return Counter.builder("hacep.events.late")
+                .description("Events older than the watermark")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static AtomicLong retainedEventsGauge(String type) {
+        AtomicLong retained = new AtomicLong();
+        Gauge.builder("hacep.events.retained", retained, AtomicLong::get)
+                .description("Events retained in the session, updated by the heartbeats")
+                .tag("type", type)
+                .register(registry);
+        return retained;
+    }
+
+    public static final class RuleMeters {
+
+        private final Counter matches;
+        private final Counter fires;
+        private final Timer consequence;
+
+        private RuleMeters(String rule) {
+            this.matches = Counter.builder("hacep.rule.matches")
+                    .description("Matches created for the rule")
+                    .tag("rule", rule)
+                    .register(registry);
+            this.fires = Counter.builder("hacep.rule.fires")
+                    .description("Firings of the rule")
+                    .tag("rule", rule)
+                    .register(registry);
+            this.consequence = Timer.builder("hacep.rule.consequence")
+                    .description("Time spent in the consequence of the rule, on a sample of the firings")
+                    .tag("rule", rule)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(1_000))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry);
+        }
+
+        public void recordMatch() {
+            matches.increment();
+        }
+
+        public void recordFire() {
+            fires.increment();
+        }
+
+        public void recordConsequence(long nanos) {
+            consequence.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /* the lag is tracked by the consumer itself on each fetch, reading it doesn't contact the brokers */
+    private static double consumerLag(Consumer<?, ?> consumer) {
+        if (consumer == null) {
+            return Double.NaN;
+        }
+        double lag = Double.NaN;
+        for (Map.Entry<MetricName, ? extends Metric> entry : consumer.metrics().entrySet()) {
+            if ("records-lag-max".equals(entry.getKey().name())) {
+                Object value = entry.getValue().metricValue();
+                if (value instanceof Double && !((Double) value).isNaN()) {
+                    lag = Double.isNaN(lag) ? (Double) value : Math.max(lag, (Double) value);
+                }
+            }
+        }
+        return lag;
+    }
+}
@@ -15,19 +15,37 @@
  */
 package org.kie.hacep.core;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
+import org.kie.api.KieServices;
 import org.kie.api.builder.ReleaseId;
+import org.kie.api.marshalling.Marshaller;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
 import org.kie.api.time.SessionClock;
 import org.kie.api.time.SessionPseudoClock;
+import org.kie.hacep.consumer.EventWatermark;
+import org.kie.hacep.consumer.FactCountsTracker;
 import org.kie.hacep.consumer.FactHandlesManager;
+import org.kie.hacep.consumer.LiveQueriesManager;
+import org.kie.hacep.consumer.LiveQueryDefinition;
+import org.kie.hacep.consumer.RuleStatsListener;
 import org.kie.hacep.core.infra.SnapshotInfos;
+import org.kie.remote.DroolsExecutorContext;
 
 public class KieSessionContext {
 
+    private final DroolsExecutorContext executorContext;
+
+    private final RuleStatsListener ruleStats;
+
     private KieSession kieSession;
 
     private SessionPseudoClock clock;
@@ -36,6 +54,32 @@ public class KieSessionContext {
 
     private KieContainer kieContainer;
 
+    private LiveQueriesManager liveQueries;
+
+    private FactCountsTracker factCounts;
+
+    private EventWatermark watermark;
+
+    public KieSessionContext() {
+        this(new DroolsExecutorContext());
+    }
+
+    public KieSessionContext(DroolsExecutorContext executorContext) {
+        this(executorContext, null);
+    }
+
+    /**
+     * @param ruleStats attached to each session of this context, null when the rule stats aren't enabled
+     */
+    public KieSessionContext(DroolsExecutorContext executorContext, RuleStatsListener ruleStats) {
+        this.executorContext = executorContext;
+        this.ruleStats = ruleStats;
+    }
+
+    public DroolsExecutorContext getExecutorContext() {
+        return executorContext;
+    }
+
     public KieSession getKieSession() {
         return kieSession;
     }
@@ -58,16 +102,49 @@ public class KieSessionContext {
     public void initFromSnapshot(SnapshotInfos infos) {
         setKieSessionAndKieContainer(infos.getKieSession(), infos.getKieContainer());
         this.fhManager = infos.getFhManager();
+        this.liveQueries = new LiveQueriesManager().initFromKieSession(infos.getKieSession(), infos.getLiveQueries());
+        this.watermark = infos.getWatermark() != null ? infos.getWatermark() : new EventWatermark();
     }
 
     public void init(KieContainer kieContainer, KieSession newKiesession) {
         setKieSessionAndKieContainer(newKiesession, kieContainer);
         this.fhManager = new FactHandlesManager(newKiesession);
+        this.liveQueries = new LiveQueriesManager().initFromKieSession(newKiesession, null);
+        this.watermark = new EventWatermark();
+    }
+
+    /**
+     * Moves the state of the session to a new session of the given container, already built.
+     * The fact handles keep their ids and the live queries are subscribed again on the new session
+     */
+    public void swapKieContainer(KieContainer newKieContainer) {
+        KieServices srv = KieServices.get();
+        KieSession oldKieSession = kieSession;
+        KieSession newKieSession;
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            srv.getMarshallers().newMarshaller(oldKieSession.getKieBase()).marshall(out, oldKieSession);
+            Marshaller marshaller = srv.getMarshallers().newMarshaller(newKieContainer.getKieBase());
+            KieSessionConfiguration conf = srv.newKieSessionConfiguration();
+            conf.setOption(ClockTypeOption.get("pseudo"));
+            newKieSession = marshaller.unmarshall(new ByteArrayInputStream(out.toByteArray()), conf, null);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Unable to move the session to the KJar " + newKieContainer.getReleaseId(), e);
+        }
+        List<LiveQueryDefinition> definitions = liveQueries.getDefinitions();
+        liveQueries.dispose();
+        setKieSessionAndKieContainer(newKieSession, newKieContainer);
+        this.fhManager.initFromKieSession(newKieSession);
+        this.liveQueries = new LiveQueriesManager().initFromKieSession(newKieSession, definitions);
+        oldKieSession.dispose();
     }
 
     private void setKieSessionAndKieContainer(KieSession kieSession, KieContainer kieContainer) {
         this.kieSession = kieSession;
         this.kieContainer = kieContainer;
+        this.factCounts = new FactCountsTracker().initFromKieSession(kieSession);
+        if (ruleStats != null) {
+            ruleStats.initFromKieSession(kieSession);
+        }
         SessionClock clock = kieSession.getSessionClock();
         if (clock instanceof SessionPseudoClock) {
             this.clock = (SessionPseudoClock) clock;
@@ -78,6 +155,36 @@ public class KieSessionContext {
         return fhManager;
     }
 
+    public LiveQueriesManager getLiveQueries() {
+        return liveQueries;
+    }
+
+    public FactCountsTracker getFactCounts() {
+        return factCounts;
+    }
+
+    public Optional<RuleStatsListener> getRuleStats() {
+        return Optional.ofNullable(ruleStats);
+    }
+
+    public EventWatermark getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Moves the clock forward to the given time, a time in the past is ignored
+     * @return the current time of the clock
+     */
+    public long advanceClockTo(long time) {
+        if (clock == null) {
+            throw new IllegalStateException( "Drools HACEP is not running with a pseudo-clock" );
+        }
+        if (time > clock.getCurrentTime()) {
+            clock.advanceTime(time - clock.getCurrentTime(), TimeUnit.MILLISECONDS);
+        }
+        return clock.getCurrentTime();
+    }
+
     public void setClockAt(long time) {
         if (clock == null) {
             throw new IllegalStateException( "Drools HACEP is not running with a pseudo-clock" );
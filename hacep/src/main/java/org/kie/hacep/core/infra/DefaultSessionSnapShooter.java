@@ -19,15 +19,14 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import java.util.UUID;
+import java.util.OptionalLong;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.TopicPartition;
 import org.kie.api.KieServices;
 import org.kie.api.marshalling.KieMarshallers;
@@ -35,12 +34,12 @@ import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.KieSessionConfiguration;
 import org.kie.api.runtime.conf.ClockTypeOption;
-import org.kie.hacep.Config;
 import org.kie.hacep.EnvConfig;
 import org.kie.hacep.consumer.KieContainerUtils;
+import org.kie.hacep.core.HacepMetrics;
 import org.kie.hacep.core.KieSessionContext;
 import org.kie.hacep.message.SnapshotMessage;
-import org.kie.remote.impl.producer.EventProducer;
+import org.kie.remote.util.IdGenerator;
 import org.kie.remote.util.SerializationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,31 +49,38 @@ public class DefaultSessionSnapShooter implements SessionSnapshooter {
     private final String key = "LAST-SNAPSHOT";
     private final Logger logger = LoggerFactory.getLogger(DefaultSessionSnapShooter.class);
     private EnvConfig envConfig;
+    private LocalSnapshotCache localCache;
 
     public DefaultSessionSnapShooter(EnvConfig envConfig) {
         this.envConfig = envConfig;
+        this.localCache = new LocalSnapshotCache(envConfig);
     }
 
     public void serialize(KieSessionContext kieSessionContext, String lastInsertedEventkey, long lastInsertedEventOffset) {
         KieMarshallers marshallers = KieServices.get().getMarshallers();
+        long start = System.nanoTime();
         try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            EventProducer<byte[]> producer = new EventProducer<>();
-            producer.start(Config.getSnapshotProducerConfig());
             marshallers.newMarshaller(kieSessionContext.getKieSession().getKieBase()).marshall(out,
                                                                                                kieSessionContext.getKieSession());
             /* We are storing the last inserted key and offset together with the session's bytes */
             byte[] bytes = out.toByteArray();
-            SnapshotMessage message = new SnapshotMessage(UUID.randomUUID().toString(),
-                                                          envConfig.getKJarGAV(),
+            SnapshotMessage message = new SnapshotMessage(IdGenerator.nextId(),
+                                                          kieSessionContext.getKjarGAVUsed().orElse(envConfig.getKJarGAV()),
                                                           bytes,
                                                           kieSessionContext.getFhManager(),
+                                                          kieSessionContext.getLiveQueries().getDefinitions(),
                                                           lastInsertedEventkey,
                                                           lastInsertedEventOffset,
                                                           LocalDateTime.now());
-            producer.produceSync(envConfig.getSnapshotTopicName(),
-                                 key,
-                                 message);
-            producer.stop();
+            message.setWatermark(kieSessionContext.getWatermark());
+            byte[] serializedMessage = SerializationUtil.serialize(message);
+            RecordMetadata metadata = KafkaClients.getSnapshotProducer().produceSerializedSync(envConfig.getSnapshotTopicName(),
+                                                                                               key,
+                                                                                               serializedMessage);
+            if (metadata != null) {
+                localCache.store(serializedMessage, metadata.offset(), metadata.timestamp(), message);
+            }
+            HacepMetrics.recordSnapshot(serializedMessage.length, System.nanoTime() - start);
         } catch (IOException e) {
             logger.error(e.getMessage(),
                          e);
@@ -84,15 +90,7 @@ public class DefaultSessionSnapShooter implements SessionSnapshooter {
     public SnapshotInfos deserialize() {
         KieServices srv = KieServices.get();
         if (srv != null) {
-            KafkaConsumer<String, byte[]> consumer = getConfiguredSnapshotConsumer();
-            ConsumerRecords<String, byte[]> records = consumer.poll(envConfig.getPollSnapshotDuration());
-            byte[] bytes = null;
-            for (ConsumerRecord record : records) {
-                bytes = (byte[]) record.value();
-            }
-            consumer.close();
-
-            SnapshotMessage snapshotMsg = bytes != null ? SerializationUtil.deserialize(bytes) : null;
+            SnapshotMessage snapshotMsg = readLastSnapshot();
             if (snapshotMsg != null) {
                 KieContainer kieContainer = null;
                 KieSession kSession = null;
@@ -100,7 +98,7 @@ public class DefaultSessionSnapShooter implements SessionSnapshooter {
 
                     KieSessionConfiguration conf = srv.newKieSessionConfiguration();
                     conf.setOption(ClockTypeOption.get("pseudo"));
-                    kieContainer = KieContainerUtils.getKieContainer(envConfig, srv);
+                    kieContainer = KieContainerUtils.getKieContainer(envConfig, srv, snapshotMsg.getKjarGAV());
                     kSession = srv.getMarshallers().newMarshaller(kieContainer.getKieBase()).unmarshall(in, conf,null);
 
                 } catch (IOException | ClassNotFoundException e) {
@@ -112,10 +110,11 @@ public class DefaultSessionSnapShooter implements SessionSnapshooter {
                 return new SnapshotInfos(kSession,
                                          kieContainer,
                                          snapshotMsg.getFhManager(),
+                                         snapshotMsg.getLiveQueries(),
                                          snapshotMsg.getLastInsertedEventkey(),
                                          snapshotMsg.getLastInsertedEventOffset(),
                                          snapshotMsg.getTime(),
-                                         snapshotMsg.getKjarGAV());
+                                         snapshotMsg.getKjarGAV()).withWatermark(snapshotMsg.getWatermark());
             }
         }else{
             throw new RuntimeException("KieServices is null");
@@ -123,37 +122,78 @@ public class DefaultSessionSnapShooter implements SessionSnapshooter {
         return null;
     }
 
-    private KafkaConsumer getConfiguredSnapshotConsumer() {
-        KafkaConsumer<String, byte[]> consumer = new KafkaConsumer(Config.getSnapshotConsumerConfig());
-        List<PartitionInfo> partitionsInfo = consumer.partitionsFor(envConfig.getSnapshotTopicName());
-        List<TopicPartition> partitions = null;
-        Collection<TopicPartition> partitionCollection = new ArrayList<>();
+    /**
+     * The offset of the last event processed by the last snapshot, without unmarshalling its session
+     */
+    public OptionalLong getLastSnapshotEventOffset() {
+        SnapshotMessage snapshotMsg = readLastSnapshot();
+        return snapshotMsg != null ? OptionalLong.of(snapshotMsg.getLastInsertedEventOffset()) : OptionalLong.empty();
+    }
 
-        if (partitionsInfo != null) {
-            for (PartitionInfo partition : partitionsInfo) {
-                TopicPartition topicPartition = new TopicPartition(partition.topic(), partition.partition());
-                if (partitions == null || partitions.contains(topicPartition)) {
-                    partitionCollection.add(topicPartition);
-                }
-            }
-            if (!partitionCollection.isEmpty()) {
-                consumer.assign(partitionCollection);
+    /**
+     * Reads the last snapshot from the local cache when it's the same stored on the snapshot topic,
+     * otherwise from the snapshot topic, refreshing the local cache
+     */
+    private SnapshotMessage readLastSnapshot() {
+        long latestOffset = getLatestOffset();
+        if (latestOffset < 0) {
+            return null;
+        }
+        SnapshotMessage snapshotMsg = localCache.load(latestOffset, this::isOnSnapshotTopic);
+        if (snapshotMsg != null) {
+            return snapshotMsg;
+        }
+        ConsumerRecord<String, byte[]> last = KafkaClients.withSnapshotConsumer(this::pollLastSnapshot);
+        if (last == null) {
+            return null;
+        }
+        snapshotMsg = SerializationUtil.deserialize(last.value());
+        localCache.store(last.value(), last.offset(), last.timestamp(), snapshotMsg);
+        return snapshotMsg;
+    }
+
+    private boolean isOnSnapshotTopic(long offset, long timestamp) {
+        for (OffsetAndTimestamp found : KafkaClients.getOffsetsForTime(envConfig.getSnapshotTopicName(), timestamp).values()) {
+            if (found != null && found.offset() == offset && found.timestamp() == timestamp) {
+                return true;
             }
         }
-        consumer.assignment().forEach(topicPartition -> consumer.seekToBeginning(partitionCollection));
-        return consumer;
+        return false;
+    }
+
+    private ConsumerRecord<String, byte[]> pollLastSnapshot(KafkaConsumer<String, byte[]> consumer) {
+        List<TopicPartition> partitions = KafkaClients.getPartitions(envConfig.getSnapshotTopicName());
+        consumer.assign(partitions);
+        consumer.seekToBeginning(partitions);
+        ConsumerRecords<String, byte[]> records = consumer.poll(envConfig.getPollSnapshotDuration());
+        ConsumerRecord<String, byte[]> last = null;
+        for (ConsumerRecord<String, byte[]> record : records) {
+            last = record;
+        }
+        return last;
+    }
+
+    private long getLatestOffset() {
+        long latestOffset = -1;
+        for (Long endOffset : KafkaClients.getEndOffsets(envConfig.getSnapshotTopicName()).values()) {
+            latestOffset = Math.max(latestOffset, endOffset - 1);
+        }
+        return latestOffset;
     }
 
     @Override
     public LocalDateTime getLastSnapshotTime() {
-        KafkaConsumer<String, byte[]> consumer = getConfiguredSnapshotConsumer();
-        ConsumerRecords<String, byte[]> records = consumer.poll(envConfig.getPollSnapshotDuration());
-        byte[] bytes = null;
-        for (ConsumerRecord record : records) {
-            bytes = (byte[]) record.value();
+        if (localCache.isEnabled()) {
+            long latestOffset = getLatestOffset();
+            if (latestOffset < 0) {
+                return null;
+            }
+            LocalDateTime cachedTime = localCache.getTime(latestOffset, this::isOnSnapshotTopic);
+            if (cachedTime != null) {
+                return cachedTime;
+            }
         }
-        consumer.close();
-        SnapshotMessage snapshotMsg = bytes != null ? SerializationUtil.deserialize(bytes) : null;
+        SnapshotMessage snapshotMsg = readLastSnapshot();
         if (snapshotMsg != null) {
             return snapshotMsg.getTime();
         } else {
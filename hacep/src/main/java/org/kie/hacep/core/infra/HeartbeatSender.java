@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core.infra;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.kie.hacep.Config;
+import org.kie.hacep.EnvConfig;
+import org.kie.hacep.core.HacepMetrics;
+import org.kie.remote.command.HeartbeatCommand;
+import org.kie.remote.impl.producer.Sender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends a {@link HeartbeatCommand} on the events topic every HEARTBEAT_INTERVAL_MS while the node is the leader,
+ * the leader and the replicas process it at the same position of the stream.
+ * The heartbeats are coalesced with the commands: no heartbeat is sent while the leader processed
+ * another command within the interval, the stream is already moving the clock.
+ * The expired events are swept and the retained events are counted only on the heartbeats, so under a steady
+ * load a heartbeat is still sent every MAX_COALESCED_INTERVALS intervals.
+ */
+public class HeartbeatSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatSender.class);
+    static final int MAX_COALESCED_INTERVALS = 10;
+
+    private final EnvConfig envConfig;
+    private ScheduledExecutorService scheduler;
+    private Sender sender;
+    private volatile long lastActivity;
+    private long lastSent;
+
+    public HeartbeatSender(EnvConfig envConfig) {
+        this.envConfig = envConfig;
+    }
+
+    public synchronized void start() {
+        long interval = envConfig.getHeartbeatIntervalMs();
+        if (interval <= 0 || scheduler != null) {
+            return;
+        }
+        sender = new Sender(Config.getProducerConfig("HeartbeatSender"));
+        sender.start();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hacep-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::send, interval, interval, TimeUnit.MILLISECONDS);
+        if (logger.isInfoEnabled()) {
+            logger.info("Sending heartbeats every {} ms", interval);
+        }
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            sender.stop();
+            sender = null;
+        }
+    }
+
+    /**
+     * Called by the leader for each command processed, other than the heartbeats
+     */
+    public void markActivity() {
+        markActivity(System.currentTimeMillis());
+    }
+
+    void markActivity(long now) {
+        lastActivity = now;
+    }
+
+    /* no heartbeat is needed while the commands keep moving the clock, until the sweep is due */
+    boolean isDue(long now) {
+        long interval = envConfig.getHeartbeatIntervalMs();
+        if (now - lastActivity < interval && now - lastSent < interval * MAX_COALESCED_INTERVALS) {
+            return false;
+        }
+        lastSent = now;
+        return true;
+    }
+
+    private void send() {
+        if (!isDue(System.currentTimeMillis())) {
+            HacepMetrics.recordHeartbeat(false);
+            return;
+        }
+        try {
+            sender.sendCommand(new HeartbeatCommand(), envConfig.getEventsTopicName());
+            HacepMetrics.recordHeartbeat(true);
+        } catch (RuntimeException e) {
+            // a missed heartbeat only delays the expirations to the next one
+            logger.warn("Unable to send the heartbeat", e);
+        }
+    }
+}
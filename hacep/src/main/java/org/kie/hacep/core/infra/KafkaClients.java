@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core.infra;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.kie.hacep.Config;
+import org.kie.remote.impl.producer.EventProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long lived Kafka clients shared by the utilities that read the last record of a topic,
+ * look up offsets or read and write the snapshots, instead of opening a new connection on each call.
+ * The clients are created on first use and closed by {@link org.kie.hacep.core.Bootstrap#stopEngine()}.
+ * A KafkaConsumer isn't thread safe, so the consumers are leased to one caller at a time.
+ */
+public class KafkaClients {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaClients.class);
+
+    private static final Object offsetLock = new Object();
+    private static final Object snapshotLock = new Object();
+    private static final Map<String, List<TopicPartition>> partitionsCache = new ConcurrentHashMap<>();
+    private static final AtomicLong createdClients = new AtomicLong();
+    private static final AtomicLong leases = new AtomicLong();
+
+    private static KafkaConsumer<String, byte[]> offsetConsumer;
+    private static KafkaConsumer<String, byte[]> snapshotConsumer;
+    private static volatile EventProducer<byte[]> snapshotProducer;
+
+    private KafkaClients() { }
+
+    /**
+     * Runs the function with the consumer used to look up offsets and to read the last record of the topics
+     */
+    public static <R> R withOffsetConsumer(Function<KafkaConsumer<String, byte[]>, R> function) {
+        synchronized (offsetLock) {
+            if (offsetConsumer == null) {
+                offsetConsumer = new KafkaConsumer<>(Config.getConsumerConfig("OffsetConsumer"));
+                createdClients.incrementAndGet();
+            }
+            leases.incrementAndGet();
+            return function.apply(offsetConsumer);
+        }
+    }
+
+    /**
+     * Runs the function with the consumer of the snapshot topic
+     */
+    public static <R> R withSnapshotConsumer(Function<KafkaConsumer<String, byte[]>, R> function) {
+        synchronized (snapshotLock) {
+            if (snapshotConsumer == null) {
+                snapshotConsumer = new KafkaConsumer<>(Config.getSnapshotConsumerConfig());
+                createdClients.incrementAndGet();
+            }
+            leases.incrementAndGet();
+            return function.apply(snapshotConsumer);
+        }
+    }
+
+    public static EventProducer<byte[]> getSnapshotProducer() {
+        EventProducer<byte[]> producer = snapshotProducer;
+        if (producer == null) {
+            synchronized (KafkaClients.class) {
+                producer = snapshotProducer;
+                if (producer == null) {
+                    producer = new EventProducer<>();
+                    producer.start(Config.getSnapshotProducerConfig());
+                    createdClients.incrementAndGet();
+                    snapshotProducer = producer;
+                }
+            }
+        }
+        leases.incrementAndGet();
+        return producer;
+    }
+
+    /**
+     * @return the partitions of the topic, read once from the cluster metadata
+     */
+    public static List<TopicPartition> getPartitions(String topic) {
+        List<TopicPartition> partitions = partitionsCache.get(topic);
+        if (partitions != null) {
+            return partitions;
+        }
+        partitions = withOffsetConsumer(consumer -> {
+            List<TopicPartition> topicPartitions = new ArrayList<>();
+            List<PartitionInfo> infos = consumer.partitionsFor(topic);
+            if (infos != null) {
+                for (PartitionInfo info : infos) {
+                    topicPartitions.add(new TopicPartition(topic, info.partition()));
+                }
+            }
+            return Collections.unmodifiableList(topicPartitions);
+        });
+        if (!partitions.isEmpty()) { // the topic could be not yet created
+            partitionsCache.put(topic, partitions);
+        }
+        return partitions;
+    }
+
+    public static Map<TopicPartition, Long> getEndOffsets(String topic) {
+        List<TopicPartition> partitions = getPartitions(topic);
+        return withOffsetConsumer(consumer -> consumer.endOffsets(partitions));
+    }
+
+    /**
+     * @return for each partition the first record with a timestamp not lower than the given one, without fetching the records
+     */
+    public static Map<TopicPartition, OffsetAndTimestamp> getOffsetsForTime(String topic, long timestamp) {
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        for (TopicPartition partition : getPartitions(topic)) {
+            timestamps.put(partition, timestamp);
+        }
+        return withOffsetConsumer(consumer -> consumer.offsetsForTimes(timestamps));
+    }
+
+    public static long getCreatedClients() {
+        return createdClients.get();
+    }
+
+    /**
+     * @return how many times a client already connected has been used
+     */
+    public static long getReusedClients() {
+        return leases.get() - createdClients.get();
+    }
+
+    public static void close() {
+        synchronized (offsetLock) {
+            if (offsetConsumer != null) {
+                offsetConsumer.close();
+                offsetConsumer = null;
+            }
+        }
+        synchronized (snapshotLock) {
+            if (snapshotConsumer != null) {
+                snapshotConsumer.close();
+                snapshotConsumer = null;
+            }
+        }
+        synchronized (KafkaClients.class) {
+            if (snapshotProducer != null) {
+                snapshotProducer.stop();
+                snapshotProducer = null;
+            }
+        }
+        partitionsCache.clear();
+        if (logger.isInfoEnabled()) {
+            logger.info("Kafka clients closed, created:{} reused:{}", getCreatedClients(), getReusedClients());
+        }
+    }
+}
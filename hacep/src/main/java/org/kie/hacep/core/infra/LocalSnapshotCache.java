@@ -0,0 +1,250 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core.infra;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import org.kie.hacep.EnvConfig;
+import org.kie.hacep.message.SnapshotMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copy on the local disk (e.g. a persistent volume) of the last snapshot read from or written to the snapshot topic.
+ * The serialized {@link SnapshotMessage} is stored in a data file described by a manifest with the offset of the
+ * record on the snapshot topic, the offset of the last event, the GAV of the kjar and the checksum of the data.
+ * The local copy is used only if it's the very record at the end of the snapshot topic, recognized by its offset and timestamp:
+ * after the topic is recreated or the volume is reused by another deployment the offset alone can match a different snapshot.
+ * Both files are replaced atomically, the data before the manifest, so a crash leaves the old manifest that doesn't match
+ * the checksum of the new data. The data are read through a memory mapped file.
+ */
+public class LocalSnapshotCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalSnapshotCache.class);
+
+    private static final String DATA_FILE = "snapshot.data";
+    private static final String MANIFEST_FILE = "snapshot.manifest";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final String SNAPSHOT_OFFSET = "snapshot.offset";
+    private static final String SNAPSHOT_TIMESTAMP = "snapshot.timestamp";
+    private static final String EVENT_KEY = "event.key";
+    private static final String EVENT_OFFSET = "event.offset";
+    private static final String KJAR_GAV = "kjar.gav";
+    private static final String TIME = "time";
+    private static final String LENGTH = "length";
+    private static final String CHECKSUM = "crc32";
+
+    private final Path directory;
+
+    public LocalSnapshotCache(EnvConfig envConfig) {
+        this.directory = envConfig.getSnapshotCacheDir() != null ? Paths.get(envConfig.getSnapshotCacheDir()) : null;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Tells if the record at the given offset of the snapshot topic has the given timestamp
+     */
+    @FunctionalInterface
+    public interface SnapshotTopic {
+
+        boolean hasRecord(long offset, long timestamp);
+    }
+
+    /**
+     * @param snapshot the serialized SnapshotMessage, as stored on the snapshot topic
+     * @param snapshotOffset the offset of the record on the snapshot topic
+     * @param snapshotTimestamp the timestamp of the record on the snapshot topic
+     */
+    public void store(byte[] snapshot, long snapshotOffset, long snapshotTimestamp, SnapshotMessage message) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            CRC32 crc = new CRC32();
+            crc.update(snapshot);
+            writeAtomically(DATA_FILE, snapshot);
+
+            Properties manifest = new Properties();
+            manifest.setProperty(SNAPSHOT_OFFSET, String.valueOf(snapshotOffset));
+            manifest.setProperty(SNAPSHOT_TIMESTAMP, String.valueOf(snapshotTimestamp));
+            manifest.setProperty(EVENT_OFFSET, String.valueOf(message.getLastInsertedEventOffset()));
+            manifest.setProperty(LENGTH, String.valueOf(snapshot.length));
+            manifest.setProperty(CHECKSUM, String.valueOf(crc.getValue()));
+            if (message.getLastInsertedEventkey() != null) {
+                manifest.setProperty(EVENT_KEY, message.getLastInsertedEventkey());
+            }
+            if (message.getKjarGAV() != null) {
+                manifest.setProperty(KJAR_GAV, message.getKjarGAV());
+            }
+            if (message.getTime() != null) {
+                manifest.setProperty(TIME, message.getTime().toString());
+            }
+            writeAtomically(MANIFEST_FILE, toBytes(manifest));
+            if (logger.isInfoEnabled()) {
+                logger.info("Snapshot at offset {} stored in {}", snapshotOffset, directory);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to store the snapshot in " + directory, e);
+        }
+    }
+
+    /**
+     * @return the time of the snapshot stored locally if it's the one at the given offset of the snapshot topic
+     */
+    public LocalDateTime getTime(long latestSnapshotOffset, SnapshotTopic snapshotTopic) {
+        Properties manifest = readManifest();
+        if (manifest == null || manifest.getProperty(TIME) == null || !isUpToDate(manifest, latestSnapshotOffset, snapshotTopic)) {
+            return null;
+        }
+        return LocalDateTime.parse(manifest.getProperty(TIME));
+    }
+
+    /**
+     * @return the snapshot stored locally, null if it's missing, corrupted or not the one at the given offset of the snapshot topic
+     */
+    public SnapshotMessage load(long latestSnapshotOffset, SnapshotTopic snapshotTopic) {
+        Properties manifest = readManifest();
+        if (manifest == null) {
+            return null;
+        }
+        if (!isUpToDate(manifest, latestSnapshotOffset, snapshotTopic)) {
+            if (logger.isInfoEnabled()) {
+                logger.info("Local snapshot at offset {} of kjar {} isn't the one on the snapshot topic at offset {}",
+                            manifest.getProperty(SNAPSHOT_OFFSET), manifest.getProperty(KJAR_GAV), latestSnapshotOffset);
+            }
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.READ)) {
+            long length = Long.parseLong(manifest.getProperty(LENGTH));
+            if (channel.size() != length) {
+                logger.warn("Local snapshot length {} doesn't match the manifest {}", channel.size(), length);
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != Long.parseLong(manifest.getProperty(CHECKSUM))) {
+                logger.warn("Local snapshot checksum doesn't match the manifest");
+                return null;
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteBufferInputStream(buffer))) {
+                SnapshotMessage message = (SnapshotMessage) in.readObject();
+                if (logger.isInfoEnabled()) {
+                    logger.info("Snapshot at offset {} loaded from {}", manifest.getProperty(SNAPSHOT_OFFSET), directory);
+                }
+                return message;
+            }
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            logger.warn("Unable to load the snapshot from " + directory, e);
+            return null;
+        }
+    }
+
+    private boolean isUpToDate(Properties manifest, long latestSnapshotOffset, SnapshotTopic snapshotTopic) {
+        if (Long.parseLong(manifest.getProperty(SNAPSHOT_OFFSET, "-1")) != latestSnapshotOffset || manifest.getProperty(SNAPSHOT_TIMESTAMP) == null) {
+            return false;
+        }
+        return snapshotTopic.hasRecord(latestSnapshotOffset, Long.parseLong(manifest.getProperty(SNAPSHOT_TIMESTAMP)));
+    }
+
+    private Properties readManifest() {
+        if (!isEnabled()) {
+            return null;
+        }
+        Path manifestPath = directory.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifestPath)) {
+            return null;
+        }
+        Properties manifest = new Properties();
+        try (Reader reader = Files.newBufferedReader(manifestPath, StandardCharsets.ISO_8859_1)) {
+            manifest.load(reader);
+            return manifest;
+        } catch (IOException e) {
+            logger.warn("Unable to read the snapshot manifest " + manifestPath, e);
+            return null;
+        }
+    }
+
+    private void writeAtomically(String fileName, byte[] bytes) throws IOException {
+        Path tmp = directory.resolve(fileName + TMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private byte[] toBytes(Properties properties) throws IOException {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            properties.store(out, "HACEP local snapshot");
+            return out.toByteArray();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
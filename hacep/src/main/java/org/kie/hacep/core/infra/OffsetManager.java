@@ -13,95 +13,246 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+
 package org.kie.hacep.core.infra;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Properties;
-
-import org.apache.kafka.clients.consumer.OffsetAndMetadata;
-import org.apache.kafka.common.TopicPartition;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.kie.hacep.EnvConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Used when is required to store the current offset between operation in the cluster
+ * Stores on the local disk the position reached by the consumer, so a restarted pod can resume
+ * the lock-step with the leader without looking for the last control message on the topic.
+ * The checkpoints are appended as fixed size records, protected by a CRC32, to a memory mapped file
+ * used as a ring: the valid record with the highest sequence is the last checkpoint.
+ * The mapped pages survive a crash of the process, they are forced on the disk every
+ * {@link EnvConfig#getOffsetStoreSyncRecords()} records and on close.
  */
 public class OffsetManager {
 
-    private static Logger logger = LoggerFactory.getLogger(OffsetManager.class);
-    private static Map<TopicPartition, Long> controlTopicOffset = Collections.emptyMap();
-    private static Map<TopicPartition, Long> eventsTopicOffset = Collections.emptyMap();
+    private static final Logger logger = LoggerFactory.getLogger(OffsetManager.class);
 
-    public static void saveControlTopic(Map<TopicPartition, Long> newOffset) {
-        controlTopicOffset = newOffset;
-    }
+    static final String FILE_NAME = "offsets.log";
+    static final int RECORD_SIZE = 128;
+    static final int CAPACITY = 4096;
 
-    public static void saveEventsTopic(Map<TopicPartition, Long> newOffset) {
-        eventsTopicOffset = newOffset;
+    private static final int MAGIC = 0x48435054;
+    private static final int KEY_POSITION = 46;
+    private static final int CRC_POSITION = RECORD_SIZE - Long.BYTES;
+    private static final int MAX_KEY_LENGTH = CRC_POSITION - KEY_POSITION;
+
+    private final Path file;
+    private final int syncRecords;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long sequence;
+    private int slot;
+    private int unsyncedRecords;
+    private Checkpoint last;
+
+    public OffsetManager(EnvConfig envConfig) {
+        this.file = envConfig.getOffsetStoreDir() != null ? Paths.get(envConfig.getOffsetStoreDir(), FILE_NAME) : null;
+        this.syncRecords = envConfig.getOffsetStoreSyncRecords();
     }
 
-    public static Map<TopicPartition, Long> getControlTopicOffset() {
-        return controlTopicOffset;
+    public boolean isEnabled() {
+        return file != null;
     }
 
-    public static Map<TopicPartition, Long> getEventsTopicOffset() {
-        return eventsTopicOffset;
+    /**
+     * @return the last checkpoint stored, null if the store is disabled or empty
+     */
+    public synchronized Checkpoint load() {
+        if (!open()) {
+            return null;
+        }
+        return last;
     }
 
-    public static Properties load() {
-        Properties prop = null;
-        InputStream input = null;
-        try {
-            //todo store on infinispan/etcd
-            input = new FileInputStream("/tmp/offsets.properties");
-            prop = new Properties();
-            prop.load(input);
-        } catch (IOException ex) {
-        } finally {
-            if (input != null) {
-                try {
-                    input.close();
-                } catch (IOException e) {
-                    logger.error(e.getMessage(),
-                                 e);
-                }
+    /**
+     * @param key the key of the last command processed
+     * @param eventOffset the offset of the last command processed on the events topic
+     * @param controlOffset the offset of the control message of the last command processed, -1 when unknown (leader)
+     * @param controlEpoch the epoch of the leader that published the control message
+     * @param snapshotOffset the offset on the events topic of the snapshot the session was started from, -1 if none
+     */
+    public synchronized void store(String key, long eventOffset, long controlOffset, long controlEpoch, long snapshotOffset) {
+        if (key == null || !open()) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > MAX_KEY_LENGTH) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Key {} too long to be stored as a checkpoint", key);
             }
+            return;
+        }
+        int position = slot * RECORD_SIZE;
+        buffer.putInt(position, MAGIC);
+        buffer.putLong(position + 4, ++sequence);
+        buffer.putLong(position + 12, eventOffset);
+        buffer.putLong(position + 20, controlOffset);
+        buffer.putLong(position + 28, controlEpoch);
+        buffer.putLong(position + 36, snapshotOffset);
+        buffer.putShort(position + 44, (short) keyBytes.length);
+        for (int i = 0; i < keyBytes.length; i++) {
+            buffer.put(position + KEY_POSITION + i, keyBytes[i]);
+        }
+        buffer.putLong(position + CRC_POSITION, checksum(position));
+        last = new Checkpoint(sequence, key, eventOffset, controlOffset, controlEpoch, snapshotOffset);
+        slot = (slot + 1) % CAPACITY;
+        if (++unsyncedRecords >= syncRecords) {
+            sync();
+        }
+    }
+
+    public synchronized void sync() {
+        if (buffer != null && unsyncedRecords > 0) {
+            buffer.force();
+            unsyncedRecords = 0;
         }
-        return prop;
     }
 
-    public static void store(Map<TopicPartition, OffsetAndMetadata> offsetAndMetadataMap) {
-        Properties prop = new Properties();
-        OutputStream output = null;
+    public synchronized void close() {
+        sync();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+        channel = null;
+        buffer = null;
+    }
 
+    private boolean open() {
+        if (buffer != null) {
+            return true;
+        }
+        if (!isEnabled()) {
+            return false;
+        }
         try {
-            //todo store on infinispan/etcd
-            output = new FileOutputStream("/tmp/offsets.properties");
-            for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsetAndMetadataMap.entrySet()) {
-                prop.setProperty(entry.getKey().topic() + "-" + entry.getKey().partition(),
-                                 String.valueOf(entry.getValue().offset()));
-            }
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) RECORD_SIZE * CAPACITY);
+            recover();
+            return true;
+        } catch (IOException e) {
+            logger.error("Unable to open the offset store " + file, e);
+            close();
+            return false;
+        }
+    }
 
-            prop.store(output,
-                       null);
-        } catch (IOException io) {
-            logger.error(io.getMessage(),
-                         io);
-        } finally {
-            if (output != null) {
-                try {
-                    output.close();
-                } catch (IOException e) {
-                    logger.error(e.getMessage(),
-                                 e);
-                }
+    private void recover() {
+        int lastSlot = -1;
+        for (int i = 0; i < CAPACITY; i++) {
+            int position = i * RECORD_SIZE;
+            if (buffer.getInt(position) != MAGIC || buffer.getLong(position + CRC_POSITION) != checksum(position)) {
+                continue;
+            }
+            long recordSequence = buffer.getLong(position + 4);
+            if (recordSequence > sequence) {
+                sequence = recordSequence;
+                lastSlot = i;
+            }
+        }
+        if (lastSlot >= 0) {
+            last = read(lastSlot * RECORD_SIZE);
+            slot = (lastSlot + 1) % CAPACITY;
+            if (logger.isInfoEnabled()) {
+                logger.info("Offset store {} recovered, last checkpoint:{}", file, last);
             }
         }
     }
+
+    private Checkpoint read(int position) {
+        byte[] keyBytes = new byte[buffer.getShort(position + 44)];
+        for (int i = 0; i < keyBytes.length; i++) {
+            keyBytes[i] = buffer.get(position + KEY_POSITION + i);
+        }
+        return new Checkpoint(buffer.getLong(position + 4),
+                              new String(keyBytes, StandardCharsets.UTF_8),
+                              buffer.getLong(position + 12),
+                              buffer.getLong(position + 20),
+                              buffer.getLong(position + 28),
+                              buffer.getLong(position + 36));
+    }
+
+    private long checksum(int position) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(position);
+        record.limit(position + CRC_POSITION);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return crc.getValue();
+    }
+
+    public static class Checkpoint {
+
+        private final long sequence;
+        private final String key;
+        private final long eventOffset;
+        private final long controlOffset;
+        private final long controlEpoch;
+        private final long snapshotOffset;
+
+        Checkpoint(long sequence, String key, long eventOffset, long controlOffset, long controlEpoch, long snapshotOffset) {
+            this.sequence = sequence;
+            this.key = key;
+            this.eventOffset = eventOffset;
+            this.controlOffset = controlOffset;
+            this.controlEpoch = controlEpoch;
+            this.snapshotOffset = snapshotOffset;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getEventOffset() {
+            return eventOffset;
+        }
+
+        public long getControlOffset() {
+            return controlOffset;
+        }
+
+        public long getControlEpoch() {
+            return controlEpoch;
+        }
+
+        public long getSnapshotOffset() {
+            return snapshotOffset;
+        }
+
+        @Override
+        public String toString() {
+            return "Checkpoint{" +
+                    "sequence=" + sequence +
+                    ", key='" + key + '\'' +
+                    ", eventOffset=" + eventOffset +
+                    ", controlOffset=" + controlOffset +
+                    ", controlEpoch=" + controlEpoch +
+                    ", snapshotOffset=" + snapshotOffset +
+                    '}';
+        }
+    }
 }
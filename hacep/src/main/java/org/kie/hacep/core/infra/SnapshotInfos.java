@@ -16,24 +16,30 @@
 package org.kie.hacep.core.infra;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
+import org.kie.hacep.consumer.EventWatermark;
 import org.kie.hacep.consumer.FactHandlesManager;
+import org.kie.hacep.consumer.LiveQueryDefinition;
 
 public class SnapshotInfos {
 
     private KieSession kieSession;
     private KieContainer kieContainer;
     private FactHandlesManager fhManager;
+    private List<LiveQueryDefinition> liveQueries;
     private String keyDuringSnaphot;
     private long offsetDuringSnapshot;
     private LocalDateTime time;
     private String kJarGAV;
+    private EventWatermark watermark;
 
     public SnapshotInfos(KieSession kieSession,
                          KieContainer kieContainer,
                          FactHandlesManager fhManager,
+                         List<LiveQueryDefinition> liveQueries,
                          String keyDuringSnaphot,
                          long offsetDuringSnapshot,
                          LocalDateTime time,
@@ -41,6 +47,7 @@ public class SnapshotInfos {
         this.kieSession = kieSession;
         this.kieContainer = kieContainer;
         this.fhManager = fhManager.initFromKieSession( kieSession );
+        this.liveQueries = liveQueries;
         this.keyDuringSnaphot = keyDuringSnaphot;
         this.offsetDuringSnapshot = offsetDuringSnapshot;
         this.time = time;
@@ -59,6 +66,10 @@ public class SnapshotInfos {
         return fhManager;
     }
 
+    public List<LiveQueryDefinition> getLiveQueries() {
+        return liveQueries;
+    }
+
     public String getKeyDuringSnaphot() {
         return keyDuringSnaphot;
     }
@@ -75,6 +86,15 @@ public class SnapshotInfos {
         return kJarGAV;
     }
 
+    public EventWatermark getWatermark() {
+        return watermark;
+    }
+
+    public SnapshotInfos withWatermark(EventWatermark watermark) {
+        this.watermark = watermark;
+        return this;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("SnapshotInfos{");
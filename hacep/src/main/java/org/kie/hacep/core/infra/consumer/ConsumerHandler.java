@@ -16,6 +16,7 @@
 package org.kie.hacep.core.infra.consumer;
 
 import org.kie.hacep.core.infra.election.State;
+import org.kie.remote.DroolsExecutorContext;
 import org.kie.remote.command.RemoteCommand;
 
 public interface ConsumerHandler {
@@ -27,4 +28,9 @@ public interface ConsumerHandler {
     void processWithSnapshot(ItemToProcess item, State currentState);
 
     void stop();
+
+    /**
+     * The role of the session handled, bound to the consuming thread while a command is processed
+     */
+    DroolsExecutorContext getExecutorContext();
 }
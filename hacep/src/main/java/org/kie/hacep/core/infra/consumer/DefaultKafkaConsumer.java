@@ -18,8 +18,11 @@ package org.kie.hacep.core.infra.consumer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.kafka.clients.consumer.Consumer;
@@ -33,15 +36,19 @@ import org.apache.kafka.common.errors.WakeupException;
 import org.kie.hacep.Config;
 import org.kie.hacep.EnvConfig;
 import org.kie.hacep.consumer.DroolsConsumerHandler;
+import org.kie.hacep.core.GlobalStatus;
+import org.kie.hacep.core.HacepMetrics;
 import org.kie.hacep.core.infra.DefaultSessionSnapShooter;
+import org.kie.hacep.core.infra.HeartbeatSender;
 import org.kie.hacep.core.infra.OffsetManager;
 import org.kie.hacep.core.infra.SnapshotInfos;
 import org.kie.hacep.core.infra.election.State;
 import org.kie.hacep.core.infra.utils.ConsumerUtils;
+import org.kie.remote.command.CommandKind;
 import org.kie.remote.message.ControlMessage;
 import org.kie.hacep.util.Printer;
 import org.kie.hacep.util.PrinterUtil;
-import org.kie.remote.DroolsExecutor;
+import org.kie.remote.util.CommandHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,12 +59,14 @@ import static org.kie.remote.util.SerializationUtil.deserialize;
  */
 public class DefaultKafkaConsumer<T> implements EventConsumer {
 
+    private static final long LAG_REFRESH_MILLIS = 1000;
+    static final int APPLIED_KEYS_HISTORY = 10_000;
     private Logger logger = LoggerFactory.getLogger(DefaultKafkaConsumer.class);
-    private Map<TopicPartition, OffsetAndMetadata> offsetsEvents = new HashMap<>();
     private Consumer<String, T> kafkaConsumer, kafkaSecondaryConsumer;
     private DroolsConsumerHandler consumerHandler;
     private volatile String processingKey = "";
     private volatile long processingKeyOffset, lastProcessedControlOffset, lastProcessedEventOffset;
+    private volatile long controlEpoch;
     private volatile boolean started, exit = false;
     private volatile State currentState = State.REPLICA;
     private volatile PolledTopic polledTopic = PolledTopic.CONTROL;
@@ -65,15 +74,33 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
     private List<ConsumerRecord<String, T>> eventsBuffer;
     private List<ConsumerRecord<String, T>> controlBuffer;
     private AtomicInteger counter ;
-    private SnapshotInfos snapshotInfos;
+    /* the position of the last snapshot read on restart, the session in memory is kept */
+    private OptionalLong snapshotEventOffset = OptionalLong.empty();
     private DefaultSessionSnapShooter snapShooter;
     private Printer printer;
     private EnvConfig envConfig;
     private Logger loggerForTest;
     private volatile boolean askedSnapshotOnDemand;
+    private volatile boolean pendingPromotion;
+    private volatile boolean catchingUp;
+    private Map<Consumer<String, T>, Map<TopicPartition, OffsetAndMetadata>> pendingOffsets = new IdentityHashMap<>();
+    private OffsetManager offsetManager;
+    private HeartbeatSender heartbeatSender;
+    private long lastLagRefresh;
+    /* the control records not yet applied and the end of the control topic, refreshed with the replica lag */
+    private long controlLag, controlEndOffset;
+    /* the keys of the last control messages applied, a new leader must not publish one of them again */
+    private final Map<String, Boolean> appliedControlKeys = new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > APPLIED_KEYS_HISTORY;
+        }
+    };
 
     public DefaultKafkaConsumer(EnvConfig config) {
         this.envConfig = config;
+        this.offsetManager = new OffsetManager(config);
+        this.heartbeatSender = new HeartbeatSender(config);
         if(this.envConfig.isSkipOnDemandSnapshot()){
             counter = new AtomicInteger(0);
         }
@@ -85,21 +112,21 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
     }
 
     public void initConsumer(ConsumerHandler consumerHandler) {
+        initConsumer(consumerHandler,
+                     new KafkaConsumer<>(Config.getConsumerConfig("PrimaryConsumer")),
+                     currentState.equals(State.REPLICA) ? new KafkaConsumer<>(Config.getConsumerConfig("SecondaryConsumer")) : null);
+    }
+
+    /* the consumers of the events and of the control topics are given by the tests */
+    void initConsumer(ConsumerHandler consumerHandler, Consumer<String, T> primary, Consumer<String, T> secondary) {
         this.consumerHandler = (DroolsConsumerHandler) consumerHandler;
         this.snapShooter = this.consumerHandler.getSessionSnapShooter();
-        this.kafkaConsumer = new KafkaConsumer<>(Config.getConsumerConfig("PrimaryConsumer"));
-        if (currentState.equals(State.REPLICA)) {
-            this.kafkaSecondaryConsumer = new KafkaConsumer<>(Config.getConsumerConfig("SecondaryConsumer"));
-        }
+        this.kafkaConsumer = primary;
+        this.kafkaSecondaryConsumer = secondary;
     }
 
     protected void restartConsumer() {
-        if (logger.isInfoEnabled()) {
-            logger.info("Restart Consumers");
-        }
-        snapshotInfos = snapShooter.deserialize();//is still useful ?
-        kafkaConsumer = new KafkaConsumer<>(Config.getConsumerConfig("PrimaryConsumer"));
-        assign();
+        restartConsumer(currentState, new KafkaConsumer<>(Config.getConsumerConfig("PrimaryConsumer")));
         if (currentState.equals(State.REPLICA)) {
             kafkaSecondaryConsumer = new KafkaConsumer<>(Config.getConsumerConfig("SecondaryConsumer"));
         } else {
@@ -107,8 +134,20 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
         }
     }
 
+    /* the new consumer of the events topic is given by the tests */
+    void restartConsumer(State state, Consumer<String, T> primary) {
+        if (logger.isInfoEnabled()) {
+            logger.info("Restart Consumers");
+        }
+        currentState = state;
+        snapshotEventOffset = snapShooter.getLastSnapshotEventOffset();
+        kafkaConsumer = primary;
+        assign();
+    }
+
     @Override
     public void stop() {
+        heartbeatSender.stop();
         stopConsume();
         kafkaConsumer.wakeup();
         if (kafkaSecondaryConsumer != null) {
@@ -120,6 +159,12 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
 
     @Override
     public void updateStatus(State state) {
+        if (started && envConfig.isWarmPromotion() && state.equals(State.LEADER) && !currentState.equals(State.LEADER)) {
+            // the running replica is promoted by the consumer thread, reusing consumers and session
+            pendingPromotion = true;
+            return;
+        }
+        pendingPromotion = false;
         boolean changedState = !state.equals(currentState);
         if(currentState == null ||  changedState){
             currentState = state;
@@ -189,12 +234,16 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
             }
         }
 
-        if (snapshotInfos != null) {
+        if (currentState.equals(State.LEADER) && !appliedControlKeys.isEmpty()) {
+            // promoted replica, the session in memory already contains the events up to the last aligned one
+            kafkaConsumer.assignment().forEach(topicPartition -> kafkaConsumer.seek(topicPartition,
+                                                                                    lastProcessedEventOffset + 1));
+        } else if (snapshotEventOffset.isPresent()) {
             if (partitionCollection.size() > 1) {
                 throw new RuntimeException("The system must run with only one partition per topic");
             }
             kafkaConsumer.assignment().forEach(topicPartition -> kafkaConsumer.seek(partitionCollection.iterator().next(),
-                                                                                    snapshotInfos.getOffsetDuringSnapshot()));
+                                                                                    snapshotEventOffset.getAsLong()));
         } else {
             if(currentState.equals(State.LEADER)){
                 kafkaConsumer.assignment().forEach(topicPartition -> kafkaConsumer.seek(partitionCollection.iterator().next(),
@@ -241,17 +290,10 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
             try {
                 kafkaConsumer.commitSync();
                 kafkaSecondaryConsumer.commitSync();
-                if (logger.isDebugEnabled()) {
-                    for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsetsEvents.entrySet()) {
-                        logger.debug("Consumer partition %s - lastOffset %s\n",
-                                     entry.getKey().partition(),
-                                     entry.getValue().offset());
-                    }
-                }
-                OffsetManager.store(offsetsEvents);
             } catch (WakeupException e) {
                 //nothing to do
             } finally {
+                offsetManager.close();
                 logger.info("Closing kafkaConsumer on the loop");
                 kafkaConsumer.close();
                 kafkaSecondaryConsumer.close();
@@ -262,10 +304,12 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
     protected void updateOnRunningConsumer(State state) {
         logger.info("updateOnRunning COnsumer");
         if (state.equals(State.LEADER) ) {
-            DroolsExecutor.setAsLeader();
+            consumerHandler.getExecutorContext().setAsLeader();
             restart(state);
         } else if (state.equals(State.REPLICA)) {
-            DroolsExecutor.setAsReplica();
+            heartbeatSender.stop();
+            consumerHandler.awaitControlMessages();
+            consumerHandler.getExecutorContext().setAsReplica();
             restart(state);
         }
     }
@@ -279,22 +323,64 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
     protected void enableConsumeAndStartLoop(State state) {
         if (state.equals(State.LEADER)) {
             currentState = State.LEADER;
-            DroolsExecutor.setAsLeader();
-
+            consumerHandler.getExecutorContext().setAsLeader();
+            resetReplicaLag();
+            heartbeatSender.start();
         } else if (state.equals(State.REPLICA) ) {
             currentState = State.REPLICA;
             kafkaSecondaryConsumer = new KafkaConsumer<>(Config.getConsumerConfig("SecondaryConsumer"));
-            DroolsExecutor.setAsReplica();
+            consumerHandler.getExecutorContext().setAsReplica();
+            heartbeatSender.stop();
+            startCatchUp();
         }
         setLastProcessedKey();
         assignAndStartConsume();
     }
 
     protected void setLastProcessedKey() {
+        OffsetManager.Checkpoint checkpoint = getResumableCheckpoint();
+        if (checkpoint != null) {
+            processingKey = checkpoint.getKey();
+            processingKeyOffset = checkpoint.getControlOffset();
+            controlEpoch = Math.max(controlEpoch, checkpoint.getControlEpoch());
+            if (logger.isInfoEnabled()) {
+                logger.info("Resuming from the local {}", checkpoint);
+            }
+            return;
+        }
         ControlMessage lastControlMessage = ConsumerUtils.getLastEvent(envConfig.getControlTopicName(), envConfig.getPollTimeout());
         settingsOnAEmptyControlTopic(lastControlMessage);
         processingKey = lastControlMessage.getId();
         processingKeyOffset = lastControlMessage.getOffset();
+        controlEpoch = Math.max(controlEpoch, lastControlMessage.getEpoch());
+    }
+
+    /**
+     * The local checkpoint can be used by a replica when it was written by a replica (the offset of the control
+     * message is known), it's not older than the snapshot the session was started from and the control topic
+     * still contains its control message
+     */
+    protected OffsetManager.Checkpoint getResumableCheckpoint() {
+        if (!currentState.equals(State.REPLICA) || !offsetManager.isEnabled()) {
+            return null;
+        }
+        OffsetManager.Checkpoint checkpoint = offsetManager.load();
+        if (checkpoint == null || checkpoint.getControlOffset() < 0 || checkpoint.getEventOffset() < getSnapshotOffset()) {
+            return null;
+        }
+        long controlEndOffset = 0;
+        for (Long endOffset : new ConsumerUtils().getOffsets(envConfig.getControlTopicName()).values()) {
+            controlEndOffset += endOffset;
+        }
+        return checkpoint.getControlOffset() < controlEndOffset ? checkpoint : null;
+    }
+
+    protected long getSnapshotOffset() {
+        if (snapshotEventOffset.isPresent()) {
+            return snapshotEventOffset.getAsLong();
+        }
+        SnapshotInfos infos = consumerHandler.getSnapshotInfos();
+        return infos != null ? infos.getOffsetDuringSnapshot() : -1;
     }
 
     protected void settingsOnAEmptyControlTopic(ControlMessage lastWrapper) {
@@ -307,11 +393,15 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
 
     protected void assignAndStartConsume() {
         assign();
+        HacepMetrics.bindEventsConsumer(kafkaConsumer);
         startConsume();
     }
 
     protected void consume() {
         if (started) {
+            if (pendingPromotion && isAlignedWithControl()) {
+                promoteToLeader();
+            }
             if (currentState.equals(State.LEADER)) {
                 defaultProcessAsLeader();
             } else {
@@ -320,6 +410,37 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
         }
     }
 
+    /**
+     * The replica is aligned when all the control messages have been applied
+     * and the event of the last one has been processed. The end of the control topic is the one
+     * read by the last lag refresh, not asked to the broker on every loop
+     */
+    protected boolean isAlignedWithControl() {
+        if (!polledTopic.equals(PolledTopic.CONTROL) || (controlBuffer != null && !controlBuffer.isEmpty())) {
+            return false;
+        }
+        refreshReplicaLag();
+        return controlEndOffset <= processingKeyOffset + 1;
+    }
+
+    /**
+     * Switches to leader at the current position of the events consumer: the events already polled
+     * and not processed as a replica are the first ones processed as the leader
+     */
+    protected void promoteToLeader() {
+        pendingPromotion = false;
+        catchingUp = false;
+        commitPendingOffsets();
+        currentState = State.LEADER;
+        consumerHandler.getExecutorContext().setAsLeader();
+        resetReplicaLag();
+        heartbeatSender.start();
+        pollEvents();
+        if (logger.isInfoEnabled()) {
+            logger.info("Promoted to leader after the event with key:{} offset:{}", processingKey, lastProcessedEventOffset);
+        }
+    }
+
     protected void defaultProcessAsLeader() {
         pollEvents();
         if (eventsBuffer != null && eventsBuffer.size() > 0) { // events previously readed and not processed
@@ -337,6 +458,14 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
 
     protected void processLeader(ConsumerRecord<String, T> record) {
 
+        if (record.offset() <= lastProcessedEventOffset && appliedControlKeys.containsKey(record.key())) {
+            // already applied as a replica, processing it again would publish its control message with the new epoch
+            if (logger.isInfoEnabled()) {
+                logger.info("Skipped the event with key:{} offset:{} already applied as a replica", record.key(), record.offset());
+            }
+            saveOffset(record, kafkaConsumer);
+            return;
+        }
         if (envConfig.isSkipOnDemandSnapshot()) {
             handleSnapshotBetweenIteration(record);
         } else {
@@ -344,6 +473,11 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
         }
         processingKey = record.key();// the new processed became the new processingKey
         saveOffset(record, kafkaConsumer);
+        HacepMetrics.recordEventProcessed(State.LEADER);
+        if (CommandHeaders.getKind(record.headers()) != CommandKind.HEARTBEAT) {
+            heartbeatSender.markActivity();
+        }
+        offsetManager.store(processingKey, record.offset(), -1, controlEpoch, getSnapshotOffset());
 
         if (logger.isInfoEnabled() || envConfig.isUnderTest()) {
             printer.prettyPrinter("DefaulImprovedKafkaConsumer.processLeader record:{}", record, true);
@@ -367,7 +501,24 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
         }
     }
 
+    protected void startCatchUp() {
+        catchingUp = envConfig.getCatchUpThreshold() > 0;
+    }
+
     protected void defaultProcessAsAReplica() {
+        refreshReplicaLag();
+        if (catchingUp && polledTopic.equals(PolledTopic.CONTROL) && (controlBuffer == null || controlBuffer.isEmpty())) {
+            // the lag refreshed at most once per LAG_REFRESH_MILLIS, a stale value only delays the switch by a batch
+            if (controlLag > envConfig.getCatchUpThreshold()) {
+                catchUpBatch();
+                return;
+            }
+            catchingUp = false;
+            commitPendingOffsets();
+            if (logger.isInfoEnabled()) {
+                logger.info("Replica within {} control records from the head, switching to live processing", envConfig.getCatchUpThreshold());
+            }
+        }
         if (polledTopic.equals(PolledTopic.EVENTS)) {
             if (eventsBuffer != null && eventsBuffer.size() > 0) { // events previously readed and not processed
                 consumeEventsFromBufferAsAReplica();
@@ -397,6 +548,65 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
         }
     }
 
+    /**
+     * Applies a whole batch of control records and then processes the events up to the last one,
+     * without going back to the main loop between the two topics and committing the offsets only at the end.
+     * When the events aren't available yet it goes back to the main loop, that goes on from the events topic
+     * and sees a role change or a pending promotion
+     */
+    protected void catchUpBatch() {
+        ConsumerRecords<String, T> records = kafkaSecondaryConsumer.poll(envConfig.getPollDuration());
+        if (records.isEmpty()) {
+            return;
+        }
+        for (ConsumerRecord<String, T> record : records) {
+            processControlAsAReplica(record);
+        }
+        while (polledTopic.equals(PolledTopic.EVENTS) && !exit && !pendingPromotion) {
+            if (eventsBuffer == null || eventsBuffer.isEmpty()) {
+                ConsumerRecords<String, T> events = kafkaConsumer.poll(envConfig.getPollDuration());
+                if (events.isEmpty()) {
+                    break;
+                }
+                ConsumerRecord<String, T> first = events.iterator().next();
+                eventsBuffer = events.records(new TopicPartition(first.topic(), first.partition()));
+            }
+            consumeEventsFromBufferAsAReplica();
+        }
+        commitPendingOffsets();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Catch up batch of {} control records applied, processingKey:{}", records.count(), processingKey);
+        }
+    }
+
+    /**
+     * Updates, at most once per LAG_REFRESH_MILLIS, the number of control messages published
+     * by the leader and not yet applied by this replica
+     */
+    protected void refreshReplicaLag() {
+        long now = System.currentTimeMillis();
+        if (now - lastLagRefresh < LAG_REFRESH_MILLIS) {
+            return;
+        }
+        lastLagRefresh = now;
+        long endOffset = 0;
+        for (Long offset : kafkaSecondaryConsumer.endOffsets(kafkaSecondaryConsumer.assignment()).values()) {
+            endOffset += offset;
+        }
+        long lag = Math.max(0, endOffset - (processingKeyOffset + 1));
+        controlEndOffset = endOffset;
+        controlLag = lag;
+        GlobalStatus.replicaLagOffsets = lag;
+        if (lag == 0) {
+            GlobalStatus.replicaLagMillis = 0;
+        }
+    }
+
+    protected void resetReplicaLag() {
+        GlobalStatus.replicaLagOffsets = 0;
+        GlobalStatus.replicaLagMillis = 0;
+    }
+
     protected void consumeEventsFromBufferAsAReplica() {
         if (envConfig.isUnderTest()) {
             loggerForTest.warn("consumeEventsFromBufferAsAReplica eventsBufferSize:{}", eventsBuffer.size());
@@ -427,8 +637,11 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
 
     protected void processEventsAsAReplica(ConsumerRecord<String, T> record) {
 
-        ItemToProcess item = ItemToProcess.getItemToProcess(record);
-        if (record.key().equals(processingKey)) {
+        // commands not executed by the replicas are recognized from the record headers, without deserializing them
+        boolean toProcess = CommandHeaders.isPermittedForReplicas(record.headers());
+        ItemToProcess item = toProcess ? ItemToProcess.getItemToProcess(record) : null;
+        boolean aligned = record.key().equals(processingKey);
+        if (aligned) {
             lastProcessedEventOffset = record.offset();
 
             pollControl();
@@ -436,15 +649,20 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
             if (logger.isDebugEnabled()) {
                 logger.debug("processEventsAsAReplica change topic, switch to consume control, still {} events in the eventsBuffer to consume and processing item:{}.", eventsBuffer.size(), item );
             }
-            consumerHandler.process(item, currentState);
-            saveOffset(record, kafkaConsumer);
-
         } else {
             if (logger.isDebugEnabled()) {
                 logger.debug("processEventsAsAReplica still {} events in the eventsBuffer to consume and processing item:{}.", eventsBuffer.size(), item );
             }
-            consumerHandler.process(ItemToProcess.getItemToProcess(record), currentState);
-            saveOffset(record, kafkaConsumer);
+        }
+        if (toProcess) {
+            consumerHandler.process(item, currentState);
+        } else if (envConfig.isUnderTest()) {
+            loggerForTest.warn("processEventsAsAReplica skipped key:{} kind:{}", record.key(), CommandHeaders.getKind(record.headers()));
+        }
+        saveOffset(record, kafkaConsumer);
+        HacepMetrics.recordEventProcessed(State.REPLICA);
+        if (aligned) {
+            offsetManager.store(processingKey, record.offset(), processingKeyOffset, controlEpoch, getSnapshotOffset());
         }
     }
 
@@ -452,9 +670,26 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
 
         if (record.offset() == processingKeyOffset + 1 || record.offset() == 0) {
             lastProcessedControlOffset = record.offset();
+            ControlMessage wr = deserialize((byte[]) record.value());
+            if (wr.getEpoch() < controlEpoch) {
+                // published by an old leader after the new one took over, it must be ignored
+                logger.warn("Rejected control message with key:{} epoch:{} lower than the current epoch:{}", record.key(), wr.getEpoch(), controlEpoch);
+                processingKeyOffset = record.offset();
+                saveOffset(record, kafkaSecondaryConsumer);
+                return;
+            }
+            if (wr.getEpoch() > controlEpoch && appliedControlKeys.containsKey(record.key())) {
+                // a new leader processed again a command already applied here, with side effects that can differ
+                GlobalStatus.nodeLive = false;
+                throw new IllegalStateException("Control message with key:" + record.key() + " offset:" + record.offset() +
+                                                        " republished with the epoch:" + wr.getEpoch() + " already applied with the epoch:" + controlEpoch +
+                                                        ", the replica must be restarted from a snapshot");
+            }
+            controlEpoch = wr.getEpoch();
+            appliedControlKeys.put(record.key(), Boolean.TRUE);
+            GlobalStatus.replicaLagMillis = System.currentTimeMillis() - (wr.getTimestamp() > 0 ? wr.getTimestamp() : record.timestamp());
             processingKey = record.key();
             processingKeyOffset = record.offset();
-            ControlMessage wr = deserialize((byte[]) record.value());
             consumerHandler.processSideEffectsOnReplica(wr.getSideEffects());
 
             pollEvents();
@@ -471,6 +706,11 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
 
     protected void saveOffset(ConsumerRecord<String, T> record,
                               Consumer<String, T> kafkaConsumer) {
+        if (catchingUp) {
+            pendingOffsets.computeIfAbsent(kafkaConsumer, k -> new HashMap<>())
+                    .put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+            return;
+        }
         Map<TopicPartition, OffsetAndMetadata> map = new HashMap<>();
         map.put(new TopicPartition(record.topic(),
                                    record.partition()),
@@ -478,6 +718,13 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
         kafkaConsumer.commitSync(map);
     }
 
+    protected void commitPendingOffsets() {
+        for (Map.Entry<Consumer<String, T>, Map<TopicPartition, OffsetAndMetadata>> entry : pendingOffsets.entrySet()) {
+            entry.getKey().commitSync(entry.getValue());
+        }
+        pendingOffsets.clear();
+    }
+
     protected void startConsume() {
         started = true;
     }
@@ -486,6 +733,10 @@ public class DefaultKafkaConsumer<T> implements EventConsumer {
         started = false;
     }
 
+    PolledTopic getPolledTopic() {
+        return polledTopic;
+    }
+
     protected void pollControl(){
         polledTopic = PolledTopic.CONTROL;
     }
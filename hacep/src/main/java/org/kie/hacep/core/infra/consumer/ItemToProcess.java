@@ -13,17 +13,28 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+
 package org.kie.hacep.core.infra.consumer;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.kie.remote.command.CommandKind;
+import org.kie.remote.command.RemoteCommand;
+import org.kie.remote.util.CommandCodec;
 
+/**
+ * A record of the events topic. When the payload carries the {@link CommandCodec} header
+ * the kind, the id and the replica permission of the command are read straight from the bytes,
+ * the command itself is deserialized only the first time it's requested.
+ */
 public class ItemToProcess implements Serializable {
 
     private String key;
     private Object object;
     private long offset;
+    private transient RemoteCommand command;
 
     public ItemToProcess(String key,
                          long offset,
@@ -45,15 +56,45 @@ public class ItemToProcess implements Serializable {
         return offset;
     }
 
+    public boolean hasHeader() {
+        return object instanceof byte[] && CommandCodec.hasHeader((byte[]) object);
+    }
+
+    /**
+     * Without the header the command must be deserialized to know it
+     */
+    public boolean isPermittedForReplicas() {
+        return hasHeader() ? CommandCodec.isPermittedForReplicas(buffer()) : getCommand().isPermittedForReplicas();
+    }
+
+    public CommandKind getCommandKind() {
+        return hasHeader() ? CommandCodec.getKind(buffer()) : CommandKind.of(getCommand());
+    }
+
+    public String getCommandId() {
+        return hasHeader() ? CommandCodec.getId(buffer()) : getCommand().getId();
+    }
+
+    public RemoteCommand getCommand() {
+        if (command == null) {
+            command = object instanceof RemoteCommand ? (RemoteCommand) object : CommandCodec.decode(buffer());
+        }
+        return command;
+    }
+
+    private ByteBuffer buffer() {
+        return ByteBuffer.wrap((byte[]) object);
+    }
+
     public static ItemToProcess getItemToProcess(ConsumerRecord record){
-        return new ItemToProcess(record.key().toString(), record.offset(), record.value());
+        return new ItemToProcess((String) record.key(), record.offset(), record.value());
     }
 
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("ItemToProcess{");
         sb.append("key='").append(key).append('\'');
-        sb.append(", object=").append(object);
+        sb.append(", object=").append(hasHeader() ? getCommandKind() : object);
         sb.append(", offset=").append(offset);
         sb.append('}');
         return sb.toString();
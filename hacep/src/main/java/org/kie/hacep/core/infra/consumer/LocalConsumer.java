@@ -18,7 +18,6 @@ package org.kie.hacep.core.infra.consumer;
 
 import org.kie.hacep.EnvConfig;
 import org.kie.hacep.core.infra.election.State;
-import org.kie.remote.DroolsExecutor;
 import org.kie.remote.command.RemoteCommand;
 import org.kie.remote.util.LocalMessageSystem;
 
@@ -61,9 +60,9 @@ public class LocalConsumer implements EventConsumer {
     public synchronized void updateStatus( State state ) {
         this.currentState = state;
         if (state == State.REPLICA) {
-            DroolsExecutor.setAsReplica();
+            consumerHandler.getExecutorContext().setAsReplica();
         } else {
-            DroolsExecutor.setAsLeader();
+            consumerHandler.getExecutorContext().setAsLeader();
         }
     }
 }
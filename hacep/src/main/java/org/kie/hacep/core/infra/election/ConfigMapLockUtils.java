@@ -38,6 +38,8 @@ public final class ConfigMapLockUtils {
 
     private static final String LOCAL_TIMESTAMP_PREFIX = "leader.local.timestamp.";
 
+    private static final String EPOCH_PREFIX = "leader.epoch.";
+
     private ConfigMapLockUtils() {
     }
 
@@ -55,6 +57,8 @@ public final class ConfigMapLockUtils {
                            leaderInfo.getLeader())
                 .addToData(LOCAL_TIMESTAMP_PREFIX + leaderInfo.getGroupName(),
                            formatDate(leaderInfo.getLocalTimestamp()))
+                .addToData(EPOCH_PREFIX + leaderInfo.getGroupName(),
+                           String.valueOf(leaderInfo.getEpoch()))
                 .build();
     }
 
@@ -65,6 +69,8 @@ public final class ConfigMapLockUtils {
                            leaderInfo.getLeader())
                 .addToData(LOCAL_TIMESTAMP_PREFIX + leaderInfo.getGroupName(),
                            formatDate(leaderInfo.getLocalTimestamp()))
+                .addToData(EPOCH_PREFIX + leaderInfo.getGroupName(),
+                           String.valueOf(leaderInfo.getEpoch()))
                 .build();
     }
 
@@ -76,7 +82,25 @@ public final class ConfigMapLockUtils {
                                         group),
                               getLocalTimestamp(configMap,
                                                 group),
-                              members);
+                              members,
+                              getEpoch(configMap,
+                                       group));
+    }
+
+    private static long getEpoch(ConfigMap configMap,
+                                 String group) {
+        String epoch = getConfigMapValue(configMap,
+                                         EPOCH_PREFIX + group);
+        if (epoch == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(epoch);
+        } catch (NumberFormatException e) {
+            logger.warn("Unable to parse epoch '" + epoch + "'",
+                        e);
+        }
+        return 0L;
     }
 
     private static String getLeader(ConfigMap configMap,
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core.infra.election;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.StickyAssignor;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.kie.hacep.Config;
+import org.kie.hacep.EnvConfig;
+import org.kie.hacep.core.GlobalStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Leader election without Kubernetes: all the pods join the same consumer group on a lease topic
+ * with a single partition, the member owning the partition is the leader.
+ * The new leader increments the epoch stored in the metadata of the committed offset of the lease partition,
+ * the commit is accepted by the group coordinator only from the current owner of the partition,
+ * so a pod expelled from the group can't write a new epoch. The leader renews its commit periodically
+ * and steps down as soon as the coordinator refuses it, or when it can't renew it for a whole session timeout,
+ * then it leaves the group for a session timeout so the lease is assigned to another member.
+ * The failover time follows the session timeout of the group.
+ */
+public class KafkaLeaderElection implements LeaderElection {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaLeaderElection.class);
+
+    private final EnvConfig envConfig;
+    private final TopicPartition leasePartition;
+    private final List<LeadershipCallback> callbacks = new CopyOnWriteArrayList<>();
+    private final long renewPeriodMillis;
+    private volatile boolean running;
+    private volatile boolean assignmentReceived;
+    private volatile boolean rebalancing;
+    private State currentState;
+    private long epoch;
+    private long lastRenew;
+    private long rejoinAt;
+    private Consumer<String, byte[]> consumer;
+    private Thread electionThread;
+
+    public KafkaLeaderElection(EnvConfig envConfig) {
+        this.envConfig = envConfig;
+        this.leasePartition = new TopicPartition(envConfig.getLeaderElectionTopicName(), 0);
+        this.renewPeriodMillis = Math.max(envConfig.getLeaderElectionSessionTimeout() / 3, 100);
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        createLeaseTopic();
+        running = true;
+        electionThread = new Thread(this::electionLoop, "kafka-leader-election");
+        electionThread.setDaemon(true);
+        electionThread.start();
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        running = false;
+        if (consumer != null) {
+            consumer.wakeup();
+        }
+        if (electionThread != null) {
+            electionThread.join(envConfig.getLeaderElectionSessionTimeout());
+            electionThread = null;
+        }
+    }
+
+    @Override
+    public void addCallbacks(List<LeadershipCallback> callbacks) {
+        this.callbacks.addAll(callbacks);
+    }
+
+    public State getCurrentState() {
+        return currentState;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    private void electionLoop() {
+        consumer = createConsumer(getConsumerProperties());
+        boolean subscribed = false;
+        try {
+            while (running) {
+                if (!subscribed) {
+                    if (GlobalStatus.canBecomeLeader && System.currentTimeMillis() >= rejoinAt) {
+                        assignmentReceived = false;
+                        consumer.subscribe(Collections.singletonList(leasePartition.topic()), new LeaseListener());
+                        subscribed = true;
+                    } else {
+                        // waiting the snapshot or after stepping down, the lease partition must be owned by someone else
+                        Thread.sleep(renewPeriodMillis);
+                        continue;
+                    }
+                }
+                consumer.poll(Duration.ofMillis(renewPeriodMillis));
+                subscribed = refreshStatus();
+            }
+        } catch (WakeupException | InterruptedException e) {
+            //nothing to do, we are stopping
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            GlobalStatus.nodeLive = false;
+        } finally {
+            consumer.close();
+            consumer = null;
+        }
+    }
+
+    /**
+     * @return false if the pod has left the group
+     */
+    private boolean refreshStatus() {
+        if (!assignmentReceived || rebalancing) {
+            return true;
+        }
+        boolean owner = consumer.assignment().contains(leasePartition);
+        if (owner && currentState != State.LEADER) {
+            if (!GlobalStatus.canBecomeLeader) {
+                logger.info("Pod is not initialized yet (waiting snapshot), leaving the lease to the other members");
+                consumer.unsubscribe();
+                return false;
+            }
+            if (acquireEpoch()) {
+                if (logger.isInfoEnabled()) {
+                    logger.info("Leadership acquired with epoch {}", epoch);
+                }
+                GlobalStatus.leaderEpoch = epoch;
+                updateStatus(State.LEADER);
+            }
+        } else if (owner) {
+            if (System.currentTimeMillis() - lastRenew >= renewPeriodMillis && !renew()) {
+                logger.warn("Leadership with epoch {} lost, leaving the lease to the other members", epoch);
+                updateStatus(State.REPLICA);
+                // still owning the partition it would acquire a new epoch on the next poll
+                consumer.unsubscribe();
+                rejoinAt = System.currentTimeMillis() + envConfig.getLeaderElectionSessionTimeout();
+                return false;
+            }
+        } else if (currentState != State.REPLICA) {
+            updateStatus(State.REPLICA);
+        }
+        return true;
+    }
+
+    private boolean acquireEpoch() {
+        try {
+            OffsetAndMetadata committed = consumer.committed(leasePartition);
+            long next = parseEpoch(committed) + 1;
+            commit(committed, next);
+            epoch = next;
+            return true;
+        } catch (CommitFailedException e) {
+            logger.warn("Unable to write the new epoch, the lease has been assigned to another member");
+            return false;
+        } catch (KafkaException e) {
+            logger.warn("Unable to write the new epoch: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean renew() {
+        try {
+            OffsetAndMetadata committed = consumer.committed(leasePartition);
+            if (parseEpoch(committed) > epoch) {
+                return false;
+            }
+            commit(committed, epoch);
+            return true;
+        } catch (CommitFailedException e) {
+            return false;
+        } catch (KafkaException e) {
+            // a transient error is tolerated only until the coordinator could have given the lease to another member
+            boolean withinSession = System.currentTimeMillis() - lastRenew < envConfig.getLeaderElectionSessionTimeout();
+            logger.warn("Unable to renew the lease{}: {}", withinSession ? "" : " within the session timeout, stepping down", e.getMessage());
+            return withinSession;
+        }
+    }
+
+    private void commit(OffsetAndMetadata committed, long epochToWrite) {
+        long offset = committed != null ? committed.offset() : 0L;
+        consumer.commitSync(Collections.singletonMap(leasePartition, new OffsetAndMetadata(offset, String.valueOf(epochToWrite))));
+        lastRenew = System.currentTimeMillis();
+    }
+
+    private long parseEpoch(OffsetAndMetadata committed) {
+        if (committed == null || committed.metadata() == null || committed.metadata().isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(committed.metadata());
+        } catch (NumberFormatException e) {
+            logger.warn("Unable to parse epoch '{}'", committed.metadata());
+            return 0L;
+        }
+    }
+
+    private void updateStatus(State state) {
+        currentState = state;
+        for (LeadershipCallback callback : callbacks) {
+            callback.updateStatus(state);
+        }
+    }
+
+    protected Consumer<String, byte[]> createConsumer(Properties properties) {
+        return new KafkaConsumer<>(properties);
+    }
+
+    private Properties getConsumerProperties() {
+        Properties properties = new Properties();
+        properties.putAll(Config.getConsumerConfig("KafkaLeaderElection"));
+        long sessionTimeout = envConfig.getLeaderElectionSessionTimeout();
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, envConfig.getNamespace() + "-leader-election");
+        properties.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, String.valueOf(sessionTimeout));
+        properties.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, String.valueOf(Math.max(sessionTimeout / 3, 100)));
+        properties.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, String.valueOf(Math.max(sessionTimeout, 10000)));
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        // the partition stays with its owner when the other members join
+        properties.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, StickyAssignor.class.getName());
+        return properties;
+    }
+
+    private void createLeaseTopic() {
+        Properties properties = new Properties();
+        properties.put(Config.BOOTSTRAP_SERVERS_KEY, Config.getConsumerConfig("KafkaLeaderElection").get(Config.BOOTSTRAP_SERVERS_KEY));
+        try (AdminClient adminClient = AdminClient.create(properties)) {
+            short replicationFactor = (short) Math.min(3, adminClient.describeCluster().nodes().get().size());
+            adminClient.createTopics(Collections.singletonList(new NewTopic(leasePartition.topic(), 1, replicationFactor))).all().get();
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof TopicExistsException)) {
+                logger.warn("Unable to create the lease topic {}: {}", leasePartition.topic(), e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class LeaseListener implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // the state is checked after the new assignment, the lease usually comes back to its owner
+            rebalancing = true;
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            assignmentReceived = true;
+            rebalancing = false;
+        }
+    }
+}
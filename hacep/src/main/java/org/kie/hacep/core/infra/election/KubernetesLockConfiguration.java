@@ -79,6 +79,23 @@ public class KubernetesLockConfiguration implements Cloneable {
      */
     private long retryPeriodMillis = DEFAULT_RETRY_PERIOD_MILLIS;
 
+    /**
+     * When enabled the pod acquiring the lock becomes leader immediately, without waiting the lease duration:
+     * the outputs of an old leader are fenced by the epoch written in the ConfigMap.
+     */
+    private boolean fastHandover;
+
+    /**
+     * Watches the lock ConfigMap and the cluster members to react to their changes without waiting the retry period.
+     */
+    private boolean watchEnabled = true;
+
+    /**
+     * Milliseconds waited, for each control message not yet applied, before trying to acquire a free lock,
+     * so the replica closest to the old leader acquires it first.
+     */
+    private long lagBackoffMillis;
+
     public KubernetesLockConfiguration(String namespace) {
         configMapName = namespace + "-"+ DEFAULT_CONFIGMAP_NAME;
     }
@@ -168,6 +185,30 @@ public class KubernetesLockConfiguration implements Cloneable {
         this.retryPeriodMillis = retryPeriodMillis;
     }
 
+    public boolean isFastHandover() {
+        return fastHandover;
+    }
+
+    public void setFastHandover(boolean fastHandover) {
+        this.fastHandover = fastHandover;
+    }
+
+    public long getLagBackoffMillis() {
+        return lagBackoffMillis;
+    }
+
+    public void setLagBackoffMillis(long lagBackoffMillis) {
+        this.lagBackoffMillis = lagBackoffMillis;
+    }
+
+    public boolean isWatchEnabled() {
+        return watchEnabled;
+    }
+
+    public void setWatchEnabled(boolean watchEnabled) {
+        this.watchEnabled = watchEnabled;
+    }
+
     public KubernetesLockConfiguration copy() {
         try {
             KubernetesLockConfiguration copy = (KubernetesLockConfiguration) this.clone();
@@ -190,6 +231,9 @@ public class KubernetesLockConfiguration implements Cloneable {
         sb.append(", leaseDurationMillis=").append(leaseDurationMillis);
         sb.append(", renewDeadlineMillis=").append(renewDeadlineMillis);
         sb.append(", retryPeriodMillis=").append(retryPeriodMillis);
+        sb.append(", fastHandover=").append(fastHandover);
+        sb.append(", watchEnabled=").append(watchEnabled);
+        sb.append(", lagBackoffMillis=").append(lagBackoffMillis);
         sb.append('}');
         return sb.toString();
     }
@@ -23,12 +23,16 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
 import org.kie.hacep.core.GlobalStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +41,8 @@ import org.slf4j.LoggerFactory;
  * from from org.apache.camel.component.kubernetes.cluster.lock
  * Monitors current status and participate to leader election when no active leaders are present.
  * It communicates changes in leadership and cluster members to the given event handler.
+ * When the watches are enabled every change of the lock ConfigMap or of the cluster members triggers
+ * an immediate refresh, the periodic refresh remains as fallback.
  */
 public class LeaderElectionImpl implements LeaderElection {
 
@@ -49,6 +55,9 @@ public class LeaderElectionImpl implements LeaderElection {
     private volatile ConfigMap latestConfigMap;
     private volatile Set<String> latestMembers;
     private List<LeadershipCallback> callbacks;
+    private volatile Watch configMapWatch;
+    private volatile Watch membersWatch;
+    private ScheduledFuture<?> nextRefresh;
 
     public LeaderElectionImpl(KubernetesClient kubernetesClient, KubernetesLockConfiguration lockConfiguration, State initialState) {
         this.kubernetesClient = kubernetesClient;
@@ -73,6 +82,7 @@ public class LeaderElectionImpl implements LeaderElection {
             serializedExecutor.shutdownNow();
         }
         serializedExecutor = null;
+        closeWatches();
     }
 
     @Override
@@ -81,6 +91,9 @@ public class LeaderElectionImpl implements LeaderElection {
     }
 
     private void refreshStatus() {
+        if (this.lockConfiguration.isWatchEnabled()) {
+            startWatches();
+        }
         switch (currentState) {
             case REPLICA:
                 refreshStatusNotLeader();
@@ -119,14 +132,17 @@ public class LeaderElectionImpl implements LeaderElection {
                 logger.info("{} The cluster has no leaders. Trying to acquire the leadership...",
                             logPrefix());
             }
+            if (!waitLagBackoff()) {
+                rescheduleAfterDelay();
+                return;
+            }
             boolean acquired = tryAcquireLeadership();
             if (acquired) {
                 if (logger.isInfoEnabled()) {
                     logger.info("{} Leadership acquired by current pod with immediate effect",
                                 logPrefix());
                 }
-                this.currentState = State.LEADER;
-                this.serializedExecutor.execute(this::refreshStatus);
+                becomeLeader();
                 return;
             } else {
                 if (logger.isInfoEnabled()) {
@@ -144,6 +160,10 @@ public class LeaderElectionImpl implements LeaderElection {
             // There's a previous leader and it's invalid
             logger.info("{} Leadership has been lost by old owner. Trying to acquire the leadership...",
                         logPrefix());
+            if (!waitLagBackoff()) {
+                rescheduleAfterDelay();
+                return;
+            }
             boolean acquired = tryAcquireLeadership();
             if (acquired) {
                 if (logger.isInfoEnabled()) {
@@ -165,19 +185,58 @@ public class LeaderElectionImpl implements LeaderElection {
                 logger.info("{} Leadership is already owned by current pod",
                             logPrefix());
             }
-            this.currentState = State.BECOMING_LEADER;
-            this.serializedExecutor.execute(this::refreshStatus);
-            return;
+            // a previous run with the same pod name may still be publishing, it's fenced by a new epoch
+            if (renewLeadershipEpoch()) {
+                this.currentState = State.BECOMING_LEADER;
+                this.serializedExecutor.execute(this::refreshStatus);
+                return;
+            }
         }
 
         rescheduleAfterDelay();
     }
 
+    /**
+     * A lagging replica waits proportionally to the control messages it still has to apply before competing
+     * for the lock, so the least lagging replica has the best chance to acquire it.
+     * @return false if in the meantime the leadership has been acquired by another pod
+     */
+    private boolean waitLagBackoff() {
+        long delay = Math.min(GlobalStatus.replicaLagOffsets * this.lockConfiguration.getLagBackoffMillis(),
+                              this.lockConfiguration.getLeaseDurationMillis() / 2);
+        if (delay <= 0) {
+            return true;
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("{} Replica lagging of {} control messages, waiting {} ms before trying to acquire the leadership",
+                        logPrefix(),
+                        GlobalStatus.replicaLagOffsets,
+                        delay);
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            logger.warn("Thread interrupted",
+                        e);
+        }
+        return lookupNewLeaderInfo() && !this.latestLeaderInfo.hasValidLeader();
+    }
+
     /**
      * This pod has acquired the leadership but it should wait for the old leader
      * to tear down resources before starting the local services.
      */
     private void refreshStatusBecomingLeader() {
+        if (this.lockConfiguration.isFastHandover()) {
+            // The outputs of a possible old leader still alive are rejected thanks to the new epoch
+            if (logger.isInfoEnabled()) {
+                logger.info("{} Current pod is becoming the new LEADER now with epoch {}...",
+                            logPrefix(),
+                            this.latestLeaderInfo.getEpoch());
+            }
+            becomeLeader();
+            return;
+        }
         // Wait always the same amount of time before becoming the leader
         // Even if the current pod is already leader, we should let a possible old version of the pod to shut down
         long delay = this.lockConfiguration.getLeaseDurationMillis();
@@ -198,6 +257,11 @@ public class LeaderElectionImpl implements LeaderElection {
             logger.info("{} Current pod is becoming the new LEADER now...",
                         logPrefix());
         }
+        becomeLeader();
+    }
+
+    private void becomeLeader() {
+        GlobalStatus.leaderEpoch = this.latestLeaderInfo.getEpoch();
         this.currentState = State.LEADER;
         this.serializedExecutor.execute(this::refreshStatus);
     }
@@ -232,10 +296,61 @@ public class LeaderElectionImpl implements LeaderElection {
     }
 
     private void rescheduleAfterDelay() {
-        this.serializedExecutor.schedule(this::refreshStatus,
-                                         jitter(this.lockConfiguration.getRetryPeriodMillis(),
-                                                this.lockConfiguration.getJitterFactor()),
-                                         TimeUnit.MILLISECONDS);
+        this.nextRefresh = this.serializedExecutor.schedule(this::refreshStatus,
+                                                            jitter(this.lockConfiguration.getRetryPeriodMillis(),
+                                                                   this.lockConfiguration.getJitterFactor()),
+                                                            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Anticipates the scheduled refresh, the events arriving while a refresh is already running
+     * or while becoming leader are coalesced in it.
+     */
+    private void refreshNow() {
+        ScheduledExecutorService executor = this.serializedExecutor;
+        if (executor == null || executor.isShutdown()) {
+            return;
+        }
+        executor.execute(() -> {
+            ScheduledFuture<?> scheduled = this.nextRefresh;
+            if (scheduled != null && scheduled.cancel(false)) {
+                this.nextRefresh = null;
+                refreshStatus();
+            }
+        });
+    }
+
+    private void startWatches() {
+        String namespace = this.lockConfiguration.getKubernetesResourcesNamespaceOrDefault(kubernetesClient);
+        try {
+            if (configMapWatch == null) {
+                configMapWatch = kubernetesClient.configMaps()
+                        .inNamespace(namespace)
+                        .withName(this.lockConfiguration.getConfigMapName())
+                        .watch(new RefreshWatcher<>("ConfigMap"));
+            }
+            if (membersWatch == null) {
+                membersWatch = kubernetesClient.pods()
+                        .inNamespace(namespace)
+                        .withLabels(this.lockConfiguration.getClusterLabels())
+                        .watch(new RefreshWatcher<>("Pods"));
+            }
+        } catch (Exception e) {
+            logger.warn(logPrefix() + " Unable to watch the cluster, polling every " + this.lockConfiguration.getRetryPeriodMillis() + " ms");
+            logger.debug(logPrefix() + " Exception thrown opening the watches",
+                         e);
+        }
+    }
+
+    private void closeWatches() {
+        if (configMapWatch != null) {
+            configMapWatch.close();
+            configMapWatch = null;
+        }
+        if (membersWatch != null) {
+            membersWatch.close();
+            membersWatch = null;
+        }
     }
 
     private boolean lookupNewLeaderInfo() {
@@ -291,11 +406,12 @@ public class LeaderElectionImpl implements LeaderElection {
             return false;
         }
 
-        // Info we would set set in the configmap to become leaders
+        // Info we would set set in the configmap to become leaders, with the next fencing epoch
         LeaderInfo newLeaderInfo = new LeaderInfo(this.lockConfiguration.getGroupName(),
                                                   this.lockConfiguration.getPodName(),
                                                   new Date(),
-                                                  members);
+                                                  members,
+                                                  latestLeaderInfo.getEpoch() + 1);
 
         if (configMap == null) {
             // No ConfigMap created so far
@@ -373,6 +489,37 @@ public class LeaderElectionImpl implements LeaderElection {
         }
     }
 
+    /**
+     * Writes again the lock owned by the current pod with the next fencing epoch
+     * @return false if the lock has been changed in the meantime
+     */
+    private boolean renewLeadershipEpoch() {
+        ConfigMap configMap = this.latestConfigMap;
+        Set<String> members = this.latestMembers;
+        LeaderInfo newLeaderInfo = new LeaderInfo(this.lockConfiguration.getGroupName(),
+                                                  this.lockConfiguration.getPodName(),
+                                                  new Date(),
+                                                  members,
+                                                  this.latestLeaderInfo.getEpoch() + 1);
+        try {
+            ConfigMap updatedConfigMap = ConfigMapLockUtils.getConfigMapWithNewLeader(configMap,
+                                                                                      newLeaderInfo);
+            kubernetesClient.configMaps()
+                    .inNamespace(this.lockConfiguration.getKubernetesResourcesNamespaceOrDefault(kubernetesClient))
+                    .withName(this.lockConfiguration.getConfigMapName())
+                    .lockResourceVersion(configMap.getMetadata().getResourceVersion())
+                    .replace(updatedConfigMap);
+            updateLatestLeaderInfo(updatedConfigMap,
+                                   members);
+            return true;
+        } catch (Exception ex) {
+            logger.warn(logPrefix() + " Unable to update the lock ConfigMap with the new epoch");
+            logger.debug(logPrefix() + " Error received during configmap lock replace",
+                         ex);
+            return false;
+        }
+    }
+
     private void updateLatestLeaderInfo(ConfigMap configMap,
                                         Set<String> members) {
         logger.debug("{} Updating internal status about the current leader",
@@ -411,5 +558,35 @@ public class LeaderElectionImpl implements LeaderElection {
     private String logPrefix() {
         return "Pod[" + this.lockConfiguration.getPodName() + "]";
     }
+
+    private class RefreshWatcher<T> implements Watcher<T> {
+
+        private final String resource;
+
+        RefreshWatcher(String resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public void eventReceived(Action action, T t) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} {} {}, refreshing the status", logPrefix(), resource, action);
+            }
+            refreshNow();
+        }
+
+        @Override
+        public void onClose(KubernetesClientException cause) {
+            if (cause != null) {
+                logger.warn("{} Watch on {} closed, it will be reopened on the next refresh: {}", logPrefix(), resource, cause.getMessage());
+            }
+            // reopened by the next refresh
+            if ("ConfigMap".equals(resource)) {
+                configMapWatch = null;
+            } else {
+                membersWatch = null;
+            }
+        }
+    }
 }
 
@@ -32,6 +32,8 @@ public class LeaderInfo {
 
     private Set<String> members;
 
+    private long epoch;
+
     public LeaderInfo() {
     }
 
@@ -45,6 +47,15 @@ public class LeaderInfo {
         this.members = members;
     }
 
+    public LeaderInfo(String groupName,
+                      String leader,
+                      Date timestamp,
+                      Set<String> members,
+                      long epoch) {
+        this(groupName, leader, timestamp, members);
+        this.epoch = epoch;
+    }
+
     public boolean hasEmptyLeader() {
         return this.leader == null;
     }
@@ -92,6 +103,17 @@ public class LeaderInfo {
         this.members = members;
     }
 
+    /**
+     * Fencing epoch of the leadership, incremented by every pod acquiring the lock.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(long epoch) {
+        this.epoch = epoch;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("LeaderInfo{");
@@ -99,6 +121,7 @@ public class LeaderInfo {
         sb.append(", leader='").append(leader).append('\'');
         sb.append(", localTimestamp=").append(localTimestamp);
         sb.append(", members=").append(members);
+        sb.append(", epoch=").append(epoch);
         sb.append('}');
         return sb.toString();
     }
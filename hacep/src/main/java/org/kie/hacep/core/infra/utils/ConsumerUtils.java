@@ -18,7 +18,6 @@ package org.kie.hacep.core.infra.utils;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -32,6 +31,7 @@ import org.apache.kafka.common.TopicPartition;
 import org.kie.remote.RemoteFactHandle;
 import org.kie.hacep.Config;
 import org.kie.hacep.EnvConfig;
+import org.kie.hacep.core.infra.KafkaClients;
 import org.kie.remote.message.ControlMessage;
 import org.kie.remote.message.FactCountMessage;
 import org.slf4j.Logger;
@@ -44,71 +44,79 @@ public class ConsumerUtils {
     private static Logger logger = LoggerFactory.getLogger(ConsumerUtils.class);
 
     public static ControlMessage getLastEvent( String topic, Integer pollTimeout) {
-        return getLastEvent(topic, Config.getConsumerConfig("LastEventConsumer"), pollTimeout);
+        List<TopicPartition> partitions = KafkaClients.getPartitions(topic);
+        return KafkaClients.withOffsetConsumer(consumer -> getLastEvent(consumer, partitions, pollTimeout));
     }
 
     public Map<TopicPartition, Long> getOffsets(String topic) {
-        KafkaConsumer consumer = new KafkaConsumer(Config.getConsumerConfig("OffsetConsumer"));
-        consumer.subscribe(Arrays.asList(topic));
-        List<PartitionInfo> infos = consumer.partitionsFor(topic);
-        List<TopicPartition> tps = new ArrayList<>();
-        for (PartitionInfo info : infos) {
-            tps.add(new TopicPartition(topic, info.partition()));
-        }
-        Map<TopicPartition, Long> offsets = consumer.endOffsets(tps);
-        consumer.close();
-        return offsets;
+        return KafkaClients.getEndOffsets(topic);
     }
 
     public static ControlMessage getLastEvent( String topic, Properties properties, Integer pollTimeout) {
-        KafkaConsumer consumer = new KafkaConsumer(properties);
-        List<PartitionInfo> infos = consumer.partitionsFor(topic);
-        List<TopicPartition> partitions = new ArrayList<>();
-        if (infos != null) {
-            for (PartitionInfo partition : infos) {
-                partitions.add(new TopicPartition(topic, partition.partition()));
-            }
+        KafkaConsumer<String, byte[]> consumer = new KafkaConsumer(properties);
+        try {
+            return getLastEvent(consumer, getPartitions(consumer, topic), pollTimeout);
+        } finally {
+            consumer.close();
         }
-        consumer.assign(partitions);
+    }
 
-        Map<TopicPartition, Long> offsets = consumer.endOffsets(partitions);
-        Long lastOffset = 0l;
-        for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
-            lastOffset = entry.getValue();
-        }
-        if(lastOffset == 0){
-            lastOffset = 1l;// this is to start the seek with offset -1 on empty topic
-        }
-        Set<TopicPartition> assignments = consumer.assignment();
-        for (TopicPartition part : assignments) {
-            consumer.seek(part, lastOffset - 1);
+    public static FactCountMessage getFactCount(RemoteFactHandle factHandle, EnvConfig config) {
+        List<TopicPartition> partitions = KafkaClients.getPartitions(config.getKieSessionInfosTopicName());
+        return KafkaClients.withOffsetConsumer(consumer -> getFactCount(consumer, partitions, factHandle));
+    }
+
+    public static FactCountMessage getFactCount(RemoteFactHandle factHandle, EnvConfig config, Properties properties) {
+        KafkaConsumer<String, byte[]> consumer = new KafkaConsumer(properties);
+        try {
+            return getFactCount(consumer, getPartitions(consumer, config.getKieSessionInfosTopicName()), factHandle);
+        } finally {
+            consumer.close();
         }
+    }
 
+    private static ControlMessage getLastEvent(KafkaConsumer<String, byte[]> consumer, List<TopicPartition> partitions, Integer pollTimeout) {
         ControlMessage lastMessage = new ControlMessage();
         try {
-            ConsumerRecords records = consumer.poll(Duration.of(pollTimeout, ChronoUnit.MILLIS));
-            for (Object item : records) {
-                ConsumerRecord<String, byte[]> record = (ConsumerRecord<String, byte[]>) item;
+            ConsumerRecords<String, byte[]> records = pollLastRecord(consumer, partitions, pollTimeout);
+            for (ConsumerRecord<String, byte[]> record : records) {
                 lastMessage = deserialize(record.value());
             }
         } catch (Exception ex) {
             logger.error(ex.getMessage(),
                          ex);
-        } finally {
-            consumer.close();
         }
         return lastMessage;
     }
 
-    public static FactCountMessage getFactCount(RemoteFactHandle factHandle, EnvConfig config, Properties properties) {
-        KafkaConsumer consumer = new KafkaConsumer(properties);
-        List<PartitionInfo> infos = consumer.partitionsFor(config.getKieSessionInfosTopicName());
+    private static FactCountMessage getFactCount(KafkaConsumer<String, byte[]> consumer, List<TopicPartition> partitions, RemoteFactHandle factHandle) {
+        FactCountMessage lastMessage = new FactCountMessage();
+        try {
+            ConsumerRecords<String, byte[]> records = pollLastRecord(consumer, partitions, Config.DEFAULT_POLL_TIMEOUT);
+            for (ConsumerRecord<String, byte[]> record : records) {
+                if(record.key().equals(factHandle.getId())) {
+                    lastMessage = deserialize(record.value());
+                    break;
+                }
+            }
+        } catch (Exception ex) {
+            logger.error(ex.getMessage(), ex);
+        }
+        return lastMessage;
+    }
+
+    private static List<TopicPartition> getPartitions(KafkaConsumer<String, byte[]> consumer, String topic) {
+        List<PartitionInfo> infos = consumer.partitionsFor(topic);
         List<TopicPartition> partitions = new ArrayList<>();
         if (infos != null) {
             for (PartitionInfo partition : infos) {
-                partitions.add(new TopicPartition(config.getKieSessionInfosTopicName(), partition.partition()));
+                partitions.add(new TopicPartition(topic, partition.partition()));
             }
         }
+        return partitions;
+    }
+
+    private static ConsumerRecords<String, byte[]> pollLastRecord(KafkaConsumer<String, byte[]> consumer, List<TopicPartition> partitions, long pollTimeout) {
         consumer.assign(partitions);
 
         Map<TopicPartition, Long> offsets = consumer.endOffsets(partitions);
@@ -123,23 +131,7 @@ public class ConsumerUtils {
         for (TopicPartition part : assignments) {
             consumer.seek(part, lastOffset - 1);
         }
-
-        FactCountMessage lastMessage = new FactCountMessage();
-        try {
-            ConsumerRecords records = consumer.poll(Duration.of(Config.DEFAULT_POLL_TIMEOUT, ChronoUnit.MILLIS));
-            for (Object item : records) {
-                ConsumerRecord<String, byte[]> record = (ConsumerRecord<String, byte[]>) item;
-                if(record.key().equals(factHandle.getId())) {
-                    lastMessage = deserialize(record.value());
-                    break;
-                }
-            }
-        } catch (Exception ex) {
-            logger.error(ex.getMessage(), ex);
-        } finally {
-            consumer.close();
-        }
-        return lastMessage;
+        return consumer.poll(Duration.of(pollTimeout, ChronoUnit.MILLIS));
     }
 
 }
@@ -18,15 +18,12 @@ package org.kie.hacep.core.infra.utils;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Properties;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.kie.api.KieServices;
 import org.kie.api.runtime.KieContainer;
@@ -38,6 +35,8 @@ import org.kie.hacep.EnvConfig;
 
 import org.kie.hacep.consumer.KieContainerUtils;
 import org.kie.hacep.core.GlobalStatus;
+import org.kie.hacep.core.infra.KafkaClients;
+import org.kie.hacep.core.infra.LocalSnapshotCache;
 import org.kie.hacep.core.infra.SessionSnapshooter;
 import org.kie.hacep.core.infra.SnapshotInfos;
 import org.kie.hacep.message.SnapshotMessage;
@@ -74,7 +73,7 @@ public class SnapshotOnDemandUtils {
         KieContainer kieContainer = null;
         try (ByteArrayInputStream in = new ByteArrayInputStream(snapshotMsg.getSerializedSession())) {
             KieServices ks = KieServices.get();
-            kieContainer = KieContainerUtils.getKieContainer(envConfig, ks);
+            kieContainer = KieContainerUtils.getKieContainer(envConfig, ks, snapshotMsg.getKjarGAV());
             KieSessionConfiguration conf = ks.newKieSessionConfiguration();
             conf.setOption(ClockTypeOption.get("pseudo"));
             kSession = ks.getMarshallers().newMarshaller(kieContainer.getKieBase()).unmarshall(in, conf,null);
@@ -84,10 +83,11 @@ public class SnapshotOnDemandUtils {
         return new SnapshotInfos(kSession,
                                  kieContainer,
                                  snapshotMsg.getFhManager(),
+                                 snapshotMsg.getLiveQueries(),
                                  snapshotMsg.getLastInsertedEventkey(),
                                  snapshotMsg.getLastInsertedEventOffset(),
                                  snapshotMsg.getTime(),
-                                 snapshotMsg.getKjarGAV());
+                                 snapshotMsg.getKjarGAV()).withWatermark(snapshotMsg.getWatermark());
     }
 
     private static SnapshotMessage askAndReadSnapshotOnDemand(EnvConfig envConfig, LocalDateTime limitAge) {
@@ -97,59 +97,38 @@ public class SnapshotOnDemandUtils {
         sender.sendCommand(new SnapshotOnDemandCommand(),
                            TopicsConfig.getDefaultTopicsConfig().getEventsTopicName());
         sender.stop();
-        KafkaConsumer consumer = getConfiguredSnapshotConsumer(envConfig);
-        boolean snapshotReady = false;
-        SnapshotMessage msg = null;
         try {
             GlobalStatus.canBecomeLeader = false;
-            int counter = 0;
-            while (!snapshotReady) {
-                ConsumerRecords<String, byte[]> records = consumer.poll(envConfig.getPollSnapshotDuration());
-                byte[] bytes = null;
-                for (ConsumerRecord record : records) {
-                    bytes = (byte[]) record.value();
-                }
-                SnapshotMessage snapshotMsg = bytes != null ? SerializationUtil.deserialize(bytes) : null;
-                if (snapshotMsg != null && limitAge.isBefore(snapshotMsg.getTime())) {
-                    snapshotReady = true;
-                    msg = snapshotMsg;
-                }
-                else {
-                    // use a counter to avoid infinite attempts
-                    counter += 1;
-                    if(counter > envConfig.getMaxSnapshotRequestAttempts()) {
-                        GlobalStatus.nodeLive = false;
-                        String errorMessage = "Impossible to retrieve a snapshot and start after " + counter + " attempts";
-                        logger.error(errorMessage);
-                        throw new IllegalStateException(errorMessage);
-                    }
-                }
-            }
+            return KafkaClients.withSnapshotConsumer(consumer -> waitSnapshotOnDemand(envConfig, limitAge, consumer));
         } finally {
-            consumer.close();
             GlobalStatus.canBecomeLeader = true;
         }
-        return msg;
     }
 
-    private static KafkaConsumer getConfiguredSnapshotConsumer(EnvConfig envConfig) {
-        KafkaConsumer<String, byte[]> consumer = new KafkaConsumer(Config.getSnapshotConsumerConfig());
-        List<PartitionInfo> partitionsInfo = consumer.partitionsFor(envConfig.getSnapshotTopicName());
-        List<TopicPartition> partitions = null;
-        Collection<TopicPartition> partitionCollection = new ArrayList<>();
-
-        if (partitionsInfo != null) {
-            for (PartitionInfo partition : partitionsInfo) {
-                TopicPartition topicPartition = new TopicPartition(partition.topic(), partition.partition());
-                if (partitions == null || partitions.contains(topicPartition)) {
-                    partitionCollection.add(topicPartition);
-                }
+    private static SnapshotMessage waitSnapshotOnDemand(EnvConfig envConfig, LocalDateTime limitAge, KafkaConsumer<String, byte[]> consumer) {
+        List<TopicPartition> partitions = KafkaClients.getPartitions(envConfig.getSnapshotTopicName());
+        consumer.assign(partitions);
+        consumer.seekToBeginning(partitions);
+        int counter = 0;
+        while (true) {
+            ConsumerRecords<String, byte[]> records = consumer.poll(envConfig.getPollSnapshotDuration());
+            ConsumerRecord<String, byte[]> last = null;
+            for (ConsumerRecord<String, byte[]> record : records) {
+                last = record;
+            }
+            SnapshotMessage snapshotMsg = last != null ? SerializationUtil.deserialize(last.value()) : null;
+            if (snapshotMsg != null && limitAge.isBefore(snapshotMsg.getTime())) {
+                new LocalSnapshotCache(envConfig).store(last.value(), last.offset(), last.timestamp(), snapshotMsg);
+                return snapshotMsg;
             }
-            if (!partitionCollection.isEmpty()) {
-                consumer.assign(partitionCollection);
+            // use a counter to avoid infinite attempts
+            counter += 1;
+            if(counter > envConfig.getMaxSnapshotRequestAttempts()) {
+                GlobalStatus.nodeLive = false;
+                String errorMessage = "Impossible to retrieve a snapshot and start after " + counter + " attempts";
+                logger.error(errorMessage);
+                throw new IllegalStateException(errorMessage);
             }
         }
-        consumer.assignment().forEach(topicPartition -> consumer.seekToBeginning(partitionCollection));
-        return consumer;
     }
 }
@@ -19,9 +19,12 @@ package org.kie.hacep.message;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
+import org.kie.hacep.consumer.EventWatermark;
 import org.kie.hacep.consumer.FactHandlesManager;
+import org.kie.hacep.consumer.LiveQueryDefinition;
 import org.kie.remote.RemoteFactHandle;
 import org.kie.remote.message.AbstractMessage;
 
@@ -33,6 +36,8 @@ public class SnapshotMessage extends AbstractMessage implements Serializable {
     private long lastInsertedEventOffset;
     private LocalDateTime time;
     private String kjarGAV;
+    private List<LiveQueryDefinition> liveQueries;
+    private EventWatermark watermark;
 
     /* Empty constructor for serialization */
     public SnapshotMessage() {
@@ -42,12 +47,14 @@ public class SnapshotMessage extends AbstractMessage implements Serializable {
                            String kjarGAV,
                            byte[] serializedSession,
                            FactHandlesManager fhManager,
+                           List<LiveQueryDefinition> liveQueries,
                            String lastInsertedEventkey,
                            long lastInsertedEventOffset,
                            LocalDateTime time) {
         super(id);
         this.serializedSession = serializedSession;
         this.fhManager = fhManager;
+        this.liveQueries = liveQueries;
         this.lastInsertedEventkey = lastInsertedEventkey;
         this.lastInsertedEventOffset = lastInsertedEventOffset;
         this.time = time;
@@ -70,6 +77,10 @@ public class SnapshotMessage extends AbstractMessage implements Serializable {
         return fhManager.getFhMapKeys();
     }
 
+    public List<LiveQueryDefinition> getLiveQueries() {
+        return liveQueries;
+    }
+
     public String getLastInsertedEventkey() {
         return lastInsertedEventkey;
     }
@@ -94,11 +105,20 @@ public class SnapshotMessage extends AbstractMessage implements Serializable {
         return kjarGAV;
     }
 
+    public EventWatermark getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(EventWatermark watermark) {
+        this.watermark = watermark;
+    }
+
     @Override
     public String toString() {
         return "SnapshotMessage{" +
                 "serializedSession=" + Arrays.toString(serializedSession) +
                 ", fhManager=" + fhManager +
+                ", liveQueries=" + liveQueries +
                 ", lastInsertedEventkey='" + lastInsertedEventkey + '\'' +
                 ", lastInsertedEventOffset=" + lastInsertedEventOffset +
                 ", time=" + time +
@@ -29,5 +29,9 @@ public class GAVUtils {
         return gav.split(":");
     }
 
+    public static String getGAV(ReleaseId releaseId){
+        return releaseId.getGroupId() + ":" + releaseId.getArtifactId() + ":" + releaseId.getVersion();
+    }
+
 
 }
@@ -15,16 +15,11 @@
  */
 package org.kie.hacep.util;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
-import org.kie.hacep.Config;
+import org.kie.hacep.core.infra.KafkaClients;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,16 +44,7 @@ public class PrinterLogImpl implements Printer {
 
 
     public Map<TopicPartition, Long> getOffsets(String topic) {
-        KafkaConsumer consumer = new KafkaConsumer(Config.getConsumerConfig("OffsetConsumer"));
-        consumer.subscribe(Arrays.asList(topic));
-        List<PartitionInfo> infos = consumer.partitionsFor(topic);
-        List<TopicPartition> tps = new ArrayList<>();
-        for (PartitionInfo info : infos) {
-            tps.add(new TopicPartition(topic, info.partition()));
-        }
-        Map<TopicPartition, Long> offsets = consumer.endOffsets(tps);
-        consumer.close();
-        return offsets;
+        return KafkaClients.getEndOffsets(topic);
     }
 
 }
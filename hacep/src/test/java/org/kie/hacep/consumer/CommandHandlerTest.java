@@ -56,6 +56,8 @@ import org.kie.remote.command.InsertCommand;
 import org.kie.remote.command.ListObjectsCommand;
 import org.kie.remote.command.ListObjectsCommandClassType;
 import org.kie.remote.command.ListObjectsCommandNamedQuery;
+import org.kie.remote.command.LiveQueryCloseCommand;
+import org.kie.remote.command.LiveQuerySubscribeCommand;
 import org.kie.remote.command.RemoteCommand;
 import org.kie.remote.command.SnapshotOnDemandCommand;
 import org.kie.remote.command.UpdateCommand;
@@ -113,6 +115,12 @@ public class CommandHandlerTest {
     @Mock
     protected FactHandlesManager factHandlesManagerMock;
 
+    @Mock
+    protected LiveQueriesManager liveQueriesManagerMock;
+
+    @Mock
+    protected FactCountsTracker factCountsTrackerMock;
+
     @Mock
     protected FactHandle factHandleMock;
 
@@ -138,6 +146,10 @@ public class CommandHandlerTest {
     public void initTest() {
         when(kieSessionContextMock.getKieSession()).thenReturn(kieSessionMock);
         when(kieSessionContextMock.getFhManager()).thenReturn(factHandlesManagerMock);
+        when(kieSessionContextMock.getLiveQueries()).thenReturn(liveQueriesManagerMock);
+        when(kieSessionContextMock.getFactCounts()).thenReturn(factCountsTrackerMock);
+        when(factCountsTrackerMock.getFactCount(myEntryPoint)).thenReturn(factCount);
+        when(factCountsTrackerMock.getFactCount(eq(myEntryPoint), any(Class.class))).thenReturn(1L);
         when(kieSessionMock.fireAllRules()).thenReturn(fireAllRule);
         when(kieSessionMock.getFactCount()).thenReturn(factCount);
         when(kieSessionMock.getEntryPoint(anyString())).thenReturn(entryPointMock);
@@ -145,6 +157,7 @@ public class CommandHandlerTest {
         when(kieSessionContextMock.getKjarGAVUsed()).thenReturn(Optional.of(kJarGAV));
         when(queryResultsMock.iterator()).thenReturn(Collections.emptyIterator());
         doReturn(Collections.singletonList(myObject)).when(entryPointMock).getObjects();
+        doReturn(Collections.singletonList(myObject)).when(entryPointMock).getObjects(any());
         doReturn(Collections.singletonList(myObject)).when(kieSessionMock).getObjects(any());
         when(kieSessionMock.getObject(any())).thenReturn(myObject);
         when(factHandlesManagerMock.mapRemoteFactHandle(any(RemoteFactHandle.class))).thenReturn(factHandleMock);
@@ -262,6 +275,22 @@ public class CommandHandlerTest {
                                         result -> ((List) result).size() == 0);
     }
 
+    @Test
+    public void visitLiveQuerySubscribeCommand() {
+        LiveQuerySubscribeCommand command = new LiveQuerySubscribeCommand(myEntryPoint, namedQuery, objectName);
+        executeAndVerify(command,
+                         commandHandler::visit,
+                         () -> verify(liveQueriesManagerMock, times(1)).subscribe(any(LiveQueryDefinition.class)));
+    }
+
+    @Test
+    public void visitLiveQueryCloseCommand() {
+        LiveQueryCloseCommand command = new LiveQueryCloseCommand(namedQuery);
+        executeAndVerify(command,
+                         commandHandler::visit,
+                         () -> verify(liveQueriesManagerMock, times(1)).close(eq(namedQuery)));
+    }
+
     @Test
     public void visitFactCountCommand() {
         executeAndVerifyResponseMessage(new FactCountCommand(myEntryPoint),
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.time.SessionPseudoClock;
+import org.kie.internal.utils.KieHelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EventExpirationPolicyTest {
+
+    private static final String drl = "package org.kie.hacep.consumer\n" +
+            "import " + Tick.class.getCanonicalName() + "\n" +
+            "import " + Alert.class.getCanonicalName() + "\n" +
+            "declare Tick @role(event) end\n" +
+            "declare Alert @role(event) end\n" +
+            "rule R when\n" +
+            "  Tick() from entry-point \"ticks\"\n" +
+            "then end\n";
+
+    @Test
+    public void parseTest() {
+        EventExpirationPolicy policy = EventExpirationPolicy.parse(Tick.class.getName() + "=1000, ep:ticks=5000");
+
+        assertFalse(policy.isEmpty());
+        assertEquals(1000, policy.getExpires("DEFAULT", Tick.class));
+        assertEquals(1000, policy.getExpires("ticks", Tick.class));
+        assertEquals(5000, policy.getExpires("ticks", Alert.class));
+        assertEquals(-1, policy.getExpires("DEFAULT", Alert.class));
+        assertTrue(EventExpirationPolicy.parse("").isEmpty());
+        assertTrue(EventExpirationPolicy.parse(null).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidConfigurationTest() {
+        EventExpirationPolicy.parse("org.acme.Tick");
+    }
+
+    @Test
+    public void sweepTest() {
+        KieSessionConfiguration conf = KieServices.get().newKieSessionConfiguration();
+        conf.setOption(ClockTypeOption.get("pseudo"));
+        KieSession kieSession = new KieHelper().addContent(drl, ResourceType.DRL).build().newKieSession(conf, null);
+        SessionPseudoClock clock = kieSession.getSessionClock();
+
+        kieSession.getEntryPoint("ticks").insert(new Tick());
+        kieSession.insert(new Alert());
+        clock.advanceTime(2, TimeUnit.SECONDS);
+        kieSession.insert(new Tick());
+
+        EventExpirationPolicy policy = EventExpirationPolicy.parse(Tick.class.getName() + "=1000");
+        Map<String, Long> retained = policy.sweep(kieSession, clock.getCurrentTime(), true);
+
+        assertEquals(Long.valueOf(1), retained.get(Tick.class.getName()));
+        assertEquals(Long.valueOf(1), retained.get(Alert.class.getName()));
+        assertEquals(0, kieSession.getEntryPoint("ticks").getFactCount());
+        assertEquals(2, kieSession.getFactCount());
+
+        clock.advanceTime(2, TimeUnit.SECONDS);
+        retained = EventExpirationPolicy.parse("").sweep(kieSession, clock.getCurrentTime(), true);
+        assertEquals(Long.valueOf(1), retained.get(Tick.class.getName()));
+        assertNull(retained.get(String.class.getName()));
+
+        // without a retention the facts are walked only to count the events
+        assertNull(EventExpirationPolicy.parse("").sweep(kieSession, clock.getCurrentTime(), false));
+        assertEquals(2, kieSession.getFactCount());
+        // the retention is applied also when the events aren't counted
+        assertNull(policy.sweep(kieSession, clock.getCurrentTime(), false));
+        assertEquals(1, kieSession.getFactCount());
+        kieSession.dispose();
+    }
+
+    public static class Tick { }
+
+    public static class Alert { }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.kie.api.definition.type.Role;
+import org.kie.api.definition.type.Timestamp;
+import org.kie.remote.command.EventInsertCommand;
+import org.kie.remote.util.SerializationUtil;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventWatermarkTest {
+
+    private static final long LATENESS = 100;
+
+    @Test
+    public void releaseInTimestampOrderTest() {
+        EventWatermark watermark = new EventWatermark();
+
+        assertTrue(add(watermark, 1000).isEmpty());
+        assertTrue(add(watermark, 950).isEmpty());
+        assertEquals(asList(950L, 1000L), timestamps(add(watermark, 1100)));
+        assertEquals(1, watermark.size());
+
+        // the heartbeats move the watermark also without new events
+        assertTrue(watermark.advanceOnHeartbeat(5000, LATENESS).isEmpty());
+        assertEquals(asList(1100L), timestamps(watermark.advanceOnHeartbeat(5100, LATENESS)));
+        assertEquals(0, watermark.size());
+    }
+
+    @Test
+    public void heartbeatsMoveTheWatermarkInEventTimeTest() {
+        EventWatermark watermark = new EventWatermark();
+        // the clients lag the clock of the leader by far more than the allowed lateness
+        long leaderClock = 3_600_000;
+        assertTrue(watermark.advanceOnHeartbeat(leaderClock, LATENESS).isEmpty());
+        assertEquals(Long.MIN_VALUE, watermark.getWatermark());
+
+        add(watermark, 1000);
+        add(watermark, 1050);
+        assertTrue(watermark.advanceOnHeartbeat(leaderClock + 1000, LATENESS).isEmpty());
+        assertFalse(watermark.isLate(1000));
+
+        // released by the time elapsed on the leader since the first heartbeat after the last event
+        assertEquals(asList(1000L), timestamps(watermark.advanceOnHeartbeat(leaderClock + 1060, LATENESS)));
+        assertEquals(asList(1050L), timestamps(watermark.advanceOnHeartbeat(leaderClock + 1200, LATENESS)));
+        assertEquals(1150, watermark.getWatermark());
+
+        // a new event restarts the estimate from its timestamp
+        assertTrue(add(watermark, 1160).isEmpty());
+        assertTrue(watermark.advanceOnHeartbeat(leaderClock + 10_000, LATENESS).isEmpty());
+        assertFalse(watermark.isLate(1155));
+        assertEquals(asList(1160L), timestamps(watermark.advanceOnHeartbeat(leaderClock + 10_200, LATENESS)));
+    }
+
+    @Test
+    public void lateEventTest() {
+        EventWatermark watermark = new EventWatermark();
+        add(watermark, 1000);
+        add(watermark, 1200);
+
+        assertEquals(1100, watermark.getWatermark());
+        assertTrue(watermark.isLate(1050));
+        assertFalse(watermark.isLate(1100));
+    }
+
+    @Test
+    public void sameTimestampKeepsTheArrivalOrderTest() {
+        EventWatermark watermark = new EventWatermark();
+        EventInsertCommand first = new EventInsertCommand(new Tick(500), "DEFAULT");
+        EventInsertCommand second = new EventInsertCommand(new Tick(500), "DEFAULT");
+        watermark.add(first, 500);
+        watermark.add(second, 500);
+
+        List<EventWatermark.Pending> released = watermark.advance(600, LATENESS);
+        assertEquals(first, released.get(0).getCommand());
+        assertEquals(second, released.get(1).getCommand());
+    }
+
+    @Test
+    public void serializationTest() {
+        EventWatermark watermark = new EventWatermark();
+        add(watermark, 1000);
+        add(watermark, 1050);
+
+        EventWatermark restored = SerializationUtil.deserialize(SerializationUtil.serialize(watermark));
+        assertEquals(2, restored.size());
+        assertEquals(watermark.getWatermark(), restored.getWatermark());
+        assertEquals(asList(1000L, 1050L), timestamps(restored.advance(1200, LATENESS)));
+    }
+
+    @Test
+    public void timestampOfTest() {
+        assertEquals(42, EventWatermark.timestampOf(new Tick(42), -1));
+        assertEquals(-1, EventWatermark.timestampOf("no timestamp", -1));
+    }
+
+    private static List<EventWatermark.Pending> add(EventWatermark watermark, long timestamp) {
+        watermark.add(new EventInsertCommand(new Tick(timestamp), "DEFAULT"), timestamp);
+        return watermark.advance(timestamp, LATENESS);
+    }
+
+    private static List<Long> timestamps(List<EventWatermark.Pending> released) {
+        return released.stream().map(EventWatermark.Pending::getTimestamp).collect(Collectors.toList());
+    }
+
+    @Role(Role.Type.EVENT)
+    @Timestamp("time")
+    public static class Tick implements Serializable {
+
+        private final long time;
+
+        public Tick(long time) {
+            this.time = time;
+        }
+
+        public long getTime() {
+            return time;
+        }
+    }
+}
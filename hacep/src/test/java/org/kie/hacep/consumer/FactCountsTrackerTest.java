@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.utils.KieHelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FactCountsTrackerTest {
+
+    private static final String drl = "package org.kie.hacep.consumer\n" +
+            "rule R when\n" +
+            "  String() from entry-point \"other\"\n" +
+            "then end\n";
+
+    @Test
+    public void countsPerEntryPointAndClassTest() {
+        KieSession kieSession = new KieHelper().addContent(drl, ResourceType.DRL).build().newKieSession();
+        kieSession.insert("a");
+        kieSession.insert(1);
+
+        FactCountsTracker tracker = new FactCountsTracker().initFromKieSession(kieSession);
+        assertEquals(2, tracker.getFactCount("DEFAULT"));
+
+        FactHandle fh = kieSession.insert("b");
+        kieSession.getEntryPoint("other").insert("c");
+        assertEquals(3, tracker.getFactCount("DEFAULT"));
+        assertEquals(2, tracker.getFactCount("DEFAULT", String.class));
+        assertEquals(3, tracker.getFactCount("DEFAULT", Object.class));
+        assertEquals(1, tracker.getFactCount("other"));
+        assertEquals(0, tracker.getFactCount("missing"));
+
+        kieSession.delete(fh);
+        assertEquals(1, tracker.getFactCount("DEFAULT", String.class));
+        assertEquals(3, tracker.getTotalFactCount());
+        kieSession.dispose();
+    }
+
+    @Test
+    public void objectsByClassTypeTest() {
+        KieSession kieSession = new KieHelper().addContent(drl, ResourceType.DRL).build().newKieSession();
+        kieSession.insert("a");
+        kieSession.insert(1);
+        FactCountsTracker tracker = new FactCountsTracker().initFromKieSession(kieSession);
+        EntryPoint entryPoint = kieSession.getEntryPoint("DEFAULT");
+
+        assertTrue(tracker.isTracked("DEFAULT", String.class));
+        assertEquals(Collections.singletonList("a"), new ArrayList<>(objectsOf(String.class, entryPoint, tracker)));
+
+        // a supertype never inserted is looked up walking the objects
+        assertFalse(tracker.isTracked("DEFAULT", Object.class));
+        assertEquals(2, objectsOf(Object.class, entryPoint, tracker).size());
+
+        assertFalse(tracker.isTracked("DEFAULT", Long.class));
+        assertTrue(objectsOf(Long.class, entryPoint, tracker).isEmpty());
+        kieSession.dispose();
+    }
+
+    private static Collection<?> objectsOf(Class<?> type, EntryPoint entryPoint, FactCountsTracker tracker) {
+        return ObjectFilterHelper.getObjectsFilterByClassType(type, entryPoint,
+                                                              tracker.getFactCount("DEFAULT", type),
+                                                              tracker.isTracked("DEFAULT", type));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.time.SessionPseudoClock;
+import org.kie.hacep.EnvConfig;
+import org.kie.hacep.core.KieSessionContext;
+import org.kie.hacep.core.infra.SessionSnapshooter;
+import org.kie.internal.utils.KieHelper;
+import org.kie.remote.command.FireUntilHaltCommand;
+import org.kie.remote.command.HeartbeatCommand;
+import org.kie.remote.impl.producer.Producer;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HeartbeatCommandTest {
+
+    private static final String drl = "package org.kie.hacep.consumer\n" +
+            "rule R when\n" +
+            "  String()\n" +
+            "then end\n";
+
+    private KieSession kieSession;
+    private CommandHandler commandHandler;
+
+    @Before
+    public void setUp() {
+        KieSessionConfiguration conf = KieServices.Factory.get().newKieSessionConfiguration();
+        conf.setOption(ClockTypeOption.get("pseudo"));
+        kieSession = new KieHelper().addContent(drl, ResourceType.DRL).build().newKieSession(conf, null);
+        KieSessionContext kieSessionContext = mock(KieSessionContext.class);
+        when(kieSessionContext.getKieSession()).thenReturn(kieSession);
+        when(kieSessionContext.advanceClockTo(anyLong())).thenAnswer(invocation -> {
+            long time = (Long) invocation.getArguments()[0];
+            SessionPseudoClock clock = kieSession.getSessionClock();
+            if (time > clock.getCurrentTime()) {
+                clock.advanceTime(time - clock.getCurrentTime(), TimeUnit.MILLISECONDS);
+            }
+            return clock.getCurrentTime();
+        });
+        commandHandler = new CommandHandler(kieSessionContext,
+                                            EnvConfig.getDefaultEnvConfig().clone(),
+                                            mock(Producer.class),
+                                            mock(SessionSnapshooter.class));
+    }
+
+    @After
+    public void tearDown() {
+        kieSession.dispose();
+    }
+
+    @Test
+    public void heartbeatFiresWhileFiringUntilHaltTest() {
+        commandHandler.visit(new FireUntilHaltCommand());
+        kieSession.insert("a");
+
+        commandHandler.visit(new HeartbeatCommand());
+        assertEquals(0, kieSession.fireAllRules());
+    }
+
+    @Test
+    public void heartbeatDoesNotFireWhenTheClientFiresTheRulesTest() {
+        kieSession.insert("a");
+
+        commandHandler.visit(new HeartbeatCommand());
+        assertEquals(1, kieSession.fireAllRules());
+    }
+
+    @Test
+    public void heartbeatNotMovingTheClockIsIgnoredTest() {
+        HeartbeatCommand heartbeat = new HeartbeatCommand();
+        commandHandler.visit(heartbeat);
+        commandHandler.visit(new FireUntilHaltCommand());
+        kieSession.insert("a");
+
+        // queued behind a command that already moved the clock
+        commandHandler.visit(heartbeat);
+        assertEquals(1, kieSession.fireAllRules());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieContainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KieBaseRegistryTest {
+
+    @After
+    public void tearDown() {
+        KieBaseRegistry.clear();
+    }
+
+    @Test
+    public void reuseTheContainerOfAGAVTest() {
+        AtomicInteger builds = new AtomicInteger();
+        KieContainer kieContainer = container("org.kie:sample:1.0");
+
+        KieContainer first = KieBaseRegistry.computeIfAbsent("org.kie:sample:1.0", gav -> { builds.incrementAndGet(); return kieContainer; });
+        KieContainer second = KieBaseRegistry.computeIfAbsent("org.kie:sample:1.0", gav -> { builds.incrementAndGet(); return container(gav); });
+
+        assertSame(kieContainer, first);
+        assertSame(kieContainer, second);
+        assertEquals(1, builds.get());
+        verify(kieContainer).getKieBase();
+    }
+
+    @Test
+    public void containerUpdatedToAnotherVersionIsNotReusedTest() {
+        KieContainer kieContainer = container("org.kie:sample:1.0");
+        KieBaseRegistry.computeIfAbsent("org.kie:sample:1.0", gav -> kieContainer);
+
+        ReleaseId updated = releaseId("org.kie:sample:2.0");
+        when(kieContainer.getReleaseId()).thenReturn(updated);
+
+        assertNull(KieBaseRegistry.get("org.kie:sample:1.0"));
+        KieBaseRegistry.register(kieContainer);
+        assertSame(kieContainer, KieBaseRegistry.get("org.kie:sample:2.0"));
+    }
+
+    @Test
+    public void classpathContainerTest() {
+        KieContainer kieContainer = mock(KieContainer.class);
+        KieBaseRegistry.computeIfAbsent(KieBaseRegistry.CLASSPATH, gav -> kieContainer);
+
+        assertSame(kieContainer, KieBaseRegistry.get(KieBaseRegistry.CLASSPATH));
+    }
+
+    @Test
+    public void leastRecentlyUsedEvictedTest() {
+        for (int i = 0; i < 5; i++) {
+            KieBaseRegistry.register(container("org.kie:sample:" + i));
+        }
+        assertEquals(4, KieBaseRegistry.size());
+        assertNull(KieBaseRegistry.get("org.kie:sample:0"));
+    }
+
+    private static KieContainer container(String gav) {
+        KieContainer kieContainer = mock(KieContainer.class);
+        ReleaseId releaseId = releaseId(gav);
+        when(kieContainer.getReleaseId()).thenReturn(releaseId);
+        return kieContainer;
+    }
+
+    private static ReleaseId releaseId(String gav) {
+        String[] parts = gav.split(":");
+        ReleaseId releaseId = mock(ReleaseId.class);
+        when(releaseId.getGroupId()).thenReturn(parts[0]);
+        when(releaseId.getArtifactId()).thenReturn(parts[1]);
+        when(releaseId.getVersion()).thenReturn(parts[2]);
+        return releaseId;
+    }
+}
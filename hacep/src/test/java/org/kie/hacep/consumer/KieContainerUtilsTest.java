@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import org.drools.modelcompiler.CanonicalKieModule;
+import org.drools.modelcompiler.ExecutableModelProject;
+import org.junit.After;
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.hacep.EnvConfig;
+import org.kie.hacep.util.GAVUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KieContainerUtilsTest {
+
+    private static final String GAV = "org.kie.hacep:executable-model-test:1.0.0";
+
+    private static final String drl = "package org.kie.hacep.consumer\n" +
+            "rule R when\n" +
+            "  String()\n" +
+            "then end\n";
+
+    @After
+    public void tearDown() {
+        KieBaseRegistry.clear();
+    }
+
+    @Test
+    public void executableModelKJarLoadedAndReusedTest() {
+        KieServices srv = KieServices.get();
+        buildExecutableModelKJar(srv);
+        EnvConfig envConfig = EnvConfig.getDefaultEnvConfig().clone().withUpdatableKJar("true").withKJarGAV(GAV);
+
+        KieContainer kieContainer = KieContainerUtils.getKieContainer(envConfig, srv);
+        KieSession kieSession = kieContainer.newKieSession();
+        kieSession.insert("a");
+        assertEquals(1, kieSession.fireAllRules());
+        kieSession.dispose();
+
+        // the restores of the snapshots taken with the same KJar don't build it again
+        assertSame(kieContainer, KieContainerUtils.getKieContainer(envConfig, srv, GAV));
+        assertEquals(1, KieBaseRegistry.size());
+    }
+
+    private static void buildExecutableModelKJar(KieServices srv) {
+        ReleaseId releaseId = GAVUtils.getReleaseID(GAV, srv);
+        KieFileSystem kfs = srv.newKieFileSystem();
+        kfs.generateAndWritePomXML(releaseId);
+        kfs.write("src/main/resources/org/kie/hacep/consumer/rules.drl", drl);
+        KieBuilder kieBuilder = srv.newKieBuilder(kfs).buildAll(ExecutableModelProject.class);
+        assertFalse(kieBuilder.getResults().toString(), kieBuilder.getResults().hasMessages(Message.Level.ERROR));
+        // the rules are loaded from the generated model classes, without compiling the DRL
+        assertTrue(kieBuilder.getKieModule() instanceof CanonicalKieModule);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.utils.KieHelper;
+import org.kie.remote.message.LiveQueryDelta;
+import org.kie.remote.message.LiveQueryMessage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kie.remote.util.SerializationUtil.deserialize;
+import static org.kie.remote.util.SerializationUtil.serialize;
+
+public class LiveQueriesManagerTest {
+
+    private static final String drl = "package org.kie.hacep.consumer\n" +
+            "query strings\n" +
+            "  $s : String()\n" +
+            "end\n" +
+            "query otherStrings\n" +
+            "  $s : String() from entry-point \"other\"\n" +
+            "end\n";
+
+    private KieSession kieSession;
+    private LiveQueriesManager liveQueries;
+
+    @Before
+    public void setUp() {
+        kieSession = new KieHelper().addContent(drl, ResourceType.DRL).build().newKieSession();
+        liveQueries = new LiveQueriesManager(2).initFromKieSession(kieSession, null);
+    }
+
+    @After
+    public void tearDown() {
+        liveQueries.dispose();
+        kieSession.dispose();
+    }
+
+    @Test
+    public void batchesAreSequencedTest() {
+        liveQueries.subscribe(new LiveQueryDefinition("q1", "DEFAULT", "strings", "$s", null, 0L));
+        FactHandle fh = kieSession.insert("a");
+
+        List<LiveQueryMessage> messages = liveQueries.flush();
+        assertEquals(1, messages.size());
+        assertEquals(1, messages.get(0).getSequence());
+        assertEquals(LiveQueryDelta.Type.ADDED, messages.get(0).getDeltas().get(0).getType());
+
+        kieSession.insert("b");
+        kieSession.delete(fh);
+        messages = liveQueries.flush();
+        assertEquals(2, messages.get(0).getSequence());
+        assertEquals(2, messages.get(0).getDeltas().size());
+
+        assertTrue(liveQueries.flush().isEmpty());
+    }
+
+    @Test
+    public void resumeReplaysTheRetainedBatchesOrResetsTest() {
+        liveQueries.subscribe(new LiveQueryDefinition("q1", "DEFAULT", "strings", "$s", null, 0L));
+        for (String s : new String[]{"a", "b", "c"}) {
+            kieSession.insert(s);
+            liveQueries.flush();
+        }
+
+        List<LiveQueryMessage> replay = liveQueries.resume("q1", 1);
+        assertEquals(2, replay.size());
+        assertEquals(2, replay.get(0).getSequence());
+        assertEquals(3, replay.get(1).getSequence());
+
+        assertTrue(liveQueries.resume("q1", 3).isEmpty());
+
+        List<LiveQueryMessage> reset = liveQueries.resume("q1", 0);
+        assertEquals(1, reset.size());
+        assertTrue(reset.get(0).isReset());
+        assertEquals(3, reset.get(0).getSequence());
+        assertEquals(3, reset.get(0).getDeltas().size());
+
+        assertTrue(liveQueries.resume("missing", 0).isEmpty());
+    }
+
+    @Test
+    public void resubscribeAfterASnapshotRestoreTest() {
+        liveQueries.subscribe(new LiveQueryDefinition("q1", "other", "otherStrings", "$s", null, 0L));
+        kieSession.getEntryPoint("other").insert("a");
+        liveQueries.flush();
+
+        List<LiveQueryDefinition> definitions = deserialize(serialize(new ArrayList<>(liveQueries.getDefinitions())));
+        assertEquals("other", definitions.get(0).getEntryPoint());
+        assertEquals(1, definitions.get(0).getSequence());
+        liveQueries.dispose();
+
+        // the rows already matching are not notified again
+        liveQueries = new LiveQueriesManager(2).initFromKieSession(kieSession, definitions);
+        assertTrue(liveQueries.flush().isEmpty());
+
+        // a subscribe command republished after the snapshot doesn't open the query twice
+        liveQueries.subscribe(new LiveQueryDefinition("q1", "other", "otherStrings", "$s", null, 0L));
+        kieSession.getEntryPoint("other").insert("b");
+        List<LiveQueryMessage> messages = liveQueries.flush();
+        assertEquals(1, messages.size());
+        assertEquals(2, messages.get(0).getSequence());
+        assertEquals(1, messages.get(0).getDeltas().size());
+
+        // the batches before the snapshot aren't retained, the client is reset with the whole content
+        List<LiveQueryMessage> reset = liveQueries.resume("q1", 0);
+        assertTrue(reset.get(0).isReset());
+        assertEquals(2, reset.get(0).getDeltas().size());
+    }
+
+    @Test
+    public void subscriptionScopedToItsEntryPointTest() {
+        liveQueries.subscribe(new LiveQueryDefinition("q1", "other", "otherStrings", "$s", null, 0L));
+        liveQueries.subscribe(new LiveQueryDefinition("q2", "third", "otherStrings", "$s", null, 0L));
+        liveQueries.subscribe(new LiveQueryDefinition("q3", "DEFAULT", "otherStrings", "$s", null, 0L));
+        kieSession.getEntryPoint("other").insert("a");
+
+        List<LiveQueryMessage> messages = liveQueries.flush();
+        assertEquals(2, messages.size());
+        assertEquals("q1", messages.get(0).getId());
+        assertEquals("q3", messages.get(1).getId());
+    }
+
+    @Test
+    public void closedSubscriptionIsNotNotifiedTest() {
+        liveQueries.subscribe(new LiveQueryDefinition("q1", "DEFAULT", "strings", "$s", null, 0L));
+        liveQueries.close("q1");
+        kieSession.insert("a");
+
+        assertTrue(liveQueries.flush().isEmpty());
+        assertTrue(liveQueries.getDefinitions().isEmpty());
+    }
+}
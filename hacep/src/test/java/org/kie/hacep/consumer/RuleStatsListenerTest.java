@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+import org.kie.remote.RuleStats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RuleStatsListenerTest {
+
+    private static final String drl = "package org.kie.hacep.consumer\n" +
+            "rule OnString when\n" +
+            "  String()\n" +
+            "then end\n" +
+            "rule OnInteger when\n" +
+            "  Integer()\n" +
+            "then end\n";
+
+    @Test
+    public void countsAndSamplesPerRuleTest() {
+        KieSession kieSession = new KieHelper().addContent(drl, ResourceType.DRL).build().newKieSession();
+        RuleStatsListener listener = new RuleStatsListener(2).initFromKieSession(kieSession);
+        kieSession.insert("a");
+        kieSession.insert("b");
+        kieSession.insert("c");
+        kieSession.insert(1);
+        assertEquals(4, kieSession.fireAllRules());
+        assertEquals(0, listener.getPendingActivations());
+
+        List<RuleStats> stats = listener.getStats();
+        assertEquals(2, stats.size());
+        Map<String, RuleStats> byName = stats.stream().collect(Collectors.toMap(RuleStats::getRuleName, Function.identity()));
+        RuleStats onString = byName.get("org.kie.hacep.consumer.OnString");
+        assertEquals(3, onString.getMatches());
+        assertEquals(3, onString.getFires());
+        assertEquals(1, byName.get("org.kie.hacep.consumer.OnInteger").getFires());
+        assertEquals(2, stats.stream().mapToLong(RuleStats::getSampledFires).sum());
+        assertTrue(stats.get(0).getEstimatedConsequenceNanos() >= stats.get(1).getEstimatedConsequenceNanos());
+        kieSession.dispose();
+    }
+
+    @Test
+    public void keepsTheCountersAcrossSessionsTest() {
+        RuleStatsListener listener = new RuleStatsListener(1);
+        for (int i = 0; i < 2; i++) {
+            KieSession kieSession = new KieHelper().addContent(drl, ResourceType.DRL).build().newKieSession();
+            listener.initFromKieSession(kieSession);
+            kieSession.insert("a");
+            kieSession.fireAllRules();
+            kieSession.dispose();
+        }
+        RuleStats onString = listener.getStats().get(0);
+        assertEquals(2, onString.getFires());
+        assertEquals(2, onString.getSampledFires());
+        assertTrue(onString.getMaxConsequenceNanos() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANonPositiveSamplingTest() {
+        new RuleStatsListener(0);
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.consumer;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message.Level;
+import org.kie.api.runtime.KieContainer;
+import org.kie.hacep.EnvConfig;
+import org.kie.hacep.core.infra.election.State;
+import org.kie.hacep.util.GAVUtils;
+import org.kie.remote.RemoteFactHandle;
+import org.kie.remote.command.FireAllRulesCommand;
+import org.kie.remote.command.GetObjectCommand;
+import org.kie.remote.command.InsertCommand;
+import org.kie.remote.command.LiveQuerySubscribeCommand;
+import org.kie.remote.command.RemoteCommand;
+import org.kie.remote.command.UpdateKJarCommand;
+import org.kie.remote.impl.RemoteFactHandleImpl;
+import org.kie.remote.impl.producer.Producer;
+import org.kie.remote.message.ControlMessage;
+import org.kie.remote.message.GetObjectMessage;
+import org.kie.remote.message.LiveQueryMessage;
+import org.kie.remote.message.Message;
+import org.kie.remote.message.ResultMessage;
+import org.kie.remote.message.UpdateKjarMessage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kie.remote.util.SerializationUtil.deserialize;
+import static org.kie.remote.util.SerializationUtil.serialize;
+import static org.mockito.Mockito.mock;
+
+public class StagedKJarUpdateTest {
+
+    private static final String V1 = "org.kie.hacep:staged-update-test:1.0.0";
+    private static final String V2 = "org.kie.hacep:staged-update-test:2.0.0";
+
+    private static final String drl = "package org.kie.hacep.consumer\n" +
+            "query strings\n" +
+            "  $s : String()\n" +
+            "end\n" +
+            "rule R when\n" +
+            "  String()\n" +
+            "then end\n";
+
+    private EnvConfig envConfig;
+    private RecordingProducer leaderProducer;
+    private DroolsConsumerHandler leader;
+    private DroolsConsumerHandler replica;
+
+    @Before
+    public void setUp() {
+        KieServices srv = KieServices.get();
+        buildKJar(srv, V1, drl);
+        buildKJar(srv, V2, drl + "rule R2 when\n  Integer()\nthen end\n");
+        envConfig = EnvConfig.getDefaultEnvConfig().clone()
+                .withUpdatableKJar("true")
+                .withKJarGAV(V1)
+                .withStagedKJarUpdate("true")
+                .skipOnDemandSnapshot("false");
+        leaderProducer = new RecordingProducer();
+        leader = new DroolsConsumerHandler(leaderProducer, envConfig);
+        leader.getExecutorContext().setAsLeader();
+        replica = new DroolsConsumerHandler(new RecordingProducer(), envConfig);
+        replica.getExecutorContext().setAsReplica();
+    }
+
+    @After
+    public void tearDown() {
+        leader.stop();
+        replica.stop();
+        KieBaseRegistry.clear();
+    }
+
+    @Test
+    public void failedBuildReturnsNoContainerTest() throws InterruptedException {
+        StagedKJarUpdate stagedKJarUpdate = new StagedKJarUpdate();
+        stagedKJarUpdate.stage("update", V2, () -> { throw new IllegalStateException("missing KJar"); });
+        waitCompleted(stagedKJarUpdate);
+
+        StagedKJarUpdate.Staged staged = stagedKJarUpdate.take();
+        assertEquals("update", staged.getCommandId());
+        assertNull(staged.getContainer());
+        assertFalse(stagedKJarUpdate.isCompleted());
+        stagedKJarUpdate.shutdown();
+    }
+
+    @Test
+    public void awaitTheStagedContainerTest() {
+        StagedKJarUpdate stagedKJarUpdate = new StagedKJarUpdate();
+        KieContainer kieContainer = mock(KieContainer.class);
+        stagedKJarUpdate.stage("update", V2, () -> kieContainer);
+
+        assertSame(kieContainer, stagedKJarUpdate.await(new StagedKJarUpdate.Swap("update", V2)));
+        assertNull(stagedKJarUpdate.take());
+        stagedKJarUpdate.shutdown();
+    }
+
+    @Test(timeout = 60000)
+    public void leaderAndReplicaSwapAtTheSameCommandTest() throws InterruptedException {
+        RemoteFactHandle<String> factHandle = new RemoteFactHandleImpl("a");
+        processOnBoth(new InsertCommand(factHandle, "DEFAULT"));
+        LiveQuerySubscribeCommand subscribe = new LiveQuerySubscribeCommand("DEFAULT", "strings", "$s");
+        processOnBoth(subscribe);
+
+        UpdateKJarCommand update = new UpdateKJarCommand(V2);
+        processOnBoth(update);
+        waitCompleted(leader.getCommandHandler().getStagedKJarUpdate());
+
+        // the leader swaps before the next command and records the Swap as its first side effect
+        ControlMessage control = processOnBoth(new FireAllRulesCommand());
+        Object swap = control.getSideEffects().peek();
+        assertTrue(swap instanceof StagedKJarUpdate.Swap);
+        assertEquals(V2, ((StagedKJarUpdate.Swap) swap).getGav());
+        assertTrue(leaderProducer.last(envConfig.getKieSessionInfosTopicName(), UpdateKjarMessage.class).getResult());
+
+        for (DroolsConsumerHandler handler : new DroolsConsumerHandler[]{leader, replica}) {
+            assertEquals(V2, GAVUtils.getGAV(handler.getKieSessionContext().getKieContainer().getReleaseId()));
+            assertNotNull(handler.getKieSessionContext().getKieSession().getKieBase().getRule("org.kie.hacep.consumer", "R2"));
+            assertNotNull(handler.getKieSessionContext().getFhManager().mapRemoteFactHandle(factHandle));
+        }
+
+        // the fact handles and the live queries opened before the swap still work
+        processOnBoth(new GetObjectCommand(factHandle));
+        assertEquals("a", leaderProducer.last(envConfig.getKieSessionInfosTopicName(), GetObjectMessage.class).getResult());
+
+        processOnBoth(new InsertCommand(new RemoteFactHandleImpl("b"), "DEFAULT"));
+        LiveQueryMessage changes = leaderProducer.last(envConfig.getKieSessionInfosTopicName(), LiveQueryMessage.class);
+        assertEquals(subscribe.getId(), changes.getId());
+        assertEquals(2, changes.getSequence());
+        assertEquals("b", changes.getDeltas().get(0).getObject());
+        assertEquals(2, replica.getKieSessionContext().getLiveQueries().getDefinitions().get(0).getSequence());
+    }
+
+    @Test(timeout = 60000)
+    public void failedBuildIsNotSwappedTest() throws InterruptedException {
+        StagedKJarUpdate stagedKJarUpdate = leader.getCommandHandler().getStagedKJarUpdate();
+        stagedKJarUpdate.stage("update", V2, () -> { throw new IllegalStateException("missing KJar"); });
+        waitCompleted(stagedKJarUpdate);
+
+        ControlMessage control = processOnBoth(new FireAllRulesCommand());
+
+        UpdateKjarMessage result = leaderProducer.last(envConfig.getKieSessionInfosTopicName(), UpdateKjarMessage.class);
+        assertEquals("update", result.getId());
+        assertFalse(result.getResult());
+        assertFalse(control.getSideEffects().peek() instanceof StagedKJarUpdate.Swap);
+        assertEquals(V1, GAVUtils.getGAV(leader.getKieSessionContext().getKieContainer().getReleaseId()));
+    }
+
+    /* the leader processes the command and the replica applies its ControlMessage, as read from the control topic */
+    private ControlMessage processOnBoth(RemoteCommand command) {
+        leader.process(command, State.LEADER);
+        ControlMessage control = leaderProducer.last(envConfig.getControlTopicName(), ControlMessage.class);
+        assertEquals(command.getId(), control.getId());
+        replica.processSideEffectsOnReplica(((ControlMessage) deserialize(serialize(control))).getSideEffects());
+        replica.process(command, State.REPLICA);
+        return control;
+    }
+
+    private static void waitCompleted(StagedKJarUpdate stagedKJarUpdate) throws InterruptedException {
+        while (!stagedKJarUpdate.isCompleted()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void buildKJar(KieServices srv, String gav, String rules) {
+        KieFileSystem kfs = srv.newKieFileSystem();
+        kfs.generateAndWritePomXML(GAVUtils.getReleaseID(gav, srv));
+        kfs.write("src/main/resources/org/kie/hacep/consumer/rules.drl", rules);
+        KieBuilder kieBuilder = srv.newKieBuilder(kfs).buildAll();
+        assertFalse(kieBuilder.getResults().toString(), kieBuilder.getResults().hasMessages(Level.ERROR));
+    }
+
+    private static class RecordingProducer implements Producer {
+
+        private final List<Object[]> sent = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void start(Properties properties) { }
+
+        @Override
+        public void stop() { }
+
+        @Override
+        public <T> void produceSync(String topicName, String key, ResultMessage<T> object) {
+            sent.add(new Object[]{topicName, object});
+        }
+
+        @Override
+        public void produceSync(String topicName, String key, Message object) {
+            sent.add(new Object[]{topicName, object});
+        }
+
+        <T> T last(String topicName, Class<T> type) {
+            for (int i = sent.size() - 1; i >= 0; i--) {
+                if (sent.get(i)[0].equals(topicName) && type.isInstance(sent.get(i)[1])) {
+                    return type.cast(sent.get(i)[1]);
+                }
+            }
+            return null;
+        }
+    }
+}
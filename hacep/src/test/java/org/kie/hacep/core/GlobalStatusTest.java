@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GlobalStatusTest {
+
+    @After
+    public void tearDown() {
+        GlobalStatus.nodeReady = false;
+        GlobalStatus.replicaLagOffsets = 0;
+        GlobalStatus.maxReplicaLagReadiness = -1;
+    }
+
+    @Test
+    public void readinessWithLagTest() {
+        GlobalStatus.nodeReady = true;
+        GlobalStatus.replicaLagOffsets = 500;
+        assertTrue(GlobalStatus.isReady());
+
+        GlobalStatus.maxReplicaLagReadiness = 100;
+        assertFalse(GlobalStatus.isReady());
+
+        GlobalStatus.replicaLagOffsets = 100;
+        assertTrue(GlobalStatus.isReady());
+
+        GlobalStatus.nodeReady = false;
+        assertFalse(GlobalStatus.isReady());
+    }
+}
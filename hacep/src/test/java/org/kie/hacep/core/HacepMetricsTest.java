@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core;
+
+import org.junit.Test;
+import org.kie.hacep.core.infra.election.State;
+import org.kie.remote.command.CommandKind;
+
+import static org.junit.Assert.*;
+
+public class HacepMetricsTest {
+
+    @Test
+    public void recordedValuesAreExportedTest() {
+        HacepMetrics.recordEventProcessed(State.LEADER);
+        HacepMetrics.recordEventProcessed(State.REPLICA);
+        HacepMetrics.recordCommand(CommandKind.INSERT, 1_000_000);
+        HacepMetrics.recordControlPublish(2_000_000);
+        HacepMetrics.recordSnapshot(1024, 5_000_000);
+        HacepMetrics.recordFires(3);
+        GlobalStatus.replicaLagMillis = 42;
+
+        String metrics = HacepMetrics.scrape();
+        assertTrue(metrics.contains("hacep_events_processed_total{role=\"LEADER\",}"));
+        assertTrue(metrics.contains("hacep_events_processed_total{role=\"REPLICA\",}"));
+        assertTrue(metrics.contains("hacep_command_duration_seconds_count{command=\"INSERT\",}"));
+        assertTrue(metrics.contains("hacep_control_publish_seconds_bucket"));
+        assertTrue(metrics.contains("hacep_snapshot_size_bytes_sum"));
+        assertTrue(metrics.contains("hacep_agenda_fires_sum"));
+        assertTrue(metrics.contains("hacep_replica_lag_milliseconds 42.0"));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core.infra;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.time.SessionPseudoClock;
+import org.kie.hacep.EnvConfig;
+import org.kie.hacep.consumer.CommandHandler;
+import org.kie.hacep.core.KieSessionContext;
+import org.kie.internal.utils.KieHelper;
+import org.kie.remote.command.HeartbeatCommand;
+import org.kie.remote.impl.producer.Producer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HeartbeatSenderTest {
+
+    private static final String drl = "package org.kie.hacep.core.infra\n" +
+            "declare String @role(event) end\n";
+
+    @Test
+    public void heartbeatsCoalescedWithTheCommandsTest() {
+        HeartbeatSender heartbeatSender = new HeartbeatSender(EnvConfig.getDefaultEnvConfig().clone().withHeartbeatIntervalMs("1000"));
+        long now = System.currentTimeMillis();
+        assertTrue(heartbeatSender.isDue(now));
+
+        heartbeatSender.markActivity();
+        assertFalse(heartbeatSender.isDue(now));
+        assertFalse(heartbeatSender.isDue(now + 500));
+        assertTrue(heartbeatSender.isDue(System.currentTimeMillis() + 1000));
+    }
+
+    @Test
+    public void expiredEventsSweptUnderSteadyLoadTest() {
+        EnvConfig config = EnvConfig.getDefaultEnvConfig().clone()
+                .withHeartbeatIntervalMs("1000")
+                .withDefaultEventExpires("java.lang.String=1000");
+        HeartbeatSender heartbeatSender = new HeartbeatSender(config);
+
+        KieSessionConfiguration conf = KieServices.Factory.get().newKieSessionConfiguration();
+        conf.setOption(ClockTypeOption.get("pseudo"));
+        KieSession kieSession = new KieHelper().addContent(drl, ResourceType.DRL).build().newKieSession(conf, null);
+        SessionPseudoClock clock = kieSession.getSessionClock();
+        KieSessionContext kieSessionContext = mock(KieSessionContext.class);
+        when(kieSessionContext.getKieSession()).thenReturn(kieSession);
+        when(kieSessionContext.advanceClockTo(anyLong())).thenAnswer(invocation -> {
+            long time = (Long) invocation.getArguments()[0];
+            if (time > clock.getCurrentTime()) {
+                clock.advanceTime(time - clock.getCurrentTime(), TimeUnit.MILLISECONDS);
+            }
+            return clock.getCurrentTime();
+        });
+        CommandHandler commandHandler = new CommandHandler(kieSessionContext, config, mock(Producer.class), mock(SessionSnapshooter.class));
+
+        long start = System.currentTimeMillis();
+        clock.advanceTime(start, TimeUnit.MILLISECONDS);
+        kieSession.insert("a");
+        try {
+            // a command processed every 100 ms never leaves the leader idle for a whole interval
+            for (long now = start + 100; now <= start + 2000 * HeartbeatSender.MAX_COALESCED_INTERVALS; now += 100) {
+                heartbeatSender.markActivity(now);
+                if (heartbeatSender.isDue(now)) {
+                    HeartbeatCommand heartbeat = mock(HeartbeatCommand.class);
+                    when(heartbeat.getTimestamp()).thenReturn(now);
+                    commandHandler.visit(heartbeat);
+                }
+            }
+            assertEquals(0, kieSession.getFactCount());
+        } finally {
+            kieSession.dispose();
+        }
+    }
+}
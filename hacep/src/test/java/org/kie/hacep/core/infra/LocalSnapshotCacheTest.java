@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core.infra;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kie.hacep.EnvConfig;
+import org.kie.hacep.consumer.FactHandlesManager;
+import org.kie.hacep.message.SnapshotMessage;
+import org.kie.remote.util.SerializationUtil;
+
+import static org.junit.Assert.*;
+
+public class LocalSnapshotCacheTest {
+
+    private static final long TIMESTAMP = 1000L;
+    private static final LocalSnapshotCache.SnapshotTopic ON_TOPIC = (offset, timestamp) -> timestamp == TIMESTAMP;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void storeAndLoadTest() {
+        LocalSnapshotCache cache = new LocalSnapshotCache(EnvConfig.getDefaultEnvConfig().withSnapshotCacheDir(folder.getRoot().getAbsolutePath()));
+        SnapshotMessage message = newSnapshotMessage();
+        cache.store(SerializationUtil.serialize(message), 5, TIMESTAMP, message);
+
+        SnapshotMessage loaded = cache.load(5, ON_TOPIC);
+        assertNotNull(loaded);
+        assertEquals(message.getId(), loaded.getId());
+        assertEquals("key-10", loaded.getLastInsertedEventkey());
+        assertEquals(10, loaded.getLastInsertedEventOffset());
+        assertArrayEquals(message.getSerializedSession(), loaded.getSerializedSession());
+        assertEquals(message.getTime(), cache.getTime(5, ON_TOPIC));
+    }
+
+    @Test
+    public void olderSnapshotIsIgnoredTest() {
+        LocalSnapshotCache cache = new LocalSnapshotCache(EnvConfig.getDefaultEnvConfig().withSnapshotCacheDir(folder.getRoot().getAbsolutePath()));
+        SnapshotMessage message = newSnapshotMessage();
+        cache.store(SerializationUtil.serialize(message), 5, TIMESTAMP, message);
+        assertNull(cache.load(6, ON_TOPIC));
+        assertNull(cache.getTime(6, ON_TOPIC));
+    }
+
+    @Test
+    public void newerSnapshotIsIgnoredTest() {
+        LocalSnapshotCache cache = new LocalSnapshotCache(EnvConfig.getDefaultEnvConfig().withSnapshotCacheDir(folder.getRoot().getAbsolutePath()));
+        SnapshotMessage message = newSnapshotMessage();
+        cache.store(SerializationUtil.serialize(message), 5, TIMESTAMP, message);
+        // the snapshot topic has been recreated
+        assertNull(cache.load(4, ON_TOPIC));
+        assertNull(cache.getTime(4, ON_TOPIC));
+    }
+
+    @Test
+    public void snapshotReplacedOnTheTopicIsIgnoredTest() {
+        LocalSnapshotCache cache = new LocalSnapshotCache(EnvConfig.getDefaultEnvConfig().withSnapshotCacheDir(folder.getRoot().getAbsolutePath()));
+        SnapshotMessage message = newSnapshotMessage();
+        cache.store(SerializationUtil.serialize(message), 5, TIMESTAMP + 1, message);
+        assertNull(cache.load(5, ON_TOPIC));
+        assertNull(cache.getTime(5, ON_TOPIC));
+    }
+
+    @Test
+    public void corruptedSnapshotIsIgnoredTest() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        LocalSnapshotCache cache = new LocalSnapshotCache(EnvConfig.getDefaultEnvConfig().withSnapshotCacheDir(dir.toString()));
+        SnapshotMessage message = newSnapshotMessage();
+        byte[] bytes = SerializationUtil.serialize(message);
+        cache.store(bytes, 5, TIMESTAMP, message);
+
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(dir.resolve("snapshot.data"), bytes);
+        assertNull(cache.load(5, ON_TOPIC));
+    }
+
+    @Test
+    public void disabledCacheTest() {
+        LocalSnapshotCache cache = new LocalSnapshotCache(EnvConfig.getDefaultEnvConfig().withSnapshotCacheDir(null));
+        assertFalse(cache.isEnabled());
+        SnapshotMessage message = newSnapshotMessage();
+        cache.store(SerializationUtil.serialize(message), 5, TIMESTAMP, message);
+        assertNull(cache.load(5, ON_TOPIC));
+    }
+
+    private SnapshotMessage newSnapshotMessage() {
+        return new SnapshotMessage("snapshot-1",
+                                   "org.kie:sample-hacep-project:7.32.0-SNAPSHOT",
+                                   new byte[]{1, 2, 3, 4},
+                                   new FactHandlesManager(),
+                                   new ArrayList<>(),
+                                   "key-10",
+                                   10,
+                                   LocalDateTime.now());
+    }
+}
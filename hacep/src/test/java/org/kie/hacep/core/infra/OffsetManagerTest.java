@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core.infra;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kie.hacep.EnvConfig;
+
+import static org.junit.Assert.*;
+
+public class OffsetManagerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void storeAndRecoverTest() {
+        OffsetManager offsetManager = new OffsetManager(getEnvConfig());
+        assertNull(offsetManager.load());
+        offsetManager.store("key-1", 10, 5, 1, -1);
+        offsetManager.store("key-2", 11, 6, 1, -1);
+        offsetManager.close();
+
+        OffsetManager.Checkpoint checkpoint = new OffsetManager(getEnvConfig()).load();
+        assertNotNull(checkpoint);
+        assertEquals("key-2", checkpoint.getKey());
+        assertEquals(11, checkpoint.getEventOffset());
+        assertEquals(6, checkpoint.getControlOffset());
+        assertEquals(1, checkpoint.getControlEpoch());
+        assertEquals(-1, checkpoint.getSnapshotOffset());
+    }
+
+    @Test
+    public void wrapAroundTest() {
+        OffsetManager offsetManager = new OffsetManager(getEnvConfig());
+        for (int i = 0; i < OffsetManager.CAPACITY + 10; i++) {
+            offsetManager.store("key-" + i, i, i, 2, 0);
+        }
+        offsetManager.close();
+
+        OffsetManager.Checkpoint checkpoint = new OffsetManager(getEnvConfig()).load();
+        assertEquals("key-" + (OffsetManager.CAPACITY + 9), checkpoint.getKey());
+        assertEquals(OffsetManager.CAPACITY + 10, checkpoint.getSequence());
+    }
+
+    @Test
+    public void corruptedRecordIsSkippedTest() throws IOException {
+        OffsetManager offsetManager = new OffsetManager(getEnvConfig());
+        offsetManager.store("key-1", 10, 5, 1, -1);
+        offsetManager.store("key-2", 11, 6, 1, -1);
+        offsetManager.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(folder.getRoot().toPath().resolve(OffsetManager.FILE_NAME).toFile(), "rw")) {
+            file.seek(OffsetManager.RECORD_SIZE + 12);
+            file.writeLong(99);
+        }
+
+        OffsetManager.Checkpoint checkpoint = new OffsetManager(getEnvConfig()).load();
+        assertEquals("key-1", checkpoint.getKey());
+        assertEquals(10, checkpoint.getEventOffset());
+    }
+
+    @Test
+    public void disabledStoreTest() {
+        OffsetManager offsetManager = new OffsetManager(EnvConfig.getDefaultEnvConfig().withOffsetStoreDir(null));
+        assertFalse(offsetManager.isEnabled());
+        offsetManager.store("key-1", 10, 5, 1, -1);
+        assertNull(offsetManager.load());
+    }
+
+    private EnvConfig getEnvConfig() {
+        return EnvConfig.getDefaultEnvConfig().withOffsetStoreDir(folder.getRoot().getAbsolutePath());
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core.infra.consumer;
+
+import java.util.Collections;
+import java.util.OptionalLong;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.hacep.EnvConfig;
+import org.kie.hacep.consumer.DroolsConsumerHandler;
+import org.kie.hacep.core.GlobalStatus;
+import org.kie.hacep.core.infra.DefaultSessionSnapShooter;
+import org.kie.hacep.core.infra.election.State;
+import org.kie.remote.SideEffectsBuffer;
+import org.kie.remote.command.GetObjectCommand;
+import org.kie.remote.command.InsertCommand;
+import org.kie.remote.command.RemoteCommand;
+import org.kie.remote.impl.RemoteFactHandleImpl;
+import org.kie.remote.message.ControlMessage;
+import org.kie.remote.util.CommandHeaders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.kie.remote.util.SerializationUtil.serialize;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultKafkaConsumerTest {
+
+    private static final String EVENTS_TOPIC = "events";
+    private static final String CONTROL_TOPIC = "control";
+    private static final TopicPartition EVENTS = new TopicPartition(EVENTS_TOPIC, 0);
+    private static final TopicPartition CONTROL = new TopicPartition(CONTROL_TOPIC, 0);
+
+    private MockConsumer<String, byte[]> eventsConsumer;
+    private MockConsumer<String, byte[]> controlConsumer;
+    private DroolsConsumerHandler handler;
+    private DefaultKafkaConsumer<byte[]> consumer;
+
+    @Before
+    public void setUp() {
+        eventsConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        eventsConsumer.assign(Collections.singleton(EVENTS));
+        eventsConsumer.updateBeginningOffsets(Collections.singletonMap(EVENTS, 0L));
+        controlConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        controlConsumer.assign(Collections.singleton(CONTROL));
+        controlConsumer.updateBeginningOffsets(Collections.singletonMap(CONTROL, 0L));
+        handler = mock(DroolsConsumerHandler.class);
+        consumer = new DefaultKafkaConsumer<>(EnvConfig.getDefaultEnvConfig().clone());
+        consumer.initConsumer(handler, eventsConsumer, controlConsumer);
+    }
+
+    @After
+    public void tearDown() {
+        GlobalStatus.nodeLive = true;
+        GlobalStatus.replicaLagMillis = 0L;
+    }
+
+    @Test
+    public void rejectsTheControlMessagesOfAnOldLeaderTest() {
+        consumer.processControlAsAReplica(control(0, "A", 2));
+        consumer.processControlAsAReplica(control(1, "B", 1));
+
+        verify(handler, times(1)).processSideEffectsOnReplica(any());
+        assertEquals(2, controlConsumer.committed(CONTROL).offset());
+    }
+
+    @Test
+    public void appliesTheCommandsOfANewLeaderTest() {
+        consumer.processControlAsAReplica(control(0, "A", 1));
+        consumer.processControlAsAReplica(control(1, "B", 2));
+
+        verify(handler, times(2)).processSideEffectsOnReplica(any());
+        assertEquals(DefaultKafkaConsumer.PolledTopic.EVENTS, consumer.getPolledTopic());
+    }
+
+    @Test
+    public void failsOnACommandRepublishedByANewLeaderTest() {
+        consumer.processControlAsAReplica(control(0, "A", 1));
+        consumer.processControlAsAReplica(control(1, "E", 1));
+        try {
+            consumer.processControlAsAReplica(control(2, "E", 2));
+            fail("The command E was already applied with the previous epoch");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertFalse(GlobalStatus.nodeLive);
+        verify(handler, times(2)).processSideEffectsOnReplica(any());
+    }
+
+    @Test(timeout = 10000)
+    public void catchUpAppliesABatchAndCommitsAtTheEndTest() {
+        DefaultKafkaConsumer<byte[]> catchingUp = catchingUpConsumer();
+        addControls("A", "B", "C");
+        addEvents("A", "B", "C");
+
+        catchingUp.defaultProcessAsAReplica();
+
+        verify(handler, times(3)).processSideEffectsOnReplica(any());
+        verify(handler, times(3)).process(any(ItemToProcess.class), any(State.class));
+        assertEquals(DefaultKafkaConsumer.PolledTopic.CONTROL, catchingUp.getPolledTopic());
+        assertEquals(3, controlConsumer.committed(CONTROL).offset());
+        assertEquals(3, eventsConsumer.committed(EVENTS).offset());
+    }
+
+    @Test(timeout = 10000)
+    public void catchUpGoesBackToTheMainLoopWhenTheEventsAreMissingTest() {
+        DefaultKafkaConsumer<byte[]> catchingUp = catchingUpConsumer();
+        addControls("A", "B", "C");
+        addEvents("A", "B");
+
+        catchingUp.defaultProcessAsAReplica();
+
+        verify(handler, times(2)).process(any(ItemToProcess.class), any(State.class));
+        assertEquals(DefaultKafkaConsumer.PolledTopic.EVENTS, catchingUp.getPolledTopic());
+        assertEquals(3, controlConsumer.committed(CONTROL).offset());
+        assertEquals(2, eventsConsumer.committed(EVENTS).offset());
+    }
+
+    @Test
+    public void offsetsDeferredWhileCatchingUpTest() {
+        DefaultKafkaConsumer<byte[]> catchingUp = catchingUpConsumer();
+
+        catchingUp.processControlAsAReplica(control(0, "A", 0));
+        assertNull(controlConsumer.committed(CONTROL));
+
+        catchingUp.commitPendingOffsets();
+        assertEquals(1, controlConsumer.committed(CONTROL).offset());
+    }
+
+    @Test
+    public void switchesToLiveProcessingCloseToTheHeadTest() {
+        DefaultKafkaConsumer<byte[]> catchingUp = catchingUpConsumer();
+        catchingUp.processControlAsAReplica(control(0, "A", 0));
+        catchingUp.pollControl();
+        controlConsumer.updateEndOffsets(Collections.singletonMap(CONTROL, 2L));
+
+        catchingUp.defaultProcessAsAReplica();
+        assertEquals(1, controlConsumer.committed(CONTROL).offset());
+
+        catchingUp.processControlAsAReplica(control(1, "B", 0));
+        assertEquals(2, controlConsumer.committed(CONTROL).offset());
+    }
+
+    @Test
+    public void replicaSkipsTheCommandsNotPermittedTest() {
+        consumer.processEventsAsAReplica(event(0, "A", new GetObjectCommand(new RemoteFactHandleImpl("RHT"))));
+        verify(handler, never()).process(any(ItemToProcess.class), any(State.class));
+        assertEquals(1, eventsConsumer.committed(EVENTS).offset());
+
+        consumer.processEventsAsAReplica(event(1, "B", new InsertCommand(new RemoteFactHandleImpl("RHT"), "DEFAULT")));
+        verify(handler, times(1)).process(any(ItemToProcess.class), any(State.class));
+        assertEquals(2, eventsConsumer.committed(EVENTS).offset());
+    }
+
+    @Test
+    public void leaderRestartedFromASnapshotDoesNotRepublishAppliedKeysTest() {
+        DefaultSessionSnapShooter snapShooter = mock(DefaultSessionSnapShooter.class);
+        when(snapShooter.getLastSnapshotEventOffset()).thenReturn(OptionalLong.of(0));
+        when(handler.getSessionSnapShooter()).thenReturn(snapShooter);
+        DefaultKafkaConsumer<byte[]> restarted = new DefaultKafkaConsumer<>(EnvConfig.getDefaultEnvConfig().clone());
+        restarted.initConsumer(handler, eventsConsumer, controlConsumer);
+
+        RemoteCommand insert = new InsertCommand(new RemoteFactHandleImpl("RHT"), "DEFAULT");
+        restarted.processControlAsAReplica(control(0, "A", 0));
+        restarted.processEventsAsAReplica(event(0, "A", insert));
+        restarted.processControlAsAReplica(control(1, "B", 0));
+        restarted.processEventsAsAReplica(event(1, "B", insert));
+
+        MockConsumer<String, byte[]> leaderConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        leaderConsumer.updatePartitions(EVENTS_TOPIC, Collections.singletonList(new PartitionInfo(EVENTS_TOPIC, 0, null, null, null)));
+        leaderConsumer.updateBeginningOffsets(Collections.singletonMap(EVENTS, 0L));
+        restarted.restartConsumer(State.LEADER, leaderConsumer);
+        assertEquals(2, leaderConsumer.position(EVENTS));
+
+        restarted.processLeader(event(1, "B", insert));
+        restarted.processLeader(event(2, "C", insert));
+        verify(handler, times(1)).process(any(ItemToProcess.class), eq(State.LEADER));
+        assertEquals(3, leaderConsumer.committed(EVENTS).offset());
+    }
+
+    private DefaultKafkaConsumer<byte[]> catchingUpConsumer() {
+        DefaultKafkaConsumer<byte[]> catchingUp = new DefaultKafkaConsumer<>(EnvConfig.getDefaultEnvConfig().clone().withCatchUpThreshold("1"));
+        catchingUp.initConsumer(handler, eventsConsumer, controlConsumer);
+        catchingUp.startCatchUp();
+        return catchingUp;
+    }
+
+    private void addControls(String... keys) {
+        for (int i = 0; i < keys.length; i++) {
+            controlConsumer.addRecord(control(i, keys[i], 0));
+        }
+        controlConsumer.updateEndOffsets(Collections.singletonMap(CONTROL, (long) keys.length));
+    }
+
+    private void addEvents(String... keys) {
+        for (int i = 0; i < keys.length; i++) {
+            eventsConsumer.addRecord(new ConsumerRecord<>(EVENTS_TOPIC, 0, i, keys[i], new byte[0]));
+        }
+        eventsConsumer.updateEndOffsets(Collections.singletonMap(EVENTS, (long) keys.length));
+    }
+
+    private static ConsumerRecord<String, byte[]> event(long offset, String key, RemoteCommand command) {
+        return new ConsumerRecord<>(EVENTS_TOPIC, 0, offset, ConsumerRecord.NO_TIMESTAMP, TimestampType.NO_TIMESTAMP_TYPE,
+                                    (long) ConsumerRecord.NULL_CHECKSUM, ConsumerRecord.NULL_SIZE, ConsumerRecord.NULL_SIZE,
+                                    key, serialize(command), new RecordHeaders(CommandHeaders.of(command)));
+    }
+
+    private static ConsumerRecord<String, byte[]> control(long offset, String key, long epoch) {
+        ControlMessage message = new ControlMessage(key, new SideEffectsBuffer());
+        message.setEpoch(epoch);
+        return new ConsumerRecord<>(CONTROL_TOPIC, 0, offset, key, serialize(message));
+    }
+}
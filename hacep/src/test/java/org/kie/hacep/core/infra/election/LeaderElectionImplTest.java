@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep.core.infra.election;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kie.hacep.core.GlobalStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LeaderElectionImplTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String GROUP = "drools";
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, true);
+
+    private KubernetesClient client;
+    private LeaderElectionImpl election;
+    private Queue<State> states = new ConcurrentLinkedQueue<>();
+
+    @Before
+    public void setUp() {
+        client = server.getClient();
+        createPod("pod-1");
+        createPod("pod-2");
+    }
+
+    @After
+    public void tearDown() {
+        if (election != null) {
+            election.stop();
+        }
+        GlobalStatus.leaderEpoch = 0L;
+    }
+
+    @Test
+    public void emptyClusterTest() throws Exception {
+        election = startElection("pod-1");
+        waitFor(State.LEADER);
+        assertEquals(1L, readLeaderInfo().getEpoch());
+        assertEquals(1L, GlobalStatus.leaderEpoch);
+    }
+
+    @Test
+    public void leaderLossIsWatchedTest() throws Exception {
+        LeaderInfo current = new LeaderInfo(GROUP, "pod-1", new Date(), Collections.emptySet(), 1L);
+        KubernetesLockConfiguration configuration = configuration("pod-2");
+        client.configMaps().inNamespace(NAMESPACE).create(ConfigMapLockUtils.createNewConfigMap(configuration.getConfigMapName(), current));
+
+        election = startElection("pod-2");
+        waitFor(State.REPLICA);
+
+        // the retry period is far longer than the test, only the pods watch can trigger the takeover
+        client.pods().inNamespace(NAMESPACE).withName("pod-1").delete();
+        waitFor(State.LEADER);
+
+        LeaderInfo leaderInfo = readLeaderInfo();
+        assertEquals("pod-2", leaderInfo.getLeader());
+        assertEquals(2L, leaderInfo.getEpoch());
+        assertEquals(2L, GlobalStatus.leaderEpoch);
+    }
+
+    @Test
+    public void restartedLeaderBumpsTheEpochTest() throws Exception {
+        // the lock still owned by a previous run of the same pod
+        LeaderInfo previousRun = new LeaderInfo(GROUP, "pod-1", new Date(), Collections.emptySet(), 3L);
+        KubernetesLockConfiguration configuration = configuration("pod-1");
+        client.configMaps().inNamespace(NAMESPACE).create(ConfigMapLockUtils.createNewConfigMap(configuration.getConfigMapName(), previousRun));
+
+        election = startElection("pod-1");
+        waitFor(State.LEADER);
+
+        LeaderInfo leaderInfo = readLeaderInfo();
+        assertEquals("pod-1", leaderInfo.getLeader());
+        assertEquals(4L, leaderInfo.getEpoch());
+        assertEquals(4L, GlobalStatus.leaderEpoch);
+    }
+
+    private LeaderElectionImpl startElection(String podName) {
+        LeaderElectionImpl leaderElection = new LeaderElectionImpl(client, configuration(podName), null);
+        LeadershipCallback callback = states::add;
+        leaderElection.addCallbacks(Collections.singletonList(callback));
+        leaderElection.start();
+        return leaderElection;
+    }
+
+    private KubernetesLockConfiguration configuration(String podName) {
+        KubernetesLockConfiguration configuration = new KubernetesLockConfiguration(NAMESPACE);
+        configuration.setKubernetesResourcesNamespace(NAMESPACE);
+        configuration.setGroupName(GROUP);
+        configuration.setPodName(podName);
+        configuration.addToClusterLabels("app", "hacep");
+        configuration.setRetryPeriodMillis(TimeUnit.MINUTES.toMillis(10));
+        configuration.setFastHandover(true);
+        return configuration;
+    }
+
+    private void createPod(String name) {
+        client.pods().inNamespace(NAMESPACE).create(new PodBuilder()
+                                                            .withNewMetadata()
+                                                            .withName(name)
+                                                            .addToLabels("app", "hacep")
+                                                            .endMetadata()
+                                                            .build());
+    }
+
+    private LeaderInfo readLeaderInfo() {
+        ConfigMap configMap = client.configMaps().inNamespace(NAMESPACE).withName(NAMESPACE + "-" + KubernetesLockConfiguration.DEFAULT_CONFIGMAP_NAME).get();
+        return ConfigMapLockUtils.getLeaderInfo(configMap, new HashSet<>(), GROUP);
+    }
+
+    private void waitFor(State state) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!states.contains(state) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue("State " + state + " not reached, received " + states, states.contains(state));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.hacep;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import org.junit.After;
+import org.junit.Test;
+import org.kie.hacep.core.GlobalStatus;
+import org.kie.hacep.core.infra.election.KafkaLeaderElection;
+import org.kie.hacep.core.infra.election.LeadershipCallback;
+import org.kie.hacep.core.infra.election.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class KafkaLeaderElectionTest extends KafkaFullTopicsTests {
+
+    private static final long WAIT_MILLIS = 20000;
+
+    private Logger logger = LoggerFactory.getLogger("org.hacep");
+    private EnvConfig electionConfig;
+    private KafkaLeaderElection first, second;
+
+    @After
+    public void stopElections() throws Exception {
+        if (first != null) {
+            first.stop();
+        }
+        if (second != null) {
+            second.stop();
+        }
+        GlobalStatus.leaderEpoch = 0L;
+    }
+
+    @Test(timeout = 60000)
+    public void failoverTest() throws Exception {
+        electionConfig = envConfig.clone().withLeaderElectionSessionTimeout("6000");
+
+        Queue<State> firstStates = new ConcurrentLinkedQueue<>();
+        first = startElection(firstStates);
+        waitFor(firstStates, State.LEADER);
+        long firstEpoch = first.getEpoch();
+
+        Queue<State> secondStates = new ConcurrentLinkedQueue<>();
+        second = startElection(secondStates);
+        waitFor(secondStates, State.REPLICA);
+        assertEquals(State.LEADER, first.getCurrentState());
+
+        long start = System.currentTimeMillis();
+        first.stop();
+        first = null;
+        waitFor(secondStates, State.LEADER);
+        logger.warn("Failover completed in {} ms", System.currentTimeMillis() - start);
+
+        assertEquals(firstEpoch + 1, second.getEpoch());
+        assertEquals(second.getEpoch(), GlobalStatus.leaderEpoch);
+    }
+
+    @Test(timeout = 90000)
+    public void leaderStepsDownWhenTheRenewalFailsTest() throws Exception {
+        electionConfig = envConfig.clone().withLeaderElectionSessionTimeout("6000");
+
+        AtomicBoolean failNextCommit = new AtomicBoolean();
+        Queue<State> firstStates = new ConcurrentLinkedQueue<>();
+        first = new KafkaLeaderElection(electionConfig) {
+            @Override
+            protected Consumer<String, byte[]> createConsumer(Properties properties) {
+                return new KafkaConsumer<String, byte[]>(properties) {
+                    @Override
+                    public void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+                        if (failNextCommit.compareAndSet(true, false)) {
+                            throw new CommitFailedException();
+                        }
+                        super.commitSync(offsets);
+                    }
+                };
+            }
+        };
+        LeadershipCallback callback = firstStates::add;
+        first.addCallbacks(Collections.singletonList(callback));
+        first.start();
+        waitFor(firstStates, State.LEADER);
+
+        Queue<State> secondStates = new ConcurrentLinkedQueue<>();
+        second = startElection(secondStates);
+        waitFor(secondStates, State.REPLICA);
+
+        failNextCommit.set(true);
+        waitFor(firstStates, State.REPLICA);
+        waitFor(secondStates, State.LEADER);
+
+        // the old leader doesn't take the lease back when it rejoins the group
+        Thread.sleep(2 * electionConfig.getLeaderElectionSessionTimeout());
+        assertEquals(Arrays.asList(State.LEADER, State.REPLICA), new ArrayList<>(firstStates));
+        assertEquals(State.LEADER, second.getCurrentState());
+        assertEquals(second.getEpoch(), GlobalStatus.leaderEpoch);
+    }
+
+    private KafkaLeaderElection startElection(Queue<State> states) {
+        KafkaLeaderElection election = new KafkaLeaderElection(electionConfig);
+        LeadershipCallback callback = states::add;
+        election.addCallbacks(Collections.singletonList(callback));
+        election.start();
+        return election;
+    }
+
+    private void waitFor(Queue<State> states, State state) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!states.contains(state)) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("State " + state + " not reached in " + WAIT_MILLIS + " ms, states: " + states);
+            }
+            Thread.sleep(100);
+        }
+    }
+}
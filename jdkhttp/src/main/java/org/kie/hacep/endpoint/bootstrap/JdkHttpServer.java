@@ -18,6 +18,7 @@ package org.kie.hacep.endpoint.bootstrap;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import com.sun.net.httpserver.HttpExchange;
@@ -26,6 +27,7 @@ import com.sun.net.httpserver.HttpServer;
 import org.kie.hacep.EnvConfig;
 import org.kie.hacep.core.Bootstrap;
 import org.kie.hacep.core.GlobalStatus;
+import org.kie.hacep.core.HacepMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +43,7 @@ public class JdkHttpServer {
         server.createContext("/readiness", new ReadinessHandler());
         server.createContext("/liveness", new LivenessHandler());
         server.createContext("/env/all", new EnvHandler());
+        server.createContext("/metrics", new MetricsHandler());
         server.start();
         Bootstrap.startEngine(EnvConfig.getDefaultEnvConfig());
         logger.info("Core system started");
@@ -51,7 +54,7 @@ public class JdkHttpServer {
 
         @Override
         public void handle(HttpExchange httpExchange) throws IOException {
-            initResponse(httpExchange, GlobalStatus.nodeReady);
+            initResponse(httpExchange, GlobalStatus.isReady());
         }
     }
 
@@ -89,4 +92,17 @@ public class JdkHttpServer {
             os.close();
         }
     }
+
+    private static class MetricsHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange httpExchange) throws IOException {
+            byte[] result = HacepMetrics.scrape().getBytes(StandardCharsets.UTF_8);
+            httpExchange.getResponseHeaders().set("Content-Type", HacepMetrics.CONTENT_TYPE);
+            httpExchange.sendResponseHeaders(200, result.length);
+            OutputStream os = httpExchange.getResponseBody();
+            os.write(result);
+            os.close();
+        }
+    }
 }
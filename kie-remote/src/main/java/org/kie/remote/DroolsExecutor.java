@@ -17,26 +17,58 @@
 package org.kie.remote;
 
 import java.io.Serializable;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
 import java.util.function.Supplier;
 
 public abstract class DroolsExecutor {
 
-    private static boolean isLeader = false;
+    /* used by the threads without a bound context, e.g. a single session per JVM */
+    private static final DroolsExecutorContext GLOBAL_CONTEXT = new DroolsExecutorContext();
+    private static final ThreadLocal<DroolsExecutorContext> CURRENT_CONTEXT = new ThreadLocal<>();
 
-    protected Queue<Object> executionResults = new ArrayDeque<>();
+    protected SideEffectsBuffer executionResults = new SideEffectsBuffer();
 
     public static DroolsExecutor getInstance() {
-        return isLeader ? Leader.INSTANCE : Slave.INSTANCE;
+        return getContext().getExecutor();
     }
 
+    public static DroolsExecutorContext getContext() {
+        DroolsExecutorContext context = CURRENT_CONTEXT.get();
+        return context != null ? context : GLOBAL_CONTEXT;
+    }
+
+    static DroolsExecutorContext bindContext(DroolsExecutorContext context) {
+        DroolsExecutorContext previous = CURRENT_CONTEXT.get();
+        CURRENT_CONTEXT.set(context);
+        return previous;
+    }
+
+    public static void restoreContext(DroolsExecutorContext previous) {
+        if (previous == null) {
+            CURRENT_CONTEXT.remove();
+        } else {
+            CURRENT_CONTEXT.set(previous);
+        }
+    }
+
+    /**
+     * Changes the role of the context of the current thread
+     */
     public static void setAsLeader() {
-        isLeader = true;
+        getContext().setAsLeader();
     }
 
+    /**
+     * Changes the role of the context of the current thread
+     */
     public static void setAsReplica() {
-        isLeader = false;
+        getContext().setAsReplica();
     }
 
     public abstract boolean isLeader();
@@ -45,17 +77,39 @@ public abstract class DroolsExecutor {
 
     public abstract <R> R execute( Supplier<R> f );
 
+    /**
+     * Executes a side effect without waiting its completion, the rule evaluation goes on while it's running.
+     * On the leader the results of a command are published only when all its side effects are completed,
+     * the replicas get the recorded result (or failure) without invoking the supplier.
+     * The callbacks of the returned stage can run outside the engine thread, they must not change the session.
+     */
+    public abstract <R> CompletionStage<R> executeAsync( Supplier<CompletionStage<R>> f );
+
     public Queue<Object> getAndReset() {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * The results of the side effects of the last command, completed when the async ones are completed
+     */
+    public CompletionStage<Queue<Object>> getAndResetAsync() {
+        throw new UnsupportedOperationException();
+    }
+
     public void appendSideEffects(Queue<Object> sideEffects) {
         throw new UnsupportedOperationException();
     }
 
     public static class Leader extends DroolsExecutor {
 
-        private static final Leader INSTANCE = new Leader();
+        /* bounds the async side effects running at the same time, the engine thread waits for a free permit */
+        private final Semaphore asyncPermits;
+        /* the outcomes of the async side effects of the current command */
+        private final List<CompletableFuture<Object>> pendingResults = new ArrayList<>();
+
+        Leader(int maxPendingAsync) {
+            this.asyncPermits = new Semaphore(maxPendingAsync);
+        }
 
         @Override
         public boolean isLeader() {
@@ -75,17 +129,83 @@ public abstract class DroolsExecutor {
             return result;
         }
 
+        @Override
+        public <R> CompletionStage<R> executeAsync( Supplier<CompletionStage<R>> f ) {
+            try {
+                asyncPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting a free slot for an async side effect", e);
+            }
+            CompletableFuture<R> result = new CompletableFuture<>();
+            PendingResult pending = new PendingResult(result);
+            executionResults.add(pending);
+            pendingResults.add(pending.outcome);
+            CompletionStage<R> stage;
+            try {
+                stage = f.get();
+            } catch (RuntimeException e) {
+                stage = failed(e);
+            }
+            stage.whenComplete((r, t) -> {
+                asyncPermits.release();
+                if (t == null) {
+                    result.complete(r);
+                } else {
+                    result.completeExceptionally(t);
+                }
+            });
+            return result;
+        }
+
+        /**
+         * The returned queue is owned by the caller, the buffer collecting the results is reused internally.
+         * Waits the completion of the async side effects, if any
+         */
         @Override
         public Queue<Object> getAndReset() {
-            Queue<Object> results = executionResults;
-            executionResults = new ArrayDeque<>();
-            return results;
+            if (!pendingResults.isEmpty()) {
+                return getAndResetAsync().toCompletableFuture().join();
+            }
+            return executionResults.drain();
+        }
+
+        /**
+         * The queue is owned by the caller, it can be published after the results of the next commands
+         */
+        @Override
+        public CompletionStage<Queue<Object>> getAndResetAsync() {
+            if (pendingResults.isEmpty()) {
+                return CompletableFuture.completedFuture(executionResults.drain());
+            }
+            SideEffectsBuffer results = executionResults;
+            executionResults = new SideEffectsBuffer();
+            CompletableFuture<?>[] outcomes = pendingResults.toArray(new CompletableFuture<?>[pendingResults.size()]);
+            pendingResults.clear();
+            return CompletableFuture.allOf(outcomes).thenApply(v -> resolve(results));
+        }
+
+        private static Queue<Object> resolve(SideEffectsBuffer results) {
+            SideEffectsBuffer resolved = new SideEffectsBuffer();
+            for (Object result : results) {
+                resolved.add(result instanceof PendingResult ? ((PendingResult) result).outcome.join() : result);
+            }
+            return resolved;
+        }
+
+        private static class PendingResult {
+
+            private final CompletableFuture<Object> outcome;
+
+            private PendingResult(CompletableFuture<?> result) {
+                this.outcome = result.handle((r, t) -> t == null ? r : new FailedResult(t));
+            }
         }
     }
 
     public static class Slave extends DroolsExecutor {
 
-        private static final Slave INSTANCE = new Slave();
+        Slave() { }
 
         @Override
         public boolean isLeader() {
@@ -102,13 +222,77 @@ public abstract class DroolsExecutor {
             return ( R ) executionResults.poll();
         }
 
+        @Override
+        public <R> CompletionStage<R> executeAsync( Supplier<CompletionStage<R>> f ) {
+            Object result = executionResults.poll();
+            if (result instanceof FailedResult) {
+                return failed(((FailedResult) result).toException());
+            }
+            return CompletableFuture.completedFuture(( R ) result);
+        }
+
         @Override
         public void appendSideEffects(Queue<Object> sideEffects) {
             executionResults.addAll(sideEffects);
         }
+
+        /**
+         * Takes the next result only when it's of the given type,
+         * used for the results recorded by the engine itself before the command is processed
+         */
+        public <T> T pollIf(Class<T> type) {
+            Object result = executionResults.peek();
+            return type.isInstance(result) ? type.cast(executionResults.poll()) : null;
+        }
+    }
+
+    private static <R> CompletionStage<R> failed(Throwable t) {
+        CompletableFuture<R> failed = new CompletableFuture<>();
+        failed.completeExceptionally(t);
+        return failed;
     }
 
     public static class EmptyResult implements Serializable {
         public static final EmptyResult INSTANCE = new EmptyResult();
+
+        private Object readResolve() {
+            return INSTANCE;
+        }
+    }
+
+    /**
+     * The failure of an async side effect, recorded for the replicas without the original exception
+     * that could be not serializable
+     */
+    public static class FailedResult implements Serializable {
+
+        private final String errorClass;
+        private final String errorMessage;
+
+        public FailedResult(Throwable t) {
+            Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+            this.errorClass = cause.getClass().getName();
+            this.errorMessage = cause.getMessage();
+        }
+
+        public String getErrorClass() {
+            return errorClass;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+
+        public RuntimeException toException() {
+            return new IllegalStateException("Side effect failed on the leader with " + errorClass + ": " + errorMessage);
+        }
+
+        @Override
+        public String toString() {
+            return "FailedResult{" +
+                    "errorClass='" + errorClass + '\'' +
+                    ", errorMessage='" + errorMessage + '\'' +
+                    '}';
+        }
     }
 }
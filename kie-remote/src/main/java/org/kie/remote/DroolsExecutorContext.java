@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote;
+
+/**
+ * Role and side effects of a session: the executor returned by {@link DroolsExecutor#getInstance()}
+ * is the one of the context bound to the current thread, so several sessions can run on their own threads
+ * with their own role. The role can be changed from any thread, it's seen by the next command processed.
+ */
+public class DroolsExecutorContext {
+
+    public static final int DEFAULT_MAX_PENDING_ASYNC = 100;
+
+    private final DroolsExecutor.Leader leader;
+    private final DroolsExecutor.Slave replica = new DroolsExecutor.Slave();
+    private volatile boolean isLeader;
+
+    public DroolsExecutorContext() {
+        this(DEFAULT_MAX_PENDING_ASYNC);
+    }
+
+    /**
+     * @param maxPendingAsync the async side effects that can run at the same time on the leader
+     */
+    public DroolsExecutorContext(int maxPendingAsync) {
+        this.leader = new DroolsExecutor.Leader(maxPendingAsync);
+    }
+
+    public DroolsExecutor getExecutor() {
+        return isLeader ? leader : replica;
+    }
+
+    public boolean isLeader() {
+        return isLeader;
+    }
+
+    public void setAsLeader() {
+        isLeader = true;
+    }
+
+    public void setAsReplica() {
+        isLeader = false;
+    }
+
+    /**
+     * Binds this context to the current thread
+     * @return the context previously bound, to be restored with {@link DroolsExecutor#restoreContext(DroolsExecutorContext)}
+     */
+    public DroolsExecutorContext bind() {
+        return DroolsExecutor.bindContext(this);
+    }
+}
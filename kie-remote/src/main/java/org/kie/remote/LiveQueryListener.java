@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote;
+
+/**
+ * Receives the incremental changes of a live query subscribed through
+ * {@link RemoteWorkingMemory#subscribe(String, String, LiveQueryListener, Object...)}.
+ * The callbacks are invoked by the listener thread, in the same order in which
+ * the changes happened on the server.
+ */
+public interface LiveQueryListener<T> {
+
+    void onAdded(T object);
+
+    void onUpdated(T object);
+
+    void onRemoved(T object);
+
+    /**
+     * Invoked when the server can no longer replay the changes missed by this client.
+     * All the rows received so far have to be discarded: the current content of the
+     * query will follow as a sequence of {@link #onAdded(Object)} notifications.
+     */
+    default void onReset() { }
+}
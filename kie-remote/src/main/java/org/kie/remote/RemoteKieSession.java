@@ -17,6 +17,7 @@
 package org.kie.remote;
 
 import java.io.Closeable;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 
@@ -38,4 +39,9 @@ public interface RemoteKieSession extends Closeable, RemoteEntryPoint, RemoteSta
 
     CompletableFuture<Boolean> updateKJarGAV(String kjar);
 
+    /**
+     * The activity of the rules on the leader, by estimated consequence time, empty when the rule stats aren't enabled
+     */
+    CompletableFuture<List<RuleStats>> getRuleStats();
+
 }
@@ -67,4 +67,26 @@ public interface RemoteWorkingMemory {
      */
     <T> CompletableFuture<T> getObject(RemoteFactHandle<T> remoteFactHandle);
 
+    /**
+     * Opens a live query on the server: the listener is notified only with the rows added, updated or removed
+     * since the previous notification, starting with the rows already matching the query.
+     * @@param namedQuery name of the query to open
+     * @@param objectName name of the object to read from each row of the query
+     * @@param listener receiving the changes
+     * @@param params for the query
+     * @@return the RemoteLiveQuery to close the subscription or to read its last sequence
+     */
+    <T> RemoteLiveQuery subscribe(String namedQuery, String objectName, LiveQueryListener<T> listener, Object... params);
+
+    /**
+     * Attaches a listener to a live query already opened, for instance by a client that has been restarted.
+     * The changes after the given sequence are sent again if still retained by the server,
+     * otherwise the listener receives a reset followed by the whole content of the query.
+     * @@param subscriptionId id of the live query to resume
+     * @@param lastSequence sequence of the last batch of changes received
+     * @@param listener receiving the changes
+     * @@return the resumed RemoteLiveQuery
+     */
+    <T> RemoteLiveQuery resume(String subscriptionId, long lastSequence, LiveQueryListener<T> listener);
+
 }
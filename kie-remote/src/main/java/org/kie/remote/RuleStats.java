@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote;
+
+import java.io.Serializable;
+
+/**
+ * The activity of a rule on the leader since the session was started on it.
+ * The consequence times are measured on a sample of the firings.
+ */
+public class RuleStats implements Serializable {
+
+    private String ruleName;
+    private long matches;
+    private long fires;
+    private long cancelled;
+    private long sampledFires;
+    private long sampledConsequenceNanos;
+    private long maxConsequenceNanos;
+
+    /* Empty constructor for serialization */
+    public RuleStats() { }
+
+    public RuleStats(String ruleName,
+                     long matches,
+                     long fires,
+                     long cancelled,
+                     long sampledFires,
+                     long sampledConsequenceNanos,
+                     long maxConsequenceNanos) {
+        this.ruleName = ruleName;
+        this.matches = matches;
+        this.fires = fires;
+        this.cancelled = cancelled;
+        this.sampledFires = sampledFires;
+        this.sampledConsequenceNanos = sampledConsequenceNanos;
+        this.maxConsequenceNanos = maxConsequenceNanos;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public long getMatches() {
+        return matches;
+    }
+
+    public long getFires() {
+        return fires;
+    }
+
+    public long getCancelled() {
+        return cancelled;
+    }
+
+    public long getSampledFires() {
+        return sampledFires;
+    }
+
+    public long getSampledConsequenceNanos() {
+        return sampledConsequenceNanos;
+    }
+
+    public long getMaxConsequenceNanos() {
+        return maxConsequenceNanos;
+    }
+
+    public double getAverageConsequenceNanos() {
+        return sampledFires > 0 ? (double) sampledConsequenceNanos / sampledFires : 0;
+    }
+
+    /**
+     * The time spent in the consequences of the rule, estimated from the sampled firings
+     */
+    public double getEstimatedConsequenceNanos() {
+        return getAverageConsequenceNanos() * fires;
+    }
+
+    @Override
+    public String toString() {
+        return "RuleStats{" +
+                "ruleName='" + ruleName + '\'' +
+                ", matches=" + matches +
+                ", fires=" + fires +
+                ", cancelled=" + cancelled +
+                ", sampledFires=" + sampledFires +
+                ", averageConsequenceNanos=" + getAverageConsequenceNanos() +
+                ", maxConsequenceNanos=" + maxConsequenceNanos +
+                '}';
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.kie.remote.DroolsExecutor.EmptyResult;
+
+/**
+ * Reusable queue of the side effects of a command.
+ * Consecutive {@link EmptyResult}s, produced by the side effects without a result, are kept as a single run,
+ * and {@link #clear()} keeps the allocated arrays, so the buffer recording the side effects doesn't grow again
+ * once warmed up, while {@link #drain()} hands out a copy sized to the side effects of the command.
+ * The encoding written by {@link #writeTo(ObjectOutput)} is empty when there are no side effects.
+ */
+public class SideEffectsBuffer extends AbstractQueue<Object> {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final Object[] NO_SLOTS = new Object[0];
+    private static final int[] NO_RUNS = new int[0];
+    private static final byte RUN_OF_EMPTY_RESULTS = 0;
+    private static final byte RESULT = 1;
+
+    /* a slot holds a result, or EmptyResult.INSTANCE with the length of the run in runs */
+    private Object[] slots;
+    private int[] runs;
+    private int head;
+    private int tail;
+    private int size;
+
+    public SideEffectsBuffer() {
+        this(new Object[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], 0, 0);
+    }
+
+    private SideEffectsBuffer(Object[] slots, int[] runs, int tail, int size) {
+        this.slots = slots;
+        this.runs = runs;
+        this.tail = tail;
+        this.size = size;
+    }
+
+    @Override
+    public boolean offer(Object result) {
+        if (result instanceof EmptyResult && tail > head && slots[tail - 1] == EmptyResult.INSTANCE) {
+            runs[tail - 1]++;
+        } else {
+            if (tail == slots.length) {
+                grow();
+            }
+            slots[tail] = result instanceof EmptyResult ? EmptyResult.INSTANCE : result;
+            runs[tail] = 1;
+            tail++;
+        }
+        size++;
+        return true;
+    }
+
+    @Override
+    public Object poll() {
+        if (size == 0) {
+            return null;
+        }
+        Object result = slots[head];
+        if (--runs[head] == 0) {
+            slots[head] = null;
+            head++;
+        }
+        size--;
+        if (size == 0) {
+            head = 0;
+            tail = 0;
+        }
+        return result;
+    }
+
+    @Override
+    public Object peek() {
+        return size == 0 ? null : slots[head];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(slots, head, tail, null);
+        head = 0;
+        tail = 0;
+        size = 0;
+    }
+
+    /**
+     * Moves the side effects to a new buffer sized to hold them, owned by the caller,
+     * while this one is cleared keeping its arrays
+     */
+    public SideEffectsBuffer drain() {
+        SideEffectsBuffer drained = size == 0 ?
+                new SideEffectsBuffer(NO_SLOTS, NO_RUNS, 0, 0) :
+                new SideEffectsBuffer(Arrays.copyOfRange(slots, head, tail), Arrays.copyOfRange(runs, head, tail), tail - head, size);
+        clear();
+        return drained;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+
+            private int slot = head;
+            private int consumedInRun;
+
+            @Override
+            public boolean hasNext() {
+                return slot < tail;
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object result = slots[slot];
+                if (++consumedInRun == runs[slot]) {
+                    consumedInRun = 0;
+                    slot++;
+                }
+                return result;
+            }
+        };
+    }
+
+    public void writeTo(ObjectOutput out) throws IOException {
+        if (size == 0) {
+            return;
+        }
+        writeVarInt(out, tail - head);
+        for (int i = head; i < tail; i++) {
+            if (slots[i] == EmptyResult.INSTANCE) {
+                out.writeByte(RUN_OF_EMPTY_RESULTS);
+                writeVarInt(out, runs[i]);
+            } else {
+                out.writeByte(RESULT);
+                out.writeObject(slots[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads the side effects written by {@link #writeTo(ObjectOutput)}, they must be the last data of the object
+     */
+    public static SideEffectsBuffer readFrom(ObjectInput in) throws IOException, ClassNotFoundException {
+        SideEffectsBuffer buffer = new SideEffectsBuffer();
+        int first = in.read();
+        if (first < 0) { // end of the object data, no side effects
+            return buffer;
+        }
+        int entries = readVarInt(in, first);
+        for (int i = 0; i < entries; i++) {
+            if (in.readByte() == RUN_OF_EMPTY_RESULTS) {
+                int run = readVarInt(in, in.readUnsignedByte());
+                for (int j = 0; j < run; j++) {
+                    buffer.offer(EmptyResult.INSTANCE);
+                }
+            } else {
+                buffer.offer(in.readObject());
+            }
+        }
+        return buffer;
+    }
+
+    private void grow() {
+        if (head > 0) { // reuse the space of the polled slots
+            int used = tail - head;
+            System.arraycopy(slots, head, slots, 0, used);
+            System.arraycopy(runs, head, runs, 0, used);
+            Arrays.fill(slots, used, tail, null);
+            head = 0;
+            tail = used;
+            if (tail < slots.length) {
+                return;
+            }
+        }
+        int capacity = Math.max(slots.length * 2, INITIAL_CAPACITY);
+        slots = Arrays.copyOf(slots, capacity);
+        runs = Arrays.copyOf(runs, capacity);
+    }
+
+    private static void writeVarInt(ObjectOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ObjectInput in, int first) throws IOException {
+        int value = first & 0x7F;
+        int shift = 7;
+        int current = first;
+        while ((current & 0x80) != 0) {
+            current = in.readUnsignedByte();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.command;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kinds of command, written in the header of the serialized commands
+ * so they can be recognized without deserializing them.
+ * The code of an existing kind must never change.
+ */
+public enum CommandKind {
+
+    OTHER(0, null),
+    FIRE_ALL_RULES(1, FireAllRulesCommand.class),
+    FIRE_UNTIL_HALT(2, FireUntilHaltCommand.class),
+    HALT(3, HaltCommand.class),
+    INSERT(4, InsertCommand.class),
+    EVENT_INSERT(5, EventInsertCommand.class),
+    DELETE(6, DeleteCommand.class),
+    UPDATE(7, UpdateCommand.class),
+    LIST_OBJECTS(8, ListObjectsCommand.class),
+    LIST_OBJECTS_CLASS_TYPE(9, ListObjectsCommandClassType.class),
+    LIST_OBJECTS_NAMED_QUERY(10, ListObjectsCommandNamedQuery.class),
+    FACT_COUNT(11, FactCountCommand.class),
+    SNAPSHOT_ON_DEMAND(12, SnapshotOnDemandCommand.class),
+    GET_OBJECT(13, GetObjectCommand.class),
+    UPDATE_KJAR(14, UpdateKJarCommand.class),
+    GET_KJAR_GAV(15, GetKJarGAVCommand.class),
+    LIVE_QUERY_SUBSCRIBE(16, LiveQuerySubscribeCommand.class),
+    LIVE_QUERY_RESUME(17, LiveQueryResumeCommand.class),
+    LIVE_QUERY_CLOSE(18, LiveQueryCloseCommand.class),
+    HEARTBEAT(19, HeartbeatCommand.class),
+    GET_RULE_STATS(20, GetRuleStatsCommand.class);
+
+    private static final CommandKind[] BY_CODE;
+    private static final Map<Class<?>, CommandKind> BY_CLASS = new HashMap<>();
+
+    static {
+        int max = 0;
+        for (CommandKind kind : values()) {
+            max = Math.max(max, kind.code);
+            if (kind.type != null) {
+                BY_CLASS.put(kind.type, kind);
+            }
+        }
+        BY_CODE = new CommandKind[max + 1];
+        for (CommandKind kind : values()) {
+            BY_CODE[kind.code] = kind;
+        }
+    }
+
+    private final byte code;
+    private final Class<? extends RemoteCommand> type;
+
+    CommandKind(int code, Class<? extends RemoteCommand> type) {
+        this.code = (byte) code;
+        this.type = type;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static CommandKind of(RemoteCommand command) {
+        return BY_CLASS.getOrDefault(command.getClass(), OTHER);
+    }
+
+    public static CommandKind ofCode(byte code) {
+        return code >= 0 && code < BY_CODE.length && BY_CODE[code] != null ? BY_CODE[code] : OTHER;
+    }
+}
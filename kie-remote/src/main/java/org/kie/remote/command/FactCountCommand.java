@@ -16,7 +16,8 @@
 package org.kie.remote.command;
 
 import java.io.Serializable;
-import java.util.UUID;
+
+import org.kie.remote.util.IdGenerator;
 
 public class FactCountCommand extends AbstractCommand implements VisitableCommand,
                                                                             Serializable {
@@ -26,7 +27,7 @@ public class FactCountCommand extends AbstractCommand implements VisitableComman
     public FactCountCommand() { }
 
     public FactCountCommand(String entryPoint) {
-        super(UUID.randomUUID().toString());
+        super(IdGenerator.nextId());
         this.entryPoint = entryPoint;
     }
 
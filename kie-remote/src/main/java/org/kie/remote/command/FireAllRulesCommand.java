@@ -16,12 +16,13 @@
 package org.kie.remote.command;
 
 import java.io.Serializable;
-import java.util.UUID;
+
+import org.kie.remote.util.IdGenerator;
 
 public class FireAllRulesCommand extends AbstractCommand implements VisitableCommand, Serializable {
 
     public FireAllRulesCommand() {
-        super(UUID.randomUUID().toString());
+        super(IdGenerator.nextId());
     }
 
     @Override
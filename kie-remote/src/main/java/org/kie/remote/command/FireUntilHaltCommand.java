@@ -16,12 +16,13 @@
 package org.kie.remote.command;
 
 import java.io.Serializable;
-import java.util.UUID;
+
+import org.kie.remote.util.IdGenerator;
 
 public class FireUntilHaltCommand extends AbstractCommand implements VisitableCommand, Serializable {
 
     public FireUntilHaltCommand() {
-        super(UUID.randomUUID().toString());
+        super(IdGenerator.nextId());
     }
 
     @Override
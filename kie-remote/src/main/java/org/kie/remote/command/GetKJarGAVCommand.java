@@ -16,14 +16,15 @@
 package org.kie.remote.command;
 
 import java.io.Serializable;
-import java.util.UUID;
+
+import org.kie.remote.util.IdGenerator;
 
 public class GetKJarGAVCommand extends AbstractCommand implements VisitableCommand, Serializable {
 
     private String entryPoint;
 
     public GetKJarGAVCommand(String entryPoint){
-        super(UUID.randomUUID().toString());
+        super(IdGenerator.nextId());
         this.entryPoint = entryPoint;
     }
 
@@ -17,9 +17,9 @@ package org.kie.remote.command;
 
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.UUID;
 
 import org.kie.remote.RemoteFactHandle;
+import org.kie.remote.util.IdGenerator;
 
 public class GetObjectCommand extends AbstractCommand implements VisitableCommand,
                                                                  Serializable {
@@ -27,11 +27,11 @@ public class GetObjectCommand extends AbstractCommand implements VisitableComman
     private RemoteFactHandle remoteFactHandle;
 
     public GetObjectCommand() {
-        super(UUID.randomUUID().toString());
+        super(IdGenerator.nextId());
     }
 
     public GetObjectCommand(RemoteFactHandle remoteFactHandle) {
-        super( UUID.randomUUID().toString() );
+        super( IdGenerator.nextId() );
         this.remoteFactHandle = remoteFactHandle;
     }
 
@@ -16,12 +16,13 @@
 package org.kie.remote.command;
 
 import java.io.Serializable;
-import java.util.UUID;
+
+import org.kie.remote.util.IdGenerator;
 
 public class HaltCommand extends AbstractCommand implements VisitableCommand, Serializable {
 
     public HaltCommand() {
-        super(UUID.randomUUID().toString());
+        super(IdGenerator.nextId());
     }
 
     @Override
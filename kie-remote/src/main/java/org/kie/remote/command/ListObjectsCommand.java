@@ -16,7 +16,8 @@
 package org.kie.remote.command;
 
 import java.io.Serializable;
-import java.util.UUID;
+
+import org.kie.remote.util.IdGenerator;
 
 public class ListObjectsCommand extends AbstractCommand implements VisitableCommand,
                                                                    Serializable {
@@ -27,7 +28,7 @@ public class ListObjectsCommand extends AbstractCommand implements VisitableComm
     }
 
     public ListObjectsCommand(String entryPoint) {
-        super(UUID.randomUUID().toString());
+        super(IdGenerator.nextId());
         this.entryPoint = entryPoint;
     }
 
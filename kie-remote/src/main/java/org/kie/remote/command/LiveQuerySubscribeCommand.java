@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.command;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.kie.remote.util.IdGenerator;
+
+public class LiveQuerySubscribeCommand extends AbstractCommand implements VisitableCommand,
+                                                                          Serializable {
+
+    private String entryPoint;
+    private String namedQuery;
+    private String objectName;
+    private Object[] params;
+
+    public LiveQuerySubscribeCommand() { }
+
+    public LiveQuerySubscribeCommand(String entryPoint,
+                                     String namedQuery,
+                                     String objectName,
+                                     Object... params) {
+        super(IdGenerator.nextId());
+        this.entryPoint = entryPoint;
+        this.namedQuery = namedQuery;
+        this.objectName = objectName;
+        this.params = params;
+    }
+
+    public String getEntryPoint() {
+        return entryPoint;
+    }
+
+    public String getNamedQuery() {
+        return namedQuery;
+    }
+
+    public String getObjectName() {
+        return objectName;
+    }
+
+    public Object[] getParams() {
+        return params;
+    }
+
+    @Override
+    public void accept(VisitorCommand visitor) { visitor.visit(this); }
+
+    /* the live query is opened also on the replicas so they can go on with the notifications if promoted */
+    @Override
+    public boolean isPermittedForReplicas() { return true; }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LiveQuerySubscribeCommand{");
+        sb.append("entryPoint='").append(entryPoint).append('\'');
+        sb.append(", namedQuery='").append(namedQuery).append('\'');
+        sb.append(", objectName='").append(objectName).append('\'');
+        sb.append(", params=").append(Arrays.toString(params));
+        sb.append(", id='").append(getId()).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -17,11 +17,12 @@
 package org.kie.remote.command;
 
 import java.io.Serializable;
-import java.util.UUID;
+
+import org.kie.remote.util.IdGenerator;
 
 public class SnapshotOnDemandCommand extends AbstractCommand implements VisitableCommand, Serializable {
 
-    public SnapshotOnDemandCommand(){ super(UUID.randomUUID().toString());}
+    public SnapshotOnDemandCommand(){ super(IdGenerator.nextId());}
 
     @Override
     public boolean isPermittedForReplicas() {
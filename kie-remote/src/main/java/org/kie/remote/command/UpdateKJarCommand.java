@@ -16,7 +16,8 @@
 package org.kie.remote.command;
 
 import java.io.Serializable;
-import java.util.UUID;
+
+import org.kie.remote.util.IdGenerator;
 
 public class UpdateKJarCommand extends AbstractCommand implements VisitableCommand, RemoteCommand, Serializable {
 
@@ -24,7 +25,7 @@ public class UpdateKJarCommand extends AbstractCommand implements VisitableComma
     private String groupID, artifactID, version;
 
     public UpdateKJarCommand(String kjarGAV){
-        super(UUID.randomUUID().toString());
+        super(IdGenerator.nextId());
         this.kJarGAV = kjarGAV;
         String parts[]= this.kJarGAV.split(":");
         groupID = parts[0];
@@ -46,4 +46,14 @@ public interface VisitorCommand {
     void visit(UpdateKJarCommand command);
 
     void visit(GetKJarGAVCommand command);
+
+    void visit(LiveQuerySubscribeCommand command);
+
+    void visit(LiveQueryResumeCommand command);
+
+    void visit(LiveQueryCloseCommand command);
+
+    void visit(HeartbeatCommand command);
+
+    void visit(GetRuleStatsCommand command);
 }
\ No newline at end of file
@@ -16,9 +16,9 @@
 
 package org.kie.remote.command;
 
-import java.util.UUID;
 
 import org.kie.remote.RemoteFactHandle;
+import org.kie.remote.util.IdGenerator;
 
 public abstract class WorkingMemoryActionCommand extends AbstractCommand {
 
@@ -26,11 +26,11 @@ public abstract class WorkingMemoryActionCommand extends AbstractCommand {
     private String entryPoint;
 
     public WorkingMemoryActionCommand() {
-        super( UUID.randomUUID().toString() );
+        super( IdGenerator.nextId() );
     }
 
     public WorkingMemoryActionCommand( RemoteFactHandle factHandle, String entryPoint ) {
-        super( UUID.randomUUID().toString() );
+        super( IdGenerator.nextId() );
         this.factHandle = factHandle;
         this.entryPoint = entryPoint;
     }
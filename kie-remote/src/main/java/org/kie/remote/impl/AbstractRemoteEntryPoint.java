@@ -20,7 +20,9 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
+import org.kie.remote.LiveQueryListener;
 import org.kie.remote.RemoteFactHandle;
+import org.kie.remote.RemoteLiveQuery;
 import org.kie.remote.RemoteWorkingMemory;
 import org.kie.remote.TopicsConfig;
 import org.kie.remote.command.AbstractCommand;
@@ -29,6 +31,7 @@ import org.kie.remote.command.GetObjectCommand;
 import org.kie.remote.command.ListObjectsCommand;
 import org.kie.remote.command.ListObjectsCommandClassType;
 import org.kie.remote.command.ListObjectsCommandNamedQuery;
+import org.kie.remote.command.LiveQuerySubscribeCommand;
 import org.kie.remote.impl.producer.Sender;
 
 public abstract class AbstractRemoteEntryPoint implements RemoteWorkingMemory {
@@ -78,7 +81,22 @@ public abstract class AbstractRemoteEntryPoint implements RemoteWorkingMemory {
         return executeCommand(command);
     }
 
+    @Override
+    public <T> RemoteLiveQuery subscribe(String namedQuery, String objectName, LiveQueryListener<T> listener, Object... params) {
+        LiveQuerySubscribeCommand command = new LiveQuerySubscribeCommand(entryPoint, namedQuery, objectName, params);
+        RemoteLiveQueryImpl liveQuery = new RemoteLiveQueryImpl(command.getId(), 0L, listener, sender, topicsConfig, getSubscriptionsStore());
+        getSubscriptionsStore().put(command.getId(), liveQuery);
+        sender.sendCommand(command, topicsConfig.getEventsTopicName());
+        return liveQuery;
+    }
 
+    @Override
+    public <T> RemoteLiveQuery resume(String subscriptionId, long lastSequence, LiveQueryListener<T> listener) {
+        RemoteLiveQueryImpl liveQuery = new RemoteLiveQueryImpl(subscriptionId, lastSequence, listener, sender, topicsConfig, getSubscriptionsStore());
+        getSubscriptionsStore().put(subscriptionId, liveQuery);
+        liveQuery.resume();
+        return liveQuery;
+    }
 
     protected <T> CompletableFuture<T> executeCommand(AbstractCommand command ) {
         CompletableFuture callback = new CompletableFuture<>();
@@ -88,4 +106,6 @@ public abstract class AbstractRemoteEntryPoint implements RemoteWorkingMemory {
     }
 
     protected abstract Map<String, CompletableFuture<Object>> getRequestsStore();
+
+    protected abstract Map<String, RemoteLiveQueryImpl> getSubscriptionsStore();
 }
@@ -64,4 +64,8 @@ public class RemoteEntryPointImpl extends AbstractRemoteEntryPoint implements Re
     protected Map<String, CompletableFuture<Object>> getRequestsStore() {
         return delegate.getRequestsStore();
     }
+
+    protected Map<String, RemoteLiveQueryImpl> getSubscriptionsStore() {
+        return delegate.getSubscriptionsStore();
+    }
 }
\ No newline at end of file
@@ -16,29 +16,57 @@
 
 package org.kie.remote.impl;
 
-import java.util.Objects;
-import java.util.UUID;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 
 import org.kie.remote.RemoteFactHandle;
+import org.kie.remote.util.IdGenerator;
 
+/**
+ * Identified by a (client id, sequence) pair, see {@link IdGenerator}.
+ * The handles written when the id was a random UUID, e.g. inside the snapshots, are still readable:
+ * they keep their UUID as id.
+ */
 public class RemoteFactHandleImpl implements RemoteFactHandle {
 
-    private String id;
+    /* the default one of the handles with the UUID id, they are read by readObject */
+    private static final long serialVersionUID = -2245989696728822016L;
+
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("clientId", long.class),
+            new ObjectStreamField("sequence", long.class),
+            new ObjectStreamField("id", String.class),
+            new ObjectStreamField("object", Object.class)
+    };
+
+    private long clientId;
+    private long sequence;
+
+    /* the UUID of a handle written before the compact ids, null otherwise */
+    private String legacyId;
+
+    private transient String id;
 
     private Object object;
 
     /* Empty constructor for serialization */
     public RemoteFactHandleImpl() {
-        this.id = UUID.randomUUID().toString();
+        this.clientId = IdGenerator.getClientId();
+        this.sequence = IdGenerator.nextSequence();
     }
 
     public RemoteFactHandleImpl( Object object ) {
-        this.id = UUID.randomUUID().toString();
+        this();
         this.object = object;
     }
 
     @Override
     public String getId() {
+        if ( id == null ) {
+            id = legacyId != null ? legacyId : IdGenerator.toText( clientId, sequence );
+        }
         return id;
     }
 
@@ -52,19 +80,39 @@ public class RemoteFactHandleImpl implements RemoteFactHandle {
         if ( this == o ) return true;
         if ( o == null || getClass() != o.getClass() ) return false;
         RemoteFactHandleImpl that = ( RemoteFactHandleImpl ) o;
-        return id.equals( that.id );
+        if ( legacyId != null || that.legacyId != null ) {
+            return legacyId != null && legacyId.equals( that.legacyId );
+        }
+        return sequence == that.sequence && clientId == that.clientId;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash( id );
+        return legacyId != null ? legacyId.hashCode() : 31 * Long.hashCode( clientId ) + Long.hashCode( sequence );
     }
 
     @Override
     public String toString() {
         return "RemoteFactHandleImpl{" +
-                "id='" + id + '\'' +
+                "id='" + getId() + '\'' +
                 ", object=" + object +
                 '}';
     }
+
+    private void writeObject( ObjectOutputStream out ) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put( "clientId", clientId );
+        fields.put( "sequence", sequence );
+        fields.put( "id", legacyId );
+        fields.put( "object", object );
+        out.writeFields();
+    }
+
+    private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        clientId = fields.get( "clientId", 0L );
+        sequence = fields.get( "sequence", 0L );
+        legacyId = ( String ) fields.get( "id", null );
+        object = fields.get( "object", null );
+    }
 }
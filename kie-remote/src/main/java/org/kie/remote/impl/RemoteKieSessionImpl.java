@@ -16,14 +16,17 @@
 package org.kie.remote.impl;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 
 import org.kie.remote.RemoteEntryPoint;
 import org.kie.remote.RemoteKieSession;
+import org.kie.remote.RuleStats;
 import org.kie.remote.TopicsConfig;
 import org.kie.remote.command.GetKJarGAVCommand;
+import org.kie.remote.command.GetRuleStatsCommand;
 import org.kie.remote.command.UpdateKJarCommand;
 import org.kie.remote.impl.consumer.Listener;
 import org.kie.remote.impl.producer.Sender;
@@ -80,4 +83,10 @@ public class RemoteKieSessionImpl extends RemoteEntryPointImpl implements Remote
         GetKJarGAVCommand command = new GetKJarGAVCommand(entryPoint);
         return executeCommand(command);
     }
+
+    @Override
+    public CompletableFuture<List<RuleStats>> getRuleStats() {
+        GetRuleStatsCommand command = new GetRuleStatsCommand();
+        return executeCommand(command);
+    }
 }
\ No newline at end of file
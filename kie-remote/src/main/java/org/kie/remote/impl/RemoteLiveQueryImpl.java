@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.impl;
+
+import java.util.Map;
+
+import org.kie.remote.LiveQueryListener;
+import org.kie.remote.RemoteLiveQuery;
+import org.kie.remote.TopicsConfig;
+import org.kie.remote.command.LiveQueryCloseCommand;
+import org.kie.remote.command.LiveQueryResumeCommand;
+import org.kie.remote.impl.producer.Sender;
+import org.kie.remote.message.LiveQueryDelta;
+import org.kie.remote.message.LiveQueryMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class RemoteLiveQueryImpl implements RemoteLiveQuery {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteLiveQueryImpl.class);
+
+    private final String id;
+    private final LiveQueryListener listener;
+    private final Sender sender;
+    private final TopicsConfig topicsConfig;
+    private final Map<String, RemoteLiveQueryImpl> subscriptionsStore;
+    private volatile long lastSequence;
+    private volatile boolean resuming;
+
+    public RemoteLiveQueryImpl(String id,
+                               long lastSequence,
+                               LiveQueryListener listener,
+                               Sender sender,
+                               TopicsConfig topicsConfig,
+                               Map<String, RemoteLiveQueryImpl> subscriptionsStore) {
+        this.id = id;
+        this.lastSequence = lastSequence;
+        this.listener = listener;
+        this.sender = sender;
+        this.topicsConfig = topicsConfig;
+        this.subscriptionsStore = subscriptionsStore;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public void close() {
+        subscriptionsStore.remove(id);
+        sender.sendCommand(new LiveQueryCloseCommand(id), topicsConfig.getEventsTopicName());
+    }
+
+    public void resume() {
+        resuming = true;
+        sender.sendCommand(new LiveQueryResumeCommand(id, lastSequence), topicsConfig.getEventsTopicName());
+    }
+
+    public void onMessage(LiveQueryMessage message) {
+        if (message.isReset()) {
+            listener.onReset();
+        } else if (message.getSequence() <= lastSequence) {
+            // already received, republished by a new leader or by a resume
+            return;
+        } else if (message.getSequence() > lastSequence + 1) {
+            if (!resuming) {
+                logger.warn("Missing changes on live query {} between sequence {} and {}, resuming", id, lastSequence, message.getSequence());
+                resume();
+            }
+            return;
+        }
+        for (LiveQueryDelta delta : message.getDeltas()) {
+            switch (delta.getType()) {
+                case ADDED:
+                    listener.onAdded(delta.getObject());
+                    break;
+                case UPDATED:
+                    listener.onUpdated(delta.getObject());
+                    break;
+                case REMOVED:
+                    listener.onRemoved(delta.getObject());
+                    break;
+            }
+        }
+        lastSequence = message.getSequence();
+        resuming = false;
+    }
+}
@@ -53,6 +53,10 @@ public class RemoteStatefulSessionImpl implements RemoteStatefulSession {
         return listener.getRequestsStore();
     }
 
+    public Map<String, RemoteLiveQueryImpl> getSubscriptionsStore() {
+        return listener.getSubscriptionsStore();
+    }
+
     @Override
     public void fireUntilHalt() {
         sender.sendCommand(new FireUntilHaltCommand(), topicsConfig.getEventsTopicName());
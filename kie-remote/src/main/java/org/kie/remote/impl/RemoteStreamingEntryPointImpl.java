@@ -47,4 +47,8 @@ public class RemoteStreamingEntryPointImpl extends AbstractRemoteEntryPoint impl
     protected Map<String, CompletableFuture<Object>> getRequestsStore() {
         return delegate.getRequestsStore();
     }
+
+    protected Map<String, RemoteLiveQueryImpl> getSubscriptionsStore() {
+        return delegate.getSubscriptionsStore();
+    }
 }
\ No newline at end of file
@@ -31,6 +31,8 @@ import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.kie.remote.CommonConfig;
 import org.kie.remote.TopicsConfig;
+import org.kie.remote.impl.RemoteLiveQueryImpl;
+import org.kie.remote.message.LiveQueryMessage;
 import org.kie.remote.message.ResultMessage;
 import org.kie.remote.util.SerializationUtil;
 import org.slf4j.Logger;
@@ -42,14 +44,16 @@ public class KafkaListenerThread implements ListenerThread {
     private Properties configuration;
     private TopicsConfig topicsConfig;
     private Map<String, CompletableFuture<Object>> requestsStore;
+    private Map<String, RemoteLiveQueryImpl> subscriptionsStore;
     private KafkaConsumer consumer;
 
     private volatile boolean running = true;
 
-    public KafkaListenerThread(Properties configuration, TopicsConfig config, Map<String, CompletableFuture<Object>> requestsStore) {
+    public KafkaListenerThread(Properties configuration, TopicsConfig config, Map<String, CompletableFuture<Object>> requestsStore, Map<String, RemoteLiveQueryImpl> subscriptionsStore) {
         this.configuration = configuration;
         this.topicsConfig = config;
         this.requestsStore = requestsStore;
+        this.subscriptionsStore = subscriptionsStore;
         prepareConsumer();
     }
 
@@ -86,7 +90,9 @@ public class KafkaListenerThread implements ListenerThread {
                 for (Object item : records) {
                     ConsumerRecord<String, byte[]> record = (ConsumerRecord<String, byte[]>) item;
                     Object msg = SerializationUtil.deserialize(record.value());
-                    if (msg instanceof ResultMessage) {
+                    if (msg instanceof LiveQueryMessage) {
+                        notifyChanges(subscriptionsStore, (LiveQueryMessage) msg, logger);
+                    } else if (msg instanceof ResultMessage) {
                         complete(requestsStore, (ResultMessage) msg, logger);
                     } else if (msg != null) {
                         throw new IllegalStateException("Wrong type of response message: found " +
@@ -21,6 +21,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.kie.remote.TopicsConfig;
+import org.kie.remote.impl.RemoteLiveQueryImpl;
 
 import static org.kie.remote.CommonConfig.SKIP_LISTENER_AUTOSTART;
 import static org.kie.remote.util.ConfigurationUtil.readBoolean;
@@ -29,6 +30,8 @@ public class Listener {
 
     private final Map<String, CompletableFuture<Object>> requestsStore = new ConcurrentHashMap<>();
 
+    private final Map<String, RemoteLiveQueryImpl> subscriptionsStore = new ConcurrentHashMap<>();
+
     private final ListenerThread listenerThread;
 
     private Properties configuration;
@@ -36,7 +39,7 @@ public class Listener {
 
     public Listener(Properties configuration) {
         this.configuration = configuration;
-        listenerThread = ListenerThread.get( TopicsConfig.getDefaultTopicsConfig(), requestsStore, configuration );
+        listenerThread = ListenerThread.get( TopicsConfig.getDefaultTopicsConfig(), requestsStore, subscriptionsStore, configuration );
         if (!readBoolean(configuration, SKIP_LISTENER_AUTOSTART)) {
             start();
         }
@@ -53,9 +56,14 @@ public class Listener {
         return requestsStore;
     }
 
+    public Map<String, RemoteLiveQueryImpl> getSubscriptionsStore() {
+        return subscriptionsStore;
+    }
+
     public void stopConsumeEvents() {
         listenerThread.stop();
         requestsStore.clear();
+        subscriptionsStore.clear();
         if (t != null) {
             try {
                 t.join();
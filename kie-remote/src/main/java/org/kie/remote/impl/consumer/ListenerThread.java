@@ -22,6 +22,8 @@ import java.util.concurrent.CompletableFuture;
 
 import org.kie.remote.TopicsConfig;
 import org.kie.remote.impl.ClientUtils;
+import org.kie.remote.impl.RemoteLiveQueryImpl;
+import org.kie.remote.message.LiveQueryMessage;
 import org.kie.remote.message.ResultMessage;
 import org.slf4j.Logger;
 
@@ -32,14 +34,14 @@ public interface ListenerThread extends Runnable {
 
     void stop();
 
-    static ListenerThread get(TopicsConfig topicsConfig, Map<String, CompletableFuture<Object>> requestsStore, Properties configuration) {
-        return get(topicsConfig, requestsStore, readBoolean(configuration, LOCAL_MESSAGE_SYSTEM_CONF), configuration);
+    static ListenerThread get(TopicsConfig topicsConfig, Map<String, CompletableFuture<Object>> requestsStore, Map<String, RemoteLiveQueryImpl> subscriptionsStore, Properties configuration) {
+        return get(topicsConfig, requestsStore, subscriptionsStore, readBoolean(configuration, LOCAL_MESSAGE_SYSTEM_CONF), configuration);
     }
 
-    static ListenerThread get(TopicsConfig topicsConfig, Map<String, CompletableFuture<Object>> requestsStore, boolean isLocal, Properties configuration) {
+    static ListenerThread get(TopicsConfig topicsConfig, Map<String, CompletableFuture<Object>> requestsStore, Map<String, RemoteLiveQueryImpl> subscriptionsStore, boolean isLocal, Properties configuration) {
         return isLocal ?
-                new LocalListenerThread(topicsConfig, requestsStore) :
-                new KafkaListenerThread(getMergedConf(configuration), topicsConfig, requestsStore);
+                new LocalListenerThread(topicsConfig, requestsStore, subscriptionsStore) :
+                new KafkaListenerThread(getMergedConf(configuration), topicsConfig, requestsStore, subscriptionsStore);
     }
 
     static Properties getMergedConf(Properties configuration){
@@ -57,4 +59,14 @@ public interface ListenerThread extends Runnable {
             }
         }
     }
+
+    default void notifyChanges(Map<String, RemoteLiveQueryImpl> subscriptionsStore, LiveQueryMessage message, Logger logger) {
+        RemoteLiveQueryImpl liveQuery = subscriptionsStore.get(message.getId());
+        if(liveQuery != null) {
+            liveQuery.onMessage(message);
+            if(logger.isDebugEnabled()){
+                logger.debug("notified live query changes with key {} and sequence {}",message.getId(), message.getSequence());
+            }
+        }
+    }
 }
@@ -20,6 +20,8 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import org.kie.remote.TopicsConfig;
+import org.kie.remote.impl.RemoteLiveQueryImpl;
+import org.kie.remote.message.LiveQueryMessage;
 import org.kie.remote.message.ResultMessage;
 import org.kie.remote.util.LocalMessageSystem;
 import org.slf4j.Logger;
@@ -33,19 +35,23 @@ public class LocalListenerThread implements ListenerThread {
 
     private TopicsConfig topicsConfig;
     private Map<String, CompletableFuture<Object>> requestsStore;
+    private Map<String, RemoteLiveQueryImpl> subscriptionsStore;
 
     private volatile boolean running = true;
 
-    public LocalListenerThread(TopicsConfig topicsConfig, Map<String, CompletableFuture<Object>> requestsStore) {
+    public LocalListenerThread(TopicsConfig topicsConfig, Map<String, CompletableFuture<Object>> requestsStore, Map<String, RemoteLiveQueryImpl> subscriptionsStore) {
         this.topicsConfig = topicsConfig;
         this.requestsStore = requestsStore;
+        this.subscriptionsStore = subscriptionsStore;
     }
 
     @Override
     public void run() {
         while (running) {
             Object msg = queue.poll(topicsConfig.getKieSessionInfosTopicName());
-            if (msg instanceof ResultMessage) {
+            if (msg instanceof LiveQueryMessage) {
+                notifyChanges(subscriptionsStore, (LiveQueryMessage) msg, logger);
+            } else if (msg instanceof ResultMessage) {
                 complete(requestsStore, (ResultMessage) msg, logger);
             } else if (msg != null) {
                 throw new IllegalStateException("Wrong type of response message: found " +
@@ -20,11 +20,15 @@ import java.util.concurrent.ExecutionException;
 
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Header;
+import org.kie.remote.command.RemoteCommand;
 import org.kie.remote.message.Message;
 import org.kie.remote.message.ResultMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.kie.remote.util.CommandCodec.encode;
 import static org.kie.remote.util.SerializationUtil.serialize;
 
 public class EventProducer<T> implements Producer {
@@ -55,15 +59,37 @@ public class EventProducer<T> implements Producer {
         internalProduceSync(topicName, key, object);
     }
 
+    @Override
+    public void produceSync(String topicName, String key, Message object, Iterable<Header> headers) {
+        internalProduceSync(topicName, key, object, headers);
+    }
+
+    /**
+     * Sends an already serialized payload and returns the metadata of the written record, null if the send failed
+     */
+    public RecordMetadata produceSerializedSync(String topicName, String key, byte[] payload) {
+        try {
+            return producer.send(new ProducerRecord<>(topicName, key, (T) payload)).get();
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error in produceSync!", e);
+            return null;
+        }
+    }
+
     protected void internalProduceSync(String topicName, String key, Object object) {
+        internalProduceSync(topicName, key, object, null);
+    }
+
+    protected void internalProduceSync(String topicName, String key, Object object, Iterable<Header> headers) {
         try {
-            producer.send(getFreshProducerRecord(topicName, key, object)).get();
+            producer.send(getFreshProducerRecord(topicName, key, object, headers)).get();
         } catch (InterruptedException | ExecutionException e) {
             logger.error("Error in produceSync!", e);
         }
     }
 
-    private ProducerRecord<String, T> getFreshProducerRecord(String topicName, String key, Object object) {
-        return new ProducerRecord<>(topicName, key, (T) serialize(object));
+    private ProducerRecord<String, T> getFreshProducerRecord(String topicName, String key, Object object, Iterable<Header> headers) {
+        byte[] payload = object instanceof RemoteCommand ? encode((RemoteCommand) object) : serialize(object);
+        return new ProducerRecord<>(topicName, null, key, (T) payload, headers);
     }
 }
@@ -18,6 +18,7 @@ package org.kie.remote.impl.producer;
 import java.util.Properties;
 
 import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.common.header.Header;
 import org.kie.remote.message.Message;
 import org.kie.remote.message.ResultMessage;
 
@@ -34,6 +35,11 @@ public interface Producer {
 
     void produceSync(String topicName, String key, Message object);
 
+    /* the headers are meaningful only for a Kafka producer */
+    default void produceSync(String topicName, String key, Message object, Iterable<Header> headers) {
+        produceSync(topicName, key, object);
+    }
+
     static Producer get(Properties configuration) {
         return get(readBoolean(configuration, LOCAL_MESSAGE_SYSTEM_CONF));
     }
@@ -19,6 +19,7 @@ import java.util.Properties;
 
 import org.kie.remote.command.RemoteCommand;
 import org.kie.remote.impl.ClientUtils;
+import org.kie.remote.util.CommandHeaders;
 
 public class Sender {
 
@@ -41,6 +42,6 @@ public class Sender {
     }
 
     public void sendCommand(RemoteCommand command, String topicName) {
-        producer.produceSync(topicName, command.getId(), command);
+        producer.produceSync(topicName, command.getId(), command, CommandHeaders.of(command));
     }
 }
@@ -15,15 +15,33 @@
  */
 package org.kie.remote.message;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamClass;
 import java.util.Queue;
 
+import org.kie.remote.SideEffectsBuffer;
 import org.kie.remote.message.AbstractMessage;
 import org.kie.remote.message.Message;
 
-public class ControlMessage extends AbstractMessage implements Serializable, Message {
+/**
+ * Written by the leader on the control topic for each processed command.
+ * The side effects are written last with the compact encoding of {@link SideEffectsBuffer}:
+ * a command without side effects, the common case, doesn't add any byte.
+ * The data starts with the version of the format, the messages written when it was Serializable
+ * are read through {@link #readLegacyDescriptor(ObjectStreamClass)}.
+ */
+public class ControlMessage extends AbstractMessage implements Externalizable, Message {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final byte FORMAT_VERSION = 1;
 
     protected long offset;
+    protected long epoch;
     protected Queue<Object> sideEffects;
 
     /* Empty constructor for serialization */
@@ -43,14 +61,64 @@ public class ControlMessage extends AbstractMessage implements Serializable, Mes
         this.offset = offset;
     }
 
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(long epoch) {
+        this.epoch = epoch;
+    }
+
     public Queue<Object> getSideEffects() {
         return sideEffects;
     }
 
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeObject(id);
+        out.writeLong(timestamp);
+        out.writeLong(offset);
+        out.writeLong(epoch);
+        if (sideEffects instanceof SideEffectsBuffer) {
+            ((SideEffectsBuffer) sideEffects).writeTo(out);
+        } else if (sideEffects != null) {
+            SideEffectsBuffer buffer = new SideEffectsBuffer();
+            buffer.addAll(sideEffects);
+            buffer.writeTo(out);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new InvalidObjectException("Unknown ControlMessage format " + version);
+        }
+        id = (String) in.readObject();
+        timestamp = in.readLong();
+        offset = in.readLong();
+        epoch = in.readLong();
+        sideEffects = SideEffectsBuffer.readFrom(in);
+    }
+
+    /**
+     * The descriptor to read in place of the given one of a ControlMessage written before it was Externalizable,
+     * the one read otherwise
+     */
+    public static ObjectStreamClass readLegacyDescriptor(ObjectStreamClass streamDescriptor) {
+        if (ControlMessage.class.getName().equals(streamDescriptor.getName()) &&
+                streamDescriptor.getSerialVersionUID() == LegacyControlMessage.SERIAL_VERSION_UID) {
+            return ObjectStreamClass.lookup(LegacyControlMessage.class);
+        }
+        return streamDescriptor;
+    }
+
     @Override
     public String toString() {
         return "ControlMessage{" +
                 "offset=" + offset +
+                ", epoch=" + epoch +
                 ", sideEffects=" + sideEffects +
                 ", id='" + id + '\'' +
                 ", timestamp=" + timestamp +
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.message;
+
+import java.io.Serializable;
+import java.util.Queue;
+
+/**
+ * The form of the {@link ControlMessage}s written on the control topic before it was Externalizable,
+ * read in its place by {@link org.kie.remote.util.SerializationUtil} so a replica can replay them after an upgrade
+ */
+class LegacyControlMessage extends AbstractMessage implements Serializable {
+
+    /* the default one of the previous ControlMessage */
+    static final long SERIAL_VERSION_UID = -5202134483831362524L;
+
+    private static final long serialVersionUID = SERIAL_VERSION_UID;
+
+    protected long offset;
+    protected Queue<Object> sideEffects;
+
+    private Object readResolve() {
+        ControlMessage message = new ControlMessage(id, sideEffects);
+        message.setOffset(offset);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.message;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A batch with all the changes of a live query caused by a single command.
+ * The id is the one of the subscription, the sequence grows by one for each batch
+ * and it is the same on all the nodes, so a batch published twice after a failover
+ * can be recognized and discarded by the client.
+ */
+public class LiveQueryMessage extends AbstractMessage implements Serializable {
+
+    private long sequence;
+    private boolean reset;
+    private List<LiveQueryDelta> deltas;
+
+    /* Empty constructor for serialization */
+    public LiveQueryMessage() {
+    }
+
+    public LiveQueryMessage(String id, long sequence, boolean reset, List<LiveQueryDelta> deltas) {
+        super(id);
+        this.sequence = sequence;
+        this.reset = reset;
+        this.deltas = deltas;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return true if the deltas are the whole content of the query and replace everything received before
+     */
+    public boolean isReset() {
+        return reset;
+    }
+
+    public List<LiveQueryDelta> getDeltas() {
+        return deltas;
+    }
+
+    @Override
+    public String toString() {
+        return "LiveQueryMessage{" +
+                "sequence=" + sequence +
+                ", reset=" + reset +
+                ", deltas=" + deltas +
+                ", id='" + id + '\'' +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.kie.remote.command.CommandKind;
+import org.kie.remote.command.RemoteCommand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serializes the commands behind a small header, so the kind, the id and the flags of a command
+ * can be read without deserializing it:
+ * <pre>
+ * | magic (2) | version (1) | flags (1) | kind (1) | id length (2) | id (UTF-8) | java serialized command |
+ * </pre>
+ * A java serialization stream starts with 0xACED, so payloads without the header are still recognized.
+ */
+public class CommandCodec {
+
+    private static Logger logger = LoggerFactory.getLogger(CommandCodec.class);
+
+    private static final byte MAGIC_0 = 'H';
+    private static final byte MAGIC_1 = 'C';
+    private static final byte VERSION = 1;
+    private static final byte FLAG_PERMITTED_FOR_REPLICAS = 0x01;
+    private static final int FLAGS_POSITION = 3;
+    private static final int KIND_POSITION = 4;
+    private static final int ID_LENGTH_POSITION = 5;
+    private static final int FIXED_HEADER_SIZE = 7;
+
+    private CommandCodec() { }
+
+    public static byte[] encode(RemoteCommand command) {
+        byte[] id = command.getId() != null ? command.getId().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            out.write(MAGIC_0);
+            out.write(MAGIC_1);
+            out.write(VERSION);
+            out.write(command.isPermittedForReplicas() ? FLAG_PERMITTED_FOR_REPLICAS : 0);
+            out.write(CommandKind.of(command).getCode());
+            out.write((id.length >>> 8) & 0xFF);
+            out.write(id.length & 0xFF);
+            out.write(id);
+            try (ObjectOutputStream o = new ObjectOutputStream(out)) {
+                o.writeObject(command);
+            }
+            return out.toByteArray();
+        } catch (IOException io) {
+            logger.error(io.getMessage(), io);
+            throw new RuntimeException(io);
+        }
+    }
+
+    public static boolean hasHeader(ByteBuffer buffer) {
+        int position = buffer.position();
+        return buffer.remaining() >= FIXED_HEADER_SIZE &&
+                buffer.get(position) == MAGIC_0 &&
+                buffer.get(position + 1) == MAGIC_1;
+    }
+
+    public static boolean hasHeader(byte[] bytes) {
+        return bytes != null && bytes.length >= FIXED_HEADER_SIZE && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    /**
+     * @return the number of bytes before the serialized command, 0 if the payload has no header
+     */
+    public static int headerLength(byte[] bytes) {
+        return hasHeader(bytes) ? FIXED_HEADER_SIZE + idLength(ByteBuffer.wrap(bytes)) : 0;
+    }
+
+    public static boolean isPermittedForReplicas(ByteBuffer buffer) {
+        return (buffer.get(buffer.position() + FLAGS_POSITION) & FLAG_PERMITTED_FOR_REPLICAS) != 0;
+    }
+
+    public static CommandKind getKind(ByteBuffer buffer) {
+        return CommandKind.ofCode(buffer.get(buffer.position() + KIND_POSITION));
+    }
+
+    public static String getId(ByteBuffer buffer) {
+        int length = idLength(buffer);
+        byte[] id = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(buffer.position() + FIXED_HEADER_SIZE);
+        view.get(id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deserializes the command after the header, reading directly from the backing array when present
+     */
+    public static <T> T decode(ByteBuffer buffer) {
+        int skip = hasHeader(buffer) ? FIXED_HEADER_SIZE + idLength(buffer) : 0;
+        ByteArrayInputStream in;
+        if (buffer.hasArray()) {
+            in = new ByteArrayInputStream(buffer.array(),
+                                          buffer.arrayOffset() + buffer.position() + skip,
+                                          buffer.remaining() - skip);
+        } else {
+            byte[] bytes = new byte[buffer.remaining() - skip];
+            ByteBuffer view = buffer.duplicate();
+            view.position(buffer.position() + skip);
+            view.get(bytes);
+            in = new ByteArrayInputStream(bytes);
+        }
+        try (ObjectInput o = new ObjectInputStream(in)) {
+            return (T) o.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            logger.error(e.getMessage(), e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static int idLength(ByteBuffer buffer) {
+        int position = buffer.position() + ID_LENGTH_POSITION;
+        return ((buffer.get(position) & 0xFF) << 8) | (buffer.get(position + 1) & 0xFF);
+    }
+}
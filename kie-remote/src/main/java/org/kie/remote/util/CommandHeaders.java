@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.kie.remote.command.CommandKind;
+import org.kie.remote.command.RemoteCommand;
+
+/**
+ * Kafka record headers describing the command carried by a record of the events topic,
+ * readable by the consumers before the value is deserialized.
+ */
+public class CommandHeaders {
+
+    public static final String KIND = "hacep-command-kind";
+    public static final String PERMITTED_FOR_REPLICAS = "hacep-permitted-for-replicas";
+
+    private static final byte[] TRUE = new byte[]{1};
+    private static final byte[] FALSE = new byte[]{0};
+
+    private CommandHeaders() { }
+
+    public static List<Header> of(RemoteCommand command) {
+        List<Header> headers = new ArrayList<>(2);
+        headers.add(new RecordHeader(KIND, new byte[]{CommandKind.of(command).getCode()}));
+        headers.add(new RecordHeader(PERMITTED_FOR_REPLICAS, command.isPermittedForReplicas() ? TRUE : FALSE));
+        return headers;
+    }
+
+    /**
+     * @return false only when the header is present and says so, records without headers must be processed
+     */
+    public static boolean isPermittedForReplicas(Headers headers) {
+        Header header = headers != null ? headers.lastHeader(PERMITTED_FOR_REPLICAS) : null;
+        return header == null || header.value() == null || header.value().length == 0 || header.value()[0] != 0;
+    }
+
+    public static CommandKind getKind(Headers headers) {
+        Header header = headers != null ? headers.lastHeader(KIND) : null;
+        return header == null || header.value() == null || header.value().length == 0 ?
+                CommandKind.OTHER :
+                CommandKind.ofCode(header.value()[0]);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.util;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the ids of the commands and of the remote fact handles as a (client id, sequence) pair:
+ * the client id is randomly chosen once per JVM, the sequence is a counter,
+ * so an id costs an increment instead of a secure random UUID.
+ * The text form is the two numbers in base 36, e.g. "3w5e11264sgsf-1z".
+ */
+public class IdGenerator {
+
+    private static final long CLIENT_ID = new SecureRandom().nextLong();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private IdGenerator() { }
+
+    public static long getClientId() {
+        return CLIENT_ID;
+    }
+
+    public static long nextSequence() {
+        return SEQUENCE.incrementAndGet();
+    }
+
+    public static String nextId() {
+        return toText(CLIENT_ID, nextSequence());
+    }
+
+    public static String toText(long clientId, long sequence) {
+        return Long.toUnsignedString(clientId, 36) + '-' + Long.toUnsignedString(sequence, 36);
+    }
+}
@@ -22,7 +22,9 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 
+import org.kie.remote.message.ControlMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,7 +46,13 @@ public class SerializationUtil {
 
     public static <T> T deserialize(byte[] bytez) {
         try {
-            ObjectInput in = new ObjectInputStream(new ByteArrayInputStream(bytez));
+            int offset = CommandCodec.headerLength(bytez);
+            ObjectInput in = new ObjectInputStream(new ByteArrayInputStream(bytez, offset, bytez.length - offset)) {
+                @Override
+                protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+                    return ControlMessage.readLegacyDescriptor(super.readClassDescriptor());
+                }
+            };
             return (T) in.readObject();
         } catch (IOException | ClassNotFoundException e) {
             logger.error(e.getMessage(), e);
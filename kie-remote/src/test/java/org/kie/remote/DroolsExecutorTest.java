@@ -19,6 +19,8 @@ package org.kie.remote;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
@@ -74,6 +76,20 @@ public class DroolsExecutorTest {
         Assertions.assertThat(master.getAndReset()).isEmpty();
     }
 
+    @Test
+    public void testGetAndResetHandsOutOwnedQueues() {
+        final DroolsExecutor master = getMasterExecutor();
+
+        master.execute(() -> "first");
+        final Queue<Object> first = master.getAndReset();
+        master.execute(() -> "second");
+        final Queue<Object> second = master.getAndReset();
+        master.getAndReset();
+
+        Assertions.assertThat(first).containsExactly("first");
+        Assertions.assertThat(second).containsExactly("second");
+    }
+
     @Test
     public void testExecuteOnSlave() {
         final DroolsExecutor slave = getSlaveExecutor();
@@ -87,6 +103,130 @@ public class DroolsExecutorTest {
         Assertions.assertThat(slave.execute(() -> "test")).isNull();
     }
 
+    @Test
+    public void testExecuteAsyncKeepsTheOrderOnMaster() {
+        DroolsExecutorContext context = new DroolsExecutorContext(2);
+        context.setAsLeader();
+        final DroolsExecutor leader = context.getExecutor();
+
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture<String> fast = new CompletableFuture<>();
+        CompletionStage<String> slowResult = leader.executeAsync(() -> slow);
+        leader.execute(() -> "sync");
+        leader.executeAsync(() -> fast);
+
+        CompletableFuture<Queue<Object>> results = leader.getAndResetAsync().toCompletableFuture();
+        fast.complete("fast");
+        Assertions.assertThat(results).isNotDone();
+        Assertions.assertThat(slowResult.toCompletableFuture()).isNotDone();
+
+        slow.complete("slow");
+        Assertions.assertThat(results.join()).containsExactly("slow", "sync", "fast");
+        Assertions.assertThat(slowResult.toCompletableFuture().join()).isEqualTo("slow");
+        Assertions.assertThat(leader.getAndReset()).isEmpty();
+    }
+
+    @Test
+    public void testResultsOfSyncCommandsKeptWhileAsyncPending() {
+        DroolsExecutorContext context = new DroolsExecutorContext();
+        context.setAsLeader();
+        final DroolsExecutor leader = context.getExecutor();
+
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        leader.executeAsync(() -> slow);
+        CompletableFuture<Queue<Object>> asyncCommand = leader.getAndResetAsync().toCompletableFuture();
+
+        leader.execute(() -> "first");
+        CompletableFuture<Queue<Object>> firstSyncCommand = leader.getAndResetAsync().toCompletableFuture();
+        leader.execute(() -> "second");
+        CompletableFuture<Queue<Object>> secondSyncCommand = leader.getAndResetAsync().toCompletableFuture();
+        leader.execute(() -> "third");
+        leader.getAndResetAsync();
+
+        // the results of the sync commands are published only after the async one
+        Assertions.assertThat(asyncCommand).isNotDone();
+        slow.complete("slow");
+        Assertions.assertThat(asyncCommand.join()).containsExactly("slow");
+        Assertions.assertThat(firstSyncCommand.join()).containsExactly("first");
+        Assertions.assertThat(secondSyncCommand.join()).containsExactly("second");
+    }
+
+    @Test
+    public void testExecuteAsyncFailureReplayedOnSlave() {
+        DroolsExecutorContext context = new DroolsExecutorContext();
+        context.setAsLeader();
+        final DroolsExecutor leader = context.getExecutor();
+
+        CompletionStage<String> failed = leader.executeAsync(() -> {
+            throw new IllegalArgumentException("unreachable");
+        });
+        Assertions.assertThat(failed.toCompletableFuture()).isCompletedExceptionally();
+        leader.executeAsync(() -> CompletableFuture.completedFuture("done"));
+
+        Queue<Object> results = leader.getAndResetAsync().toCompletableFuture().join();
+        Assertions.assertThat(results).hasSize(2);
+        Assertions.assertThat(results.peek()).isInstanceOf(DroolsExecutor.FailedResult.class);
+        Assertions.assertThat(((DroolsExecutor.FailedResult) results.peek()).getErrorClass()).isEqualTo(IllegalArgumentException.class.getName());
+
+        context.setAsReplica();
+        final DroolsExecutor replica = context.getExecutor();
+        replica.appendSideEffects(results);
+        Assertions.assertThat(replica.<String>executeAsync(() -> { throw new AssertionError("invoked on replica"); }).toCompletableFuture())
+                .isCompletedExceptionally();
+        Assertions.assertThat(replica.<String>executeAsync(() -> { throw new AssertionError("invoked on replica"); }).toCompletableFuture().join())
+                .isEqualTo("done");
+    }
+
+    @Test
+    public void testPollIfOnSlave() {
+        final DroolsExecutor.Slave slave = (DroolsExecutor.Slave) new DroolsExecutorContext().getExecutor();
+        slave.appendSideEffects(new ArrayDeque<>(Arrays.asList(42, TEST_SIDE_EFFECTS[0])));
+
+        Assertions.assertThat(slave.pollIf(String.class)).isNull();
+        Assertions.assertThat(slave.pollIf(Integer.class)).isEqualTo(42);
+        Assertions.assertThat(slave.<String>execute(() -> "test")).isEqualTo(TEST_SIDE_EFFECTS[0]);
+        Assertions.assertThat(slave.pollIf(String.class)).isNull();
+    }
+
+    @Test
+    public void testContextsBoundOnSeparateThreads() throws Exception {
+        DroolsExecutorContext leaderContext = new DroolsExecutorContext();
+        leaderContext.setAsLeader();
+        DroolsExecutorContext replicaContext = new DroolsExecutorContext();
+        replicaContext.setAsReplica();
+
+        CompletableFuture<DroolsExecutor> onLeader = CompletableFuture.supplyAsync(() -> executorBoundTo(leaderContext));
+        CompletableFuture<DroolsExecutor> onReplica = CompletableFuture.supplyAsync(() -> executorBoundTo(replicaContext));
+
+        Assertions.assertThat(onLeader.get()).isSameAs(leaderContext.getExecutor()).isInstanceOf(DroolsExecutor.Leader.class);
+        Assertions.assertThat(onReplica.get()).isSameAs(replicaContext.getExecutor()).isInstanceOf(DroolsExecutor.Slave.class);
+
+        replicaContext.setAsLeader();
+        Assertions.assertThat(executorBoundTo(replicaContext)).isInstanceOf(DroolsExecutor.Leader.class);
+        Assertions.assertThat(leaderContext.getExecutor()).isNotSameAs(replicaContext.getExecutor());
+    }
+
+    @Test
+    public void testRestoreContext() {
+        DroolsExecutorContext context = new DroolsExecutorContext();
+        DroolsExecutorContext previous = context.bind();
+        try {
+            Assertions.assertThat(DroolsExecutor.getContext()).isSameAs(context);
+        } finally {
+            DroolsExecutor.restoreContext(previous);
+        }
+        Assertions.assertThat(DroolsExecutor.getContext()).isNotSameAs(context);
+    }
+
+    private static DroolsExecutor executorBoundTo(DroolsExecutorContext context) {
+        DroolsExecutorContext previous = context.bind();
+        try {
+            return DroolsExecutor.getInstance();
+        } finally {
+            DroolsExecutor.restoreContext(previous);
+        }
+    }
+
     private static DroolsExecutor getMasterExecutor() {
         DroolsExecutor.setAsLeader();
         return DroolsExecutor.getInstance();
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.kie.remote.DroolsExecutor.EmptyResult;
+import org.kie.remote.message.ControlMessage;
+
+import static org.kie.remote.util.SerializationUtil.deserialize;
+import static org.kie.remote.util.SerializationUtil.serialize;
+
+public class SideEffectsBufferTest {
+
+    @Test
+    public void testQueueOfRuns() {
+        SideEffectsBuffer buffer = new SideEffectsBuffer();
+        buffer.add(EmptyResult.INSTANCE);
+        buffer.add(EmptyResult.INSTANCE);
+        buffer.add("result");
+        for (int i = 0; i < 20; i++) {
+            buffer.add(EmptyResult.INSTANCE);
+        }
+        Assertions.assertThat(buffer).hasSize(23);
+        Assertions.assertThat(buffer.toString()).isEqualTo(new ArrayDeque<>(buffer).toString());
+
+        Assertions.assertThat(buffer.poll()).isSameAs(EmptyResult.INSTANCE);
+        Assertions.assertThat(buffer.poll()).isSameAs(EmptyResult.INSTANCE);
+        Assertions.assertThat(buffer.peek()).isEqualTo("result");
+        Assertions.assertThat(buffer.poll()).isEqualTo("result");
+        Assertions.assertThat(buffer).hasSize(20).containsOnly(EmptyResult.INSTANCE);
+
+        buffer.clear();
+        Assertions.assertThat(buffer).isEmpty();
+        Assertions.assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    public void testGrowAfterPoll() {
+        SideEffectsBuffer buffer = new SideEffectsBuffer();
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i);
+            if (i % 3 == 0) {
+                Assertions.assertThat(buffer.poll()).isNotNull();
+            }
+        }
+        Assertions.assertThat(buffer).hasSize(66);
+        Assertions.assertThat(buffer.peek()).isEqualTo(34);
+    }
+
+    @Test
+    public void testDrainHandsOutACopy() {
+        SideEffectsBuffer buffer = new SideEffectsBuffer();
+        buffer.addAll(Arrays.asList(EmptyResult.INSTANCE, EmptyResult.INSTANCE, "result"));
+        SideEffectsBuffer drained = buffer.drain();
+        Assertions.assertThat(buffer).isEmpty();
+
+        buffer.add("next");
+        Assertions.assertThat(drained).containsExactly(EmptyResult.INSTANCE, EmptyResult.INSTANCE, "result");
+        drained.add("appended");
+        Assertions.assertThat(drained).hasSize(4);
+        Assertions.assertThat(buffer).containsExactly("next");
+
+        SideEffectsBuffer empty = new SideEffectsBuffer().drain();
+        empty.add(EmptyResult.INSTANCE);
+        Assertions.assertThat(empty).containsExactly(EmptyResult.INSTANCE);
+    }
+
+    @Test
+    public void testControlMessageEncoding() {
+        SideEffectsBuffer sideEffects = new SideEffectsBuffer();
+        sideEffects.addAll(Arrays.asList(EmptyResult.INSTANCE, EmptyResult.INSTANCE, "result", EmptyResult.INSTANCE));
+        ControlMessage message = new ControlMessage("id", sideEffects);
+        message.setEpoch(3);
+        message.setTimestamp(42);
+
+        ControlMessage read = deserialize(serialize(message));
+        Assertions.assertThat(read.getId()).isEqualTo("id");
+        Assertions.assertThat(read.getEpoch()).isEqualTo(3);
+        Assertions.assertThat(read.getTimestamp()).isEqualTo(42);
+        Assertions.assertThat(read.getSideEffects()).containsExactly(EmptyResult.INSTANCE, EmptyResult.INSTANCE, "result", EmptyResult.INSTANCE);
+    }
+
+    @Test
+    public void testEmptySideEffectsEncoding() {
+        byte[] empty = serialize(new ControlMessage("id", new SideEffectsBuffer()));
+        SideEffectsBuffer oneEmptyResult = new SideEffectsBuffer();
+        oneEmptyResult.add(EmptyResult.INSTANCE);
+        byte[] oneRun = serialize(new ControlMessage("id", oneEmptyResult));
+
+        ControlMessage read = deserialize(empty);
+        Assertions.assertThat(read.getSideEffects()).isEmpty();
+        Assertions.assertThat(empty.length).isLessThan(oneRun.length);
+    }
+}
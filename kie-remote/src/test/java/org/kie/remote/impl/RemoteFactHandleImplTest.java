@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.impl;
+
+import java.util.Base64;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.kie.remote.RemoteFactHandle;
+
+import static org.kie.remote.util.SerializationUtil.deserialize;
+import static org.kie.remote.util.SerializationUtil.serialize;
+
+public class RemoteFactHandleImplTest {
+
+    /* a handle of "RHT" written when the id was a random UUID */
+    private static final String LEGACY_HANDLE =
+            "rO0ABXNyAChvcmcua2llLnJlbW90ZS5pbXBsLlJlbW90ZUZhY3RIYW5kbGVJbXBs4NSkRUVKjwACAAJMAAJpZHQAEkxqYXZhL2xh" +
+            "bmcvU3RyaW5nO0wABm9iamVjdHQAEkxqYXZhL2xhbmcvT2JqZWN0O3hwdAAkMGM4YjdiMmUtNmI0YS00ZDNiLTlhNWUtMmYxZDNj" +
+            "NGI1YTY5dAADUkhU";
+    private static final String LEGACY_ID = "0c8b7b2e-6b4a-4d3b-9a5e-2f1d3c4b5a69";
+
+    @Test
+    public void testEqualsAndHashCode() {
+        RemoteFactHandle<String> handle = new RemoteFactHandleImpl("RHT");
+        RemoteFactHandle<String> other = new RemoteFactHandleImpl("RHT");
+
+        Assertions.assertThat(handle).isNotEqualTo(other);
+        Assertions.assertThat(handle.getId()).isNotEqualTo(other.getId());
+
+        RemoteFactHandle<String> read = deserialize(serialize(handle));
+        Assertions.assertThat(read).isEqualTo(handle).isNotSameAs(handle);
+        Assertions.assertThat(read.hashCode()).isEqualTo(handle.hashCode());
+        Assertions.assertThat(read.getId()).isEqualTo(handle.getId());
+        Assertions.assertThat(read.getObject()).isEqualTo("RHT");
+    }
+
+    @Test
+    public void testReadLegacyHandle() {
+        RemoteFactHandle<String> legacy = deserialize(Base64.getDecoder().decode(LEGACY_HANDLE));
+        Assertions.assertThat(legacy.getId()).isEqualTo(LEGACY_ID);
+        Assertions.assertThat(legacy.getObject()).isEqualTo("RHT");
+        Assertions.assertThat(legacy).isNotEqualTo(new RemoteFactHandleImpl("RHT"));
+        Assertions.assertThat(new RemoteFactHandleImpl("RHT")).isNotEqualTo(legacy);
+
+        // the UUID is kept when the handle is written again, e.g. by the next snapshot
+        RemoteFactHandle<String> read = deserialize(serialize(legacy));
+        Assertions.assertThat(read).isEqualTo(legacy);
+        Assertions.assertThat(read.hashCode()).isEqualTo(legacy.hashCode());
+        Assertions.assertThat(read.getId()).isEqualTo(LEGACY_ID);
+    }
+}
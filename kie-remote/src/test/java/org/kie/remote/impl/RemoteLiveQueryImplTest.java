@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.remote.LiveQueryListener;
+import org.kie.remote.TopicsConfig;
+import org.kie.remote.command.LiveQueryCloseCommand;
+import org.kie.remote.command.LiveQueryResumeCommand;
+import org.kie.remote.impl.producer.Sender;
+import org.kie.remote.message.LiveQueryDelta;
+import org.kie.remote.message.LiveQueryMessage;
+import org.kie.remote.util.LocalMessageSystem;
+
+import static org.kie.remote.CommonConfig.LOCAL_MESSAGE_SYSTEM_CONF;
+
+public class RemoteLiveQueryImplTest {
+
+    private static final String EVENTS_TOPIC = "live-query-test-events";
+
+    private final LocalMessageSystem messageSystem = LocalMessageSystem.get();
+    private final List<String> notifications = new ArrayList<>();
+    private final Map<String, RemoteLiveQueryImpl> subscriptions = new HashMap<>();
+    private RemoteLiveQueryImpl liveQuery;
+
+    @Before
+    public void setUp() {
+        while (messageSystem.poll(EVENTS_TOPIC) != null) { }
+        Properties configuration = new Properties();
+        configuration.setProperty(LOCAL_MESSAGE_SYSTEM_CONF, "true");
+        TopicsConfig topicsConfig = TopicsConfig.anTopicsConfig().withEventsTopicName(EVENTS_TOPIC).build();
+        liveQuery = new RemoteLiveQueryImpl("q1", 0L, new RecordingListener(), new Sender(configuration), topicsConfig, subscriptions);
+        subscriptions.put("q1", liveQuery);
+    }
+
+    @Test
+    public void testBatchesAppliedInSequence() {
+        liveQuery.onMessage(message(1, false, new LiveQueryDelta(LiveQueryDelta.Type.ADDED, "a")));
+        liveQuery.onMessage(message(2, false, new LiveQueryDelta(LiveQueryDelta.Type.UPDATED, "a"),
+                                    new LiveQueryDelta(LiveQueryDelta.Type.REMOVED, "a")));
+        // republished by a new leader
+        liveQuery.onMessage(message(2, false, new LiveQueryDelta(LiveQueryDelta.Type.REMOVED, "a")));
+
+        Assertions.assertThat(notifications).containsExactly("added:a", "updated:a", "removed:a");
+        Assertions.assertThat(liveQuery.getLastSequence()).isEqualTo(2);
+        Assertions.assertThat(messageSystem.peek(EVENTS_TOPIC)).isNull();
+    }
+
+    @Test
+    public void testGapResumesOnce() {
+        liveQuery.onMessage(message(1, false, new LiveQueryDelta(LiveQueryDelta.Type.ADDED, "a")));
+        liveQuery.onMessage(message(3, false, new LiveQueryDelta(LiveQueryDelta.Type.ADDED, "c")));
+        liveQuery.onMessage(message(4, false, new LiveQueryDelta(LiveQueryDelta.Type.ADDED, "d")));
+
+        Object command = messageSystem.poll(EVENTS_TOPIC);
+        Assertions.assertThat(command).isInstanceOf(LiveQueryResumeCommand.class);
+        Assertions.assertThat(((LiveQueryResumeCommand) command).getSubscriptionId()).isEqualTo("q1");
+        Assertions.assertThat(((LiveQueryResumeCommand) command).getLastSequence()).isEqualTo(1);
+        Assertions.assertThat(messageSystem.poll(EVENTS_TOPIC)).isNull();
+
+        // the replay of the missing batches
+        liveQuery.onMessage(message(2, false, new LiveQueryDelta(LiveQueryDelta.Type.ADDED, "b")));
+        liveQuery.onMessage(message(3, false, new LiveQueryDelta(LiveQueryDelta.Type.ADDED, "c")));
+        Assertions.assertThat(notifications).containsExactly("added:a", "added:b", "added:c");
+        Assertions.assertThat(liveQuery.getLastSequence()).isEqualTo(3);
+    }
+
+    @Test
+    public void testResetReplacesTheContent() {
+        liveQuery.onMessage(message(1, false, new LiveQueryDelta(LiveQueryDelta.Type.ADDED, "a")));
+        liveQuery.onMessage(message(7, true, new LiveQueryDelta(LiveQueryDelta.Type.ADDED, "b"),
+                                    new LiveQueryDelta(LiveQueryDelta.Type.ADDED, "c")));
+
+        Assertions.assertThat(notifications).containsExactly("added:a", "reset", "added:b", "added:c");
+        Assertions.assertThat(liveQuery.getLastSequence()).isEqualTo(7);
+
+        liveQuery.onMessage(message(8, false, new LiveQueryDelta(LiveQueryDelta.Type.REMOVED, "b")));
+        Assertions.assertThat(notifications).endsWith("removed:b");
+    }
+
+    @Test
+    public void testCloseStopsTheSubscription() {
+        liveQuery.close();
+
+        Assertions.assertThat(subscriptions).isEmpty();
+        Object command = messageSystem.poll(EVENTS_TOPIC);
+        Assertions.assertThat(command).isInstanceOf(LiveQueryCloseCommand.class);
+        Assertions.assertThat(((LiveQueryCloseCommand) command).getSubscriptionId()).isEqualTo("q1");
+    }
+
+    private static LiveQueryMessage message(long sequence, boolean reset, LiveQueryDelta... deltas) {
+        return new LiveQueryMessage("q1", sequence, reset, Arrays.asList(deltas));
+    }
+
+    private class RecordingListener implements LiveQueryListener<String> {
+
+        @Override
+        public void onAdded(String object) {
+            notifications.add("added:" + object);
+        }
+
+        @Override
+        public void onUpdated(String object) {
+            notifications.add("updated:" + object);
+        }
+
+        @Override
+        public void onRemoved(String object) {
+            notifications.add("removed:" + object);
+        }
+
+        @Override
+        public void onReset() {
+            notifications.add("reset");
+        }
+    }
+}
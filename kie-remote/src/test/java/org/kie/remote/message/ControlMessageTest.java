@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.message;
+
+import java.util.Base64;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import static org.kie.remote.util.SerializationUtil.deserialize;
+
+public class ControlMessageTest {
+
+    /* ControlMessage("id", [result, 42]) with offset 7 and timestamp 1000, written when the class was Serializable */
+    private static final String LEGACY_RECORD =
+            "rO0ABXNyACVvcmcua2llLnJlbW90ZS5tZXNzYWdlLkNvbnRyb2xNZXNzYWdlt85OP8Fr7CQCAAJKAAZvZmZzZXRMAAtzaWRlRWZm" +
+            "ZWN0c3QAEUxqYXZhL3V0aWwvUXVldWU7eHIAJm9yZy5raWUucmVtb3RlLm1lc3NhZ2UuQWJzdHJhY3RNZXNzYWdlas8YAyAzMD4C" +
+            "AAJKAAl0aW1lc3RhbXBMAAJpZHQAEkxqYXZhL2xhbmcvU3RyaW5nO3hwAAAAAAAAA+h0AAJpZAAAAAAAAAAHc3IAFGphdmEudXRp" +
+            "bC5BcnJheURlcXVlIHzaLiQNoIsDAAB4cHcEAAAAAnQABnJlc3VsdHNyABFqYXZhLmxhbmcuSW50ZWdlchLioKT3gYc4AgABSQAF" +
+            "dmFsdWV4cgAQamF2YS5sYW5nLk51bWJlcoaslR0LlOCLAgAAeHAAAAAqeA==";
+
+    @Test
+    public void testReadLegacyRecord() {
+        ControlMessage read = deserialize(Base64.getDecoder().decode(LEGACY_RECORD));
+        Assertions.assertThat(read.getId()).isEqualTo("id");
+        Assertions.assertThat(read.getOffset()).isEqualTo(7);
+        Assertions.assertThat(read.getTimestamp()).isEqualTo(1000);
+        Assertions.assertThat(read.getEpoch()).isZero();
+        Assertions.assertThat(read.getSideEffects()).containsExactly("result", 42);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.util;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import org.kie.remote.command.CommandKind;
+import org.kie.remote.command.FactCountCommand;
+import org.kie.remote.command.FireAllRulesCommand;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CommandCodecTest {
+
+    @Test
+    public void testHeaderIsReadableWithoutDecoding() {
+        FactCountCommand command = new FactCountCommand("DEFAULT");
+        ByteBuffer buffer = ByteBuffer.wrap(CommandCodec.encode(command));
+
+        assertThat(CommandCodec.hasHeader(buffer)).isTrue();
+        assertThat(CommandCodec.isPermittedForReplicas(buffer)).isFalse();
+        assertThat(CommandCodec.getKind(buffer)).isEqualTo(CommandKind.FACT_COUNT);
+        assertThat(CommandCodec.getId(buffer)).isEqualTo(command.getId());
+
+        FactCountCommand decoded = CommandCodec.decode(buffer);
+        assertThat(decoded.getId()).isEqualTo(command.getId());
+        assertThat(decoded.getEntryPoint()).isEqualTo("DEFAULT");
+    }
+
+    @Test
+    public void testSerializationUtilSkipsHeader() {
+        FireAllRulesCommand command = new FireAllRulesCommand();
+        byte[] bytes = CommandCodec.encode(command);
+        assertThat(CommandCodec.isPermittedForReplicas(ByteBuffer.wrap(bytes))).isTrue();
+
+        FireAllRulesCommand decoded = SerializationUtil.deserialize(bytes);
+        assertThat(decoded.getId()).isEqualTo(command.getId());
+    }
+
+    @Test
+    public void testPlainSerializationHasNoHeader() {
+        byte[] bytes = SerializationUtil.serialize(new FireAllRulesCommand());
+        assertThat(CommandCodec.hasHeader(bytes)).isFalse();
+        assertThat(CommandCodec.headerLength(bytes)).isZero();
+    }
+}
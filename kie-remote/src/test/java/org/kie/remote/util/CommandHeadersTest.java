@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.util;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.kie.remote.command.CommandKind;
+import org.kie.remote.command.FireAllRulesCommand;
+import org.kie.remote.command.GetObjectCommand;
+import org.kie.remote.command.InsertCommand;
+import org.kie.remote.command.RemoteCommand;
+import org.kie.remote.impl.RemoteFactHandleImpl;
+
+public class CommandHeadersTest {
+
+    @Test
+    public void testRoundTrip() {
+        RemoteCommand[] commands = {
+                new InsertCommand(new RemoteFactHandleImpl("RHT"), "DEFAULT"),
+                new GetObjectCommand(new RemoteFactHandleImpl("RHT")),
+                new FireAllRulesCommand()
+        };
+        for (RemoteCommand command : commands) {
+            Headers headers = new RecordHeaders(CommandHeaders.of(command));
+            Assertions.assertThat(CommandHeaders.getKind(headers)).isEqualTo(CommandKind.of(command));
+            Assertions.assertThat(CommandHeaders.isPermittedForReplicas(headers)).isEqualTo(command.isPermittedForReplicas());
+        }
+    }
+
+    @Test
+    public void testRecordsWithoutHeadersAreProcessed() {
+        Assertions.assertThat(CommandHeaders.isPermittedForReplicas(new RecordHeaders())).isTrue();
+        Assertions.assertThat(CommandHeaders.isPermittedForReplicas(null)).isTrue();
+        Assertions.assertThat(CommandHeaders.getKind(new RecordHeaders())).isEqualTo(CommandKind.OTHER);
+    }
+}
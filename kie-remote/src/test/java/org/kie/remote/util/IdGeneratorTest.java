@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.remote.util;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class IdGeneratorTest {
+
+    @Test
+    public void testTextForm() {
+        Assertions.assertThat(IdGenerator.toText(35, 36)).isEqualTo("z-10");
+        Assertions.assertThat(IdGenerator.toText(-1, 1)).isEqualTo("3w5e11264sgsf-1");
+        Assertions.assertThat(IdGenerator.nextId()).startsWith(Long.toUnsignedString(IdGenerator.getClientId(), 36) + "-");
+    }
+
+    @Test
+    public void testUniqueAcrossThreads() throws Exception {
+        int perThread = 10_000;
+        CompletableFuture<Set<String>> first = CompletableFuture.supplyAsync(() -> nextIds(perThread));
+        CompletableFuture<Set<String>> second = CompletableFuture.supplyAsync(() -> nextIds(perThread));
+        Set<String> ids = new HashSet<>(first.get());
+        ids.addAll(second.get());
+        Assertions.assertThat(ids).hasSize(2 * perThread);
+    }
+
+    private static Set<String> nextIds(int count) {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(IdGenerator.nextId());
+        }
+        return ids;
+    }
+}
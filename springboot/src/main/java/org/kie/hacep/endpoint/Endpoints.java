@@ -18,6 +18,7 @@ package org.kie.hacep.endpoint;
 import java.util.Map;
 
 import org.kie.hacep.core.GlobalStatus;
+import org.kie.hacep.core.HacepMetrics;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -38,13 +39,18 @@ public class Endpoints {
 
     @GetMapping("/readiness")
     public ResponseEntity<Void> getReadiness() {
-        if(GlobalStatus.nodeReady) {
+        if(GlobalStatus.isReady()) {
             return ResponseEntity.status(HttpStatus.OK).build();
         } else {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
     }
 
+    @GetMapping(value = "/metrics", produces = HacepMetrics.CONTENT_TYPE)
+    public ResponseEntity<String> metrics() {
+        return ResponseEntity.status(HttpStatus.OK).body(HacepMetrics.scrape());
+    }
+
     @GetMapping("/liveness")
     public ResponseEntity<Void> getLiveness() {
         if(GlobalStatus.nodeLive) {